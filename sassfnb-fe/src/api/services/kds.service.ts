@@ -1,24 +1,93 @@
 // src/api/services/kds.service.ts
 import { http } from "../client";
+import { API_BASE_URL } from "../axios";
+import { contextStorage, tokenStorage } from "../token";
 import type {
+  BulkKdsItemStatusRequest,
+  BulkKdsItemStatusResponse,
   KdsBoardsParams,
   KdsBoardsResponse,
+  KdsDeltaEvent,
+  KdsSnapshotEvent,
+  KdsTicketsResponse,
   PatchKdsItemStatusRequest,
   PatchKdsItemStatusResponse,
 } from "../../types/kds";
 
-const buildBoardsUrl = (params?: KdsBoardsParams) => {
-  if (!params) return "/kds/boards";
+const buildBoardsUrl = (params?: KdsBoardsParams, path = "/kds/boards") => {
+  if (!params) return path;
 
   const sp = new URLSearchParams();
 
   if (params.since) sp.append("since", params.since);
+  if (params.station) sp.append("station", params.station);
 
   // repeat keys => status=FIRED&status=IN_PROGRESS
   (params.status ?? []).forEach((s) => sp.append("status", s));
 
   const qs = sp.toString();
-  return qs ? `/kds/boards?${qs}` : "/kds/boards";
+  return qs ? `${path}?${qs}` : path;
+};
+
+export type KdsStreamHandlers = {
+  onSnapshot: (e: KdsSnapshotEvent) => void;
+  onDelta: (e: KdsDeltaEvent) => void;
+};
+
+/**
+ * SSE qua fetch (EventSource không gửi được Authorization / X-Outlet-Id).
+ * Resolve khi server đóng stream, reject khi lỗi HTTP/mạng => caller tự reconnect với lastSeq.
+ */
+const openStream = async (
+  handlers: KdsStreamHandlers,
+  signal: AbortSignal,
+  lastSeq?: number | null,
+  station?: string | null
+) => {
+  const headers: Record<string, string> = { Accept: "text/event-stream" };
+  const token = tokenStorage.getAccess();
+  const restaurantId = contextStorage.getRestaurantId();
+  const outletId = contextStorage.getOutletId();
+  if (token) headers.Authorization = `Bearer ${token}`;
+  if (restaurantId) headers["X-Restaurant-Id"] = restaurantId;
+  if (outletId) headers["X-Outlet-Id"] = outletId;
+  if (lastSeq != null) headers["Last-Event-ID"] = String(lastSeq);
+
+  const qs = station ? `?station=${encodeURIComponent(station)}` : "";
+  const res = await fetch(`${API_BASE_URL}/kds/stream${qs}`, { headers, signal });
+  if (!res.ok || !res.body) throw new Error(`KDS stream HTTP ${res.status}`);
+
+  const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+  let buf = "";
+  let event = "message";
+  let data = "";
+
+  const dispatch = () => {
+    if (data) {
+      const payload = JSON.parse(data);
+      if (event === "snapshot") handlers.onSnapshot(payload);
+      else if (event === "delta") handlers.onDelta(payload);
+    }
+    event = "message";
+    data = "";
+  };
+
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) return;
+    buf += value;
+
+    let nl: number;
+    while ((nl = buf.indexOf("\n")) >= 0) {
+      const line = buf.slice(0, nl).replace(/\r$/, "");
+      buf = buf.slice(nl + 1);
+
+      if (line === "") dispatch();
+      else if (line.startsWith(":")) continue; // heartbeat
+      else if (line.startsWith("event:")) event = line.slice(6).trim();
+      else if (line.startsWith("data:")) data += (data ? "\n" : "") + line.slice(5).replace(/^ /, "");
+    }
+  }
 };
 
 // compatible axios-like { data } or custom wrapper returns data directly
@@ -30,6 +99,15 @@ export const kdsService = {
     return unwrap<KdsBoardsResponse>(res);
   },
 
+  // cùng filter với boards, BE trả sẵn ticket theo order + thứ tự ưu tiên
+  tickets: async (params?: KdsBoardsParams) => {
+    const res = await http.get<KdsTicketsResponse>(buildBoardsUrl(params, "/kds/tickets"));
+    return unwrap<KdsTicketsResponse>(res);
+  },
+
+  // snapshot rồi delta (upserts/removedItemIds), seq tăng dần
+  stream: openStream,
+
   patchItemStatus: async (itemId: string, body: PatchKdsItemStatusRequest) => {
     const res = await http.patch<PatchKdsItemStatusResponse>(
       `/kds/items/${itemId}/status`,
@@ -38,6 +116,12 @@ export const kdsService = {
     return unwrap<PatchKdsItemStatusResponse>(res);
   },
 
+  // bump cả ticket (1 request thay vì PATCH từng item)
+  bulkItemStatus: async (body: BulkKdsItemStatusRequest) => {
+    const res = await http.post<BulkKdsItemStatusResponse>(`/kds/items/status`, body);
+    return unwrap<BulkKdsItemStatusResponse>(res);
+  },
+
   /**
    * READY -> SERVED
    * Dựa theo endpoint Order (nếu BE có):
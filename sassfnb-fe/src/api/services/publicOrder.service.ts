@@ -8,10 +8,37 @@ import type {
   PublicOrderSubmitResponse,
 } from "../../types/publicOrder";
 
+// Idempotency-Key: tạo 1 lần cho mỗi thao tác của khách (bấm nút),
+// mọi lần gửi lại của cùng thao tác đó phải dùng đúng key cũ => BE replay, không tạo trùng
+export const newIdempotencyKey = () => crypto.randomUUID();
+
+const idem = (key: string) => ({
+  headers: { "Idempotency-Key": key },
+});
+
+// Mạng chập chờn: lỗi không có response (timeout/mất mạng) hoặc 5xx => gửi lại với CÙNG key
+const RETRY_DELAYS_MS = [300, 1000];
+
+const isTransient = (e: any) =>
+  !e?.response || (e.response.status >= 500 && e.response.status !== 501);
+
+async function withRetry<T>(send: () => Promise<T>): Promise<T> {
+  for (let attempt = 0; ; attempt++) {
+    try {
+      return await send();
+    } catch (e) {
+      if (attempt >= RETRY_DELAYS_MS.length || !isTransient(e)) throw e;
+      await new Promise((r) => setTimeout(r, RETRY_DELAYS_MS[attempt]));
+    }
+  }
+}
+
 export const publicOrderService = {
   // POST /api/v1/public/orders
-  create: async (payload: PublicCreateOrderRequest) => {
-    const res = await publicHttp.post<PublicOrder>("/public/orders", payload);
+  create: async (payload: PublicCreateOrderRequest, idempotencyKey: string) => {
+    const res = await withRetry(() =>
+      publicHttp.post<PublicOrder>("/public/orders", payload, idem(idempotencyKey))
+    );
     return res.data;
   },
 
@@ -21,11 +48,22 @@ export const publicOrderService = {
     return res.data;
   },
 
+  // SSE /api/v1/public/orders/{orderId}/stream (dùng với EventSource)
+  streamUrl: (orderId: string) =>
+    `${publicHttp.defaults.baseURL}/public/orders/${orderId}/stream`,
+
   // POST /api/v1/public/orders/{orderId}/items
-  addItems: async (orderId: string, items: PublicAddItemRequest[]) => {
-    const res = await publicHttp.post<PublicOrder>(
-      `/public/orders/${orderId}/items`,
-      items
+  addItems: async (
+    orderId: string,
+    items: PublicAddItemRequest[],
+    idempotencyKey: string
+  ) => {
+    const res = await withRetry(() =>
+      publicHttp.post<PublicOrder>(
+        `/public/orders/${orderId}/items`,
+        items,
+        idem(idempotencyKey)
+      )
     );
     return res.data;
   },
@@ -34,19 +72,26 @@ export const publicOrderService = {
   patchItem: async (
     orderId: string,
     itemId: string,
-    payload: PublicPatchItemRequest
+    payload: PublicPatchItemRequest,
+    idempotencyKey: string
   ) => {
-    const res = await publicHttp.patch<PublicOrder>(
-      `/public/orders/${orderId}/items/${itemId}`,
-      payload
+    const res = await withRetry(() =>
+      publicHttp.patch<PublicOrder>(
+        `/public/orders/${orderId}/items/${itemId}`,
+        payload,
+        idem(idempotencyKey)
+      )
     );
     return res.data;
   },
 
   // DELETE /api/v1/public/orders/{orderId}/items/{itemId}
-  deleteItem: async (orderId: string, itemId: string) => {
-    const res = await publicHttp.delete<PublicOrder>(
-      `/public/orders/${orderId}/items/${itemId}`
+  deleteItem: async (orderId: string, itemId: string, idempotencyKey: string) => {
+    const res = await withRetry(() =>
+      publicHttp.delete<PublicOrder>(
+        `/public/orders/${orderId}/items/${itemId}`,
+        idem(idempotencyKey)
+      )
     );
     return res.data;
   },
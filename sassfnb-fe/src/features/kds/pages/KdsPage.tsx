@@ -11,7 +11,13 @@ import {
 } from "lucide-react";
 import { kdsService } from "../../../api/services/kds.service";
 import { useAppContextStore } from "../../../store/useAppContextStore";
-import type { KdsBoardItem, KdsItemStatus } from "../../../types/kds";
+import type {
+  KdsBoardItem,
+  KdsDeltaEvent,
+  KdsItemStatus,
+  KdsSnapshotEvent,
+  KdsTicket,
+} from "../../../types/kds";
 
 const PRIMARY_COLUMNS: KdsItemStatus[] = ["FIRED", "IN_PROGRESS", "READY"];
 const SECONDARY_COLUMNS: KdsItemStatus[] = ["NEW", "SERVED", "VOIDED"];
@@ -40,11 +46,22 @@ const badgeClass = (st: KdsItemStatus) => {
   }
 };
 
+// làm tròn xuống đầu giờ => các màn hình cùng outlet gửi cùng since, BE gộp chung 1 lần tính
 const makeSinceIso = (hours: number) => {
-  const d = new Date(Date.now() - hours * 60 * 60 * 1000);
+  const hourMs = 60 * 60 * 1000;
+  const d = new Date(Math.floor((Date.now() - hours * hourMs) / hourMs) * hourMs);
   return d.toISOString();
 };
 
+const KDS_STATION_KEY = "kds_station";
+const KDS_VIEW_KEY = "kds_view";
+
+const fmtWait = (iso?: string | null) => {
+  if (!iso) return "";
+  const mins = Math.max(0, Math.floor((Date.now() - new Date(iso).getTime()) / 60000));
+  return `${mins} phút`;
+};
+
 // 🔔 Event names (cùng browser)
 const EVT_KDS_CHANGED = "kds-changed";
 
@@ -63,12 +80,27 @@ export default function KdsPage() {
   ]);
 
   const [sinceIso, setSinceIso] = useState<string>(() => makeSinceIso(6));
+
+  // ✅ trạm bếp của màn hình này (nhớ theo máy), rỗng = cả bếp
+  const [station, setStation] = useState<string>(
+    () => localStorage.getItem(KDS_STATION_KEY) ?? ""
+  );
+  const stationParam = station.trim().toUpperCase() || undefined;
   const [items, setItems] = useState<KdsBoardItem[]>([]);
+
+  // ✅ xem theo ticket (BE gom theo order + sắp ưu tiên), nhớ theo máy
+  const [ticketView, setTicketView] = useState<boolean>(
+    () => localStorage.getItem(KDS_VIEW_KEY) === "tickets"
+  );
+  const [tickets, setTickets] = useState<KdsTicket[]>([]);
   const [showMore, setShowMore] = useState(false);
 
   // tránh overlapping fetch
   const inFlightRef = useRef(false);
 
+  // ✅ SSE /kds/stream đang nối => không cần poll
+  const [live, setLive] = useState(false);
+
   // ✅ status gửi lên API = status user bật
   // ✅ NHƯNG: nếu showMore bật thì include SERVED/VOIDED để cột đó có data
   const queryStatuses: KdsItemStatus[] = useMemo(() => {
@@ -83,6 +115,9 @@ export default function KdsPage() {
     return Array.from(base);
   }, [statuses, showMore]);
 
+  // stream chỉ chứa FIRED/IN_PROGRESS/READY => filter nằm trong đó thì merge delta tại chỗ
+  const pushOnly = queryStatuses.every((s) => PRIMARY_COLUMNS.includes(s));
+
   const fetchBoards = async (opts?: { silent?: boolean }) => {
     if (!outletId) {
       setItems([]);
@@ -100,11 +135,20 @@ export default function KdsPage() {
     setError(null);
 
     try {
-      const data = await kdsService.boards({
+      const params = {
         since: sinceIso || undefined,
+        station: stationParam,
         status: queryStatuses.length ? queryStatuses : undefined,
-      });
-      setItems(data.items ?? []);
+      };
+      if (ticketView) {
+        const data = await kdsService.tickets(params);
+        const list = data.tickets ?? [];
+        setTickets(list);
+        setItems(list.flatMap((t) => t.items));
+      } else {
+        const data = await kdsService.boards(params);
+        setItems(data.items ?? []);
+      }
     } catch (e: any) {
       console.error(e);
       setError(e?.response?.data?.message ?? "Không tải được KDS boards");
@@ -114,16 +158,84 @@ export default function KdsPage() {
     }
   };
 
-  // Load khi đổi outlet
+  // Load khi đổi outlet / filter
   useEffect(() => {
     fetchBoards();
     // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [outletId]);
+  }, [outletId, stationParam, sinceIso, queryStatuses.join("|"), ticketView]);
+
+  // handler SSE đọc filter/fetch mới nhất qua ref (stream không reconnect khi đổi filter)
+  // ticket view: thứ tự ưu tiên do BE tính => mỗi delta chỉ tải lại /tickets (BE đã memo)
+  const mergeDeltas = pushOnly && !ticketView;
+  const streamCtxRef = useRef({ pushOnly: mergeDeltas, queryStatuses, sinceIso, fetchBoards });
+  streamCtxRef.current = { pushOnly: mergeDeltas, queryStatuses, sinceIso, fetchBoards };
 
-  // ✅ Auto refresh (polling) + dừng khi tab ẩn
+  // ✅ SSE: snapshot 1 lần, sau đó chỉ delta; rớt mạng => reconnect kèm lastSeq (server replay delta bị lỡ)
   useEffect(() => {
     if (!outletId) return;
 
+    const ctrl = new AbortController();
+    let lastSeq: number | null = null;
+    let retry = 0;
+
+    const inView = (it: KdsBoardItem) => {
+      const { queryStatuses: qs, sinceIso: since } = streamCtxRef.current;
+      if (!qs.includes(it.itemStatus)) return false;
+      return !since || new Date(it.itemCreatedAt).getTime() >= new Date(since).getTime();
+    };
+
+    const onSnapshot = (e: KdsSnapshotEvent) => {
+      lastSeq = e.seq;
+      retry = 0;
+      setLive(true);
+      if (streamCtxRef.current.pushOnly) setItems((e.board.items ?? []).filter(inView));
+      else streamCtxRef.current.fetchBoards({ silent: true });
+    };
+
+    const onDelta = (e: KdsDeltaEvent) => {
+      if (lastSeq != null && e.seq <= lastSeq) return; // delta cũ/trùng
+      lastSeq = e.seq;
+      retry = 0;
+      setLive(true);
+
+      if (!streamCtxRef.current.pushOnly) {
+        streamCtxRef.current.fetchBoards({ silent: true });
+        return;
+      }
+
+      const drop = new Set([...e.removedItemIds, ...e.upserts.map((u) => u.itemId)]);
+      setItems((cur) => cur.filter((it) => !drop.has(it.itemId)).concat(e.upserts.filter(inView)));
+    };
+
+    (async () => {
+      while (!ctrl.signal.aborted) {
+        try {
+          await kdsService.stream({ onSnapshot, onDelta }, ctrl.signal, lastSeq, stationParam);
+        } catch (err) {
+          if (ctrl.signal.aborted) return;
+          console.warn("KDS stream disconnected", err);
+        }
+        setLive(false);
+        // backoff 1s, 2s, 4s ... tối đa 30s (trong lúc đó polling bên dưới chạy lại)
+        const wait = Math.min(30000, 1000 * 2 ** retry++);
+        await new Promise((r) => setTimeout(r, wait));
+      }
+    })();
+
+    return () => {
+      ctrl.abort();
+      setLive(false);
+    };
+  }, [outletId, stationParam]);
+
+  // ✅ Fallback polling khi stream chưa nối + dừng khi tab ẩn
+  // (NEW không đi qua stream => filter có NEW thì vẫn poll chậm)
+  useEffect(() => {
+    if (!outletId) return;
+
+    const interval = !live ? 3000 : queryStatuses.includes("NEW") ? 15000 : 0;
+    if (!interval) return;
+
     let t: any;
 
     const tick = async () => {
@@ -132,10 +244,10 @@ export default function KdsPage() {
       await fetchBoards({ silent: true });
     };
 
-    t = setInterval(tick, 3000); // 3s (bạn có thể đổi 2000/5000)
+    t = setInterval(tick, interval);
     return () => clearInterval(t);
     // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [outletId, sinceIso, queryStatuses.join("|")]);
+  }, [outletId, live, stationParam, sinceIso, queryStatuses.join("|"), ticketView]);
 
   // ✅ Khi có event "kds-changed" (do KDS patch/served), tự refresh (silent)
   useEffect(() => {
@@ -143,7 +255,7 @@ export default function KdsPage() {
     window.addEventListener(EVT_KDS_CHANGED, onChanged);
     return () => window.removeEventListener(EVT_KDS_CHANGED, onChanged);
     // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [outletId, sinceIso, queryStatuses.join("|")]);
+  }, [outletId, stationParam, sinceIso, queryStatuses.join("|"), ticketView]);
 
   // sort by time asc (món cũ lên trước)
   const sortedItems = useMemo(() => {
@@ -177,8 +289,25 @@ export default function KdsPage() {
     try {
       await kdsService.patchItemStatus(item.itemId, { status: target });
 
-      // refresh KDS + báo cho order page (cùng browser) refresh
-      await fetchBoards({ silent: true });
+      // refresh KDS (stream live => delta tự tới) + báo cho order page (cùng browser) refresh
+      if (!(live && mergeDeltas)) await fetchBoards({ silent: true });
+      fireChanged();
+    } catch (e: any) {
+      console.error(e);
+      setError(e?.response?.data?.message ?? "Cập nhật trạng thái thất bại");
+    } finally {
+      setLoading(false);
+    }
+  };
+
+  // ✅ Ready cả ticket (mọi món FIRED/IN_PROGRESS của order) trong 1 request
+  const bumpOrder = async (item: KdsBoardItem) => {
+    setLoading(true);
+    setError(null);
+    try {
+      await kdsService.bulkItemStatus({ orderId: item.orderId, status: "READY" });
+
+      if (!(live && mergeDeltas)) await fetchBoards({ silent: true });
       fireChanged();
     } catch (e: any) {
       console.error(e);
@@ -196,7 +325,7 @@ export default function KdsPage() {
 
       // ✅ nếu muốn thấy món vừa served xuất hiện ngay trong cột SERVED
       // thì showMore phải bật (hoặc user bật SERVED filter). Ở đây ta refresh luôn.
-      await fetchBoards({ silent: true });
+      if (!(live && mergeDeltas)) await fetchBoards({ silent: true });
       fireChanged();
     } catch (e: any) {
       console.error(e);
@@ -252,6 +381,20 @@ export default function KdsPage() {
           </button>
         )}
 
+        {(st === "FIRED" || st === "IN_PROGRESS") && (
+          <button
+            disabled={loading}
+            onClick={() => bumpOrder(it)}
+            className="h-9 px-3 rounded-xl border border-green-200 bg-green-50 hover:bg-green-100 text-green-700 text-sm font-semibold disabled:opacity-60"
+            title="Mọi món FIRED/IN_PROGRESS của order -> READY"
+          >
+            <span className="inline-flex items-center gap-2">
+              <CheckCircle2 size={16} />
+              Ready cả order
+            </span>
+          </button>
+        )}
+
         {st === "READY" && (
           <button
             disabled={loading}
@@ -338,6 +481,73 @@ export default function KdsPage() {
     </div>
   );
 
+  const renderTicket = (t: KdsTicket) => (
+    <div
+      key={t.orderId}
+      className={[
+        "rounded-2xl border bg-white shadow-sm p-4 space-y-3",
+        t.flags.includes("ALLERGY") ? "border-red-300" : "border-slate-100",
+      ].join(" ")}
+    >
+      <div className="flex items-start justify-between gap-3">
+        <div className="min-w-0">
+          <div className="text-base font-bold text-slate-900 truncate">
+            {t.tableName?.trim() ? t.tableName : t.tableId ?? "Mang đi"}
+            {t.people ? (
+              <span className="ml-2 text-xs font-semibold text-slate-500">{t.people} khách</span>
+            ) : null}
+          </div>
+          <div className="text-xs text-slate-500">
+            <Clock size={14} className="inline -mt-0.5 mr-1" />
+            chờ {fmtWait(t.firstItemAt)}
+          </div>
+        </div>
+        <div className="flex flex-wrap gap-1 justify-end">
+          {t.flags.includes("ALLERGY") && (
+            <span className="h-6 px-2 rounded-lg border text-[11px] font-bold flex items-center bg-red-100 text-red-700 border-red-200">
+              Dị ứng
+            </span>
+          )}
+          {t.flags.includes("PARTIAL_READY") && (
+            <span className="h-6 px-2 rounded-lg border text-[11px] font-bold flex items-center bg-amber-100 text-amber-700 border-amber-200">
+              Đã ra 1 phần
+            </span>
+          )}
+        </div>
+      </div>
+
+      {t.orderNote && (
+        <div className="text-sm text-slate-700 line-clamp-2">
+          <span className="font-semibold">Note order:</span> {t.orderNote}
+        </div>
+      )}
+
+      <div className="space-y-2">
+        {t.items.map((it) => (
+          <div key={it.itemId} className="flex items-start justify-between gap-3 border-t border-slate-100 pt-2">
+            <div className="min-w-0">
+              <div className="flex items-center gap-2">
+                <div
+                  className={[
+                    "h-6 px-2 rounded-lg border text-[11px] font-bold flex items-center",
+                    badgeClass(it.itemStatus),
+                  ].join(" ")}
+                >
+                  {it.itemStatus}
+                </div>
+                <div className="text-sm font-semibold text-slate-900 truncate">
+                  {it.quantity} × {it.menuItemName?.trim() ? it.menuItemName : it.menuItemId}
+                </div>
+              </div>
+              {it.note && <div className="text-xs text-slate-600 line-clamp-2">{it.note}</div>}
+            </div>
+            <div className="shrink-0">{renderActions(it)}</div>
+          </div>
+        ))}
+      </div>
+    </div>
+  );
+
   const renderColumn = (col: KdsItemStatus) => {
     const list = grouped[col] ?? [];
     return (
@@ -412,6 +622,19 @@ export default function KdsPage() {
             <div className="h-10 px-3 rounded-xl border border-slate-200 flex items-center text-sm text-slate-700 bg-slate-50">
               {outletId ?? "Chưa chọn outlet"}
             </div>
+
+            <div className="text-xs font-semibold text-slate-500 mb-1 mt-3">
+              Trạm bếp (trống = cả bếp)
+            </div>
+            <input
+              value={station}
+              onChange={(e) => {
+                setStation(e.target.value);
+                localStorage.setItem(KDS_STATION_KEY, e.target.value.trim());
+              }}
+              className="w-full h-10 px-3 rounded-xl border border-slate-200 text-sm outline-none focus:ring-2 focus:ring-blue-200"
+              placeholder="GRILL / BAR / COLD"
+            />
           </div>
 
           <div>
@@ -463,6 +686,23 @@ export default function KdsPage() {
                 );
               })}
 
+              <button
+                type="button"
+                onClick={() => {
+                  const next = !ticketView;
+                  setTicketView(next);
+                  localStorage.setItem(KDS_VIEW_KEY, next ? "tickets" : "items");
+                }}
+                className={[
+                  "h-9 px-3 rounded-xl border text-sm font-semibold transition",
+                  ticketView
+                    ? "bg-slate-900 text-white border-slate-900"
+                    : "bg-white text-slate-700 border-slate-200 hover:bg-slate-50",
+                ].join(" ")}
+              >
+                Theo ticket
+              </button>
+
               <button
                 type="button"
                 onClick={() => setShowMore((v) => !v)}
@@ -511,6 +751,10 @@ export default function KdsPage() {
         <div className="bg-white rounded-2xl border border-slate-100 shadow-sm p-10 text-center text-slate-500">
           Không có món nào phù hợp filter hiện tại.
         </div>
+      ) : ticketView ? (
+        <div className="grid grid-cols-1 md:grid-cols-2 xl:grid-cols-3 gap-4">
+          {tickets.map(renderTicket)}
+        </div>
       ) : (
         <>
           <div className="grid grid-cols-1 lg:grid-cols-3 gap-4">
@@ -33,7 +33,10 @@ import {
   ListFilter,
 } from "lucide-react";
 
-import { publicOrderService } from "../../../api/services/publicOrder.service";
+import {
+  newIdempotencyKey,
+  publicOrderService,
+} from "../../../api/services/publicOrder.service";
 import { publicMenuService } from "../../../api/services/publicMenu.service";
 import { publicQrService } from "../../../api/services/publicQr.service";
 import { publicSession } from "../publicSession";
@@ -147,13 +150,16 @@ export default function PublicOrderPage() {
     loadOrder();
   }, [orderId]);
 
+  // SSE thay cho poll 3s: BE đẩy item-status / payment, FE chỉ refetch khi có thay đổi
+  // "revision" đến mỗi lần (re)connect => resync (GET có ETag nên thường chỉ 304)
   useEffect(() => {
     if (!orderId) return;
-    const t = setInterval(() => {
-      if (document.hidden) return;
-      loadOrder({ silent: true });
-    }, 3000);
-    return () => clearInterval(t);
+    const es = new EventSource(publicOrderService.streamUrl(orderId));
+    const onChanged = () => loadOrder({ silent: true });
+    es.addEventListener("revision", onChanged);
+    es.addEventListener("item-status", onChanged);
+    es.addEventListener("payment", onChanged);
+    return () => es.close();
   }, [orderId]);
 
   useEffect(() => {
@@ -252,6 +258,18 @@ export default function PublicOrderPage() {
     return null;
   };
 
+  // Idempotency-Key theo thao tác: bấm lại sau lỗi với CÙNG nội dung => dùng lại key cũ,
+  // thành công thì bỏ key để lần thêm món tiếp theo là thao tác mới
+  const pendingKeys = useRef(new Map<string, string>());
+  const actionKey = (action: string) => {
+    let key = pendingKeys.current.get(action);
+    if (!key) {
+      key = newIdempotencyKey();
+      pendingKeys.current.set(action, key);
+    }
+    return key;
+  };
+
   const addToCart = async (item: PublicItemNode) => {
     if (!order) return;
     setErr(null);
@@ -276,7 +294,13 @@ export default function PublicOrderPage() {
 
     try {
       setSubmitting(true);
-      const next = await publicOrderService.addItems(order.id, [payload]);
+      const action = `add:${order.id}:${JSON.stringify(payload)}`;
+      const next = await publicOrderService.addItems(
+        order.id,
+        [payload],
+        actionKey(action)
+      );
+      pendingKeys.current.delete(action);
       setOrder(next);
       setSelections((prev) => ({ ...prev, [item.id]: {} }));
       setQty((prev) => ({ ...prev, [item.id]: 1 }));
@@ -310,9 +334,15 @@ export default function PublicOrderPage() {
     if (!order) return;
     try {
       setSubmitting(true);
-      const next = await publicOrderService.patchItem(order.id, itemId, {
-        quantity: Math.max(1, nextQty),
-      });
+      const quantity = Math.max(1, nextQty);
+      const action = `patch:${order.id}:${itemId}:${quantity}`;
+      const next = await publicOrderService.patchItem(
+        order.id,
+        itemId,
+        { quantity },
+        actionKey(action)
+      );
+      pendingKeys.current.delete(action);
       setOrder(next);
     } catch (e: any) {
       setErr("Lỗi cập nhật số lượng.");
@@ -325,7 +355,13 @@ export default function PublicOrderPage() {
     if (!order) return;
     try {
       setSubmitting(true);
-      const next = await publicOrderService.deleteItem(order.id, itemId);
+      const action = `delete:${order.id}:${itemId}`;
+      const next = await publicOrderService.deleteItem(
+        order.id,
+        itemId,
+        actionKey(action)
+      );
+      pendingKeys.current.delete(action);
       setOrder(next);
     } catch (e: any) {
       setErr("Xóa món thất bại.");
@@ -1,8 +1,11 @@
 // src/features/publicOrder/pages/PublicQrEntryPage.tsx
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { useNavigate, useSearchParams } from "react-router-dom";
 import { publicQrService } from "../../../api/services/publicQr.service";
-import { publicOrderService } from "../../../api/services/publicOrder.service";
+import {
+  newIdempotencyKey,
+  publicOrderService,
+} from "../../../api/services/publicOrder.service";
 import { publicSession } from "../publicSession";
 
 export default function PublicQrEntryPage() {
@@ -11,6 +14,8 @@ export default function PublicQrEntryPage() {
 
   const token = sp.get("token") || "";
   const [err, setErr] = useState<string | null>(null);
+  // 1 lần mở bàn = 1 key (effect chạy lại / retry mạng vẫn ra đúng order cũ)
+  const createKey = useRef(newIdempotencyKey());
 
   useEffect(() => {
     if (!token) {
@@ -30,7 +35,7 @@ export default function PublicQrEntryPage() {
           qrSessionId: ctx.qrSessionId,
           note: null,
           people: null,
-        });
+        }, createKey.current);
 
         nav(`/order/${order.id}`, { replace: true });
       } catch (e: any) {
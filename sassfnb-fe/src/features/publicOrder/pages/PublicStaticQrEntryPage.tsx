@@ -1,8 +1,11 @@
 // src/features/publicOrder/pages/PublicStaticQrEntryPage.tsx
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { useNavigate, useParams } from "react-router-dom";
 import { publicQrService } from "../../../api/services/publicQr.service";
-import { publicOrderService } from "../../../api/services/publicOrder.service";
+import {
+  newIdempotencyKey,
+  publicOrderService,
+} from "../../../api/services/publicOrder.service";
 import { publicSession } from "../publicSession";
 
 export default function PublicStaticQrEntryPage() {
@@ -10,6 +13,8 @@ export default function PublicStaticQrEntryPage() {
   const { code = "" } = useParams();
 
   const [err, setErr] = useState<string | null>(null);
+  // 1 lần mở bàn = 1 key (effect chạy lại / retry mạng vẫn ra đúng order cũ)
+  const createKey = useRef(newIdempotencyKey());
 
   useEffect(() => {
     if (!code) {
@@ -30,7 +35,7 @@ export default function PublicStaticQrEntryPage() {
           qrSessionId: ctx.qrSessionId,
           note: null,
           people: null,
-        });
+        }, createKey.current);
 
         nav(`/order/${order.id}`, { replace: true });
       } catch (e: any) {
@@ -30,18 +30,63 @@ export type KdsBoardItem = {
   people?: number | null;
   orderNote?: string | null;
   openedAt?: string | null;
+  station?: string | null; // trạm bếp (MAIN nếu chưa gán)
 };
 
 export type KdsBoardsResponse = {
   outletId: string;
   since?: string | null;
   statuses?: string[] | null;
+  station?: string | null;
   items: KdsBoardItem[];
 };
 
+// ===== GET /kds/tickets =====
+// món gom theo order, sắp sẵn theo priorityAt (BE tính: tuổi món - boost)
+export type KdsTicketFlag = "ALLERGY" | "PARTIAL_READY";
+
+export type KdsTicket = {
+  orderId: string;
+  orderStatus?: string | null;
+  tableId?: string | null;
+  tableName?: string | null;
+  people?: number | null;
+  orderNote?: string | null;
+  openedAt?: string | null;
+  firstItemAt: string;
+  lastItemAt: string;
+  priorityAt: string;
+  boostSeconds: number;
+  flags: KdsTicketFlag[];
+  items: KdsBoardItem[];
+};
+
+export type KdsTicketsResponse = {
+  outletId: string;
+  since?: string | null;
+  statuses?: string[] | null;
+  station?: string | null;
+  tickets: KdsTicket[];
+};
+
+// ===== SSE /kds/stream =====
+export type KdsSnapshotEvent = {
+  seq: number;
+  board: KdsBoardsResponse;
+};
+
+export type KdsDeltaEvent = {
+  seq: number;
+  outletId: string;
+  upserts: KdsBoardItem[];
+  removedItemIds: string[];
+  at: string;
+};
+
 export type KdsBoardsParams = {
   since?: string;     // ISO string
   status?: string[];  // repeat params: status=FIRED&status=IN_PROGRESS
+  station?: string;   // chỉ món của trạm (GRILL/BAR/...)
 };
 
 export type PatchKdsItemStatusRequest = {
@@ -54,3 +99,25 @@ export type PatchKdsItemStatusResponse = {
   newStatus: string;
   updatedAt: string;
 };
+
+// bump cả ticket: orderId và/hoặc itemIds
+export type BulkKdsItemStatusRequest = {
+  orderId?: string;
+  itemIds?: string[];
+  status: "IN_PROGRESS" | "READY" | "SERVED";
+};
+
+export type BulkKdsItemOutcome = {
+  itemId: string;
+  orderId: string | null;
+  oldStatus: string | null;
+  newStatus: string | null;
+  result: "UPDATED" | "UNCHANGED" | "INVALID_TRANSITION" | "NOT_FOUND";
+};
+
+export type BulkKdsItemStatusResponse = {
+  status: string;
+  updatedCount: number;
+  items: BulkKdsItemOutcome[];
+  updatedAt: string;
+};
@@ -69,6 +69,7 @@ export type ItemCreateRequest = {
   status?: Status | null;
   basePrice: number; // ✅ bắt buộc
   tags?: string[] | null;
+  kitchenStation?: string | null; // GRILL/BAR/COLD..., bỏ trống => MAIN
 };
 
 export type ItemUpdateRequest = {
@@ -78,6 +79,7 @@ export type ItemUpdateRequest = {
   imageUrl?: string | null;
   status?: Status | null;
   tags?: string[] | null;
+  kitchenStation?: string | null; // "" => về MAIN
 };
 
 export type ItemPublishPatchRequest = {
@@ -93,6 +95,7 @@ export type ItemResponse = {
   imageUrl?: string | null;
   status: Status;
   tags?: string[];
+  kitchenStation?: string;
   createdAt?: string;
   updatedAt?: string;
 };
@@ -34,6 +34,7 @@ export type OrderResponse = {
   items: OrderItemResponse[];
   createdAt?: string;
   updatedAt?: string;
+  revision?: number | null;
 };
 
 export type PageResponse<T> = {
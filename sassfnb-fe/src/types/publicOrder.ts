@@ -73,6 +73,19 @@ export type PublicOrder = {
 
   grandTotal: string; // BigDecimal -> string
   items: PublicOrderItem[];
+
+  revision?: number | null;
+};
+
+// ?view=delta: chỉ item vừa đổi + totals mới
+export type PublicOrderDelta = {
+  id: string;
+  status: string;
+  revision: number | null;
+  grandTotal: string;
+  changedItems: PublicOrderItem[];
+  removedItemIds: string[];
+  updatedAt: string;
 };
 
 export type PublicOrderSubmitResponse = {
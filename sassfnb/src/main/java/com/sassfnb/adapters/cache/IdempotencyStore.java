@@ -0,0 +1,107 @@
+package com.sassfnb.adapters.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sassfnb.application.config.CacheProperties;
+import com.sassfnb.application.exception.ConflictException;
+import com.sassfnb.common.cache.BoundedEviction;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key store (in-process, bounded, TTL).
+ * - Request đầu tiên chạy action, kết quả được giữ tới hết TTL => retry trả lại đúng response cũ.
+ * - Request trùng key đang chạy song song sẽ chờ kết quả của request đầu (không chạy lại).
+ * - Action lỗi => xoá key, client retry được.
+ * - Fingerprint = SHA-256 của body đã serialize (JSON) => cùng key khác body bị 409.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final long WAIT_IN_FLIGHT_MS = 30_000L;
+
+    private record Entry(byte[] fingerprint, CompletableFuture<Object> result, long expiresAt) {
+    }
+
+    private final long ttlMs;
+    private final int maxEntries;
+    // key của Map sắp xếp cố định => cùng nội dung luôn ra cùng digest
+    private final ObjectWriter fingerprintWriter;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(CacheProperties props, ObjectMapper objectMapper) {
+        this.ttlMs = props.getIdempotencyTtlMs();
+        this.maxEntries = props.getIdempotencyMaxEntries();
+        this.fingerprintWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Object request, Supplier<T> action) {
+        byte[] fingerprint = fingerprint(request);
+        long now = System.currentTimeMillis();
+
+        Entry fresh = new Entry(fingerprint, new CompletableFuture<>(), now + ttlMs);
+        Entry current = entries.compute(key, (k, e) -> (e == null || e.expiresAt() < now) ? fresh : e);
+
+        if (current != fresh) {
+            if (!MessageDigest.isEqual(current.fingerprint(), fingerprint)) {
+                throw new ConflictException("Idempotency-Key was already used for a different request");
+            }
+            return (T) await(current.result());
+        }
+
+        // bounded: entry đang chạy không bị bỏ
+        BoundedEviction.evictIfFull(entries, maxEntries, e -> e.expiresAt() < now, e -> e.result().isDone());
+
+        try {
+            T res = action.get();
+            fresh.result().complete(res);
+            return res;
+        } catch (RuntimeException e) {
+            entries.remove(key, fresh);
+            fresh.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(fingerprintWriter.writeValueAsBytes(request));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize idempotent request", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> f) {
+        try {
+            return f.get(WAIT_IN_FLIGHT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("Request with the same Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for idempotent request");
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
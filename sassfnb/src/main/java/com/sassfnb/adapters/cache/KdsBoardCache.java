@@ -0,0 +1,266 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsBoardItemResponse;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsTicketResponse;
+import com.sassfnb.application.config.CacheProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsItemStatus.*;
+
+/**
+ * Board bếp in-memory theo (tenant, outlet): mỗi status FIRED/IN_PROGRESS/READY là 1 hàng đợi
+ * sắp theo createdAt, chia sẵn theo trạm bếp => getBoards (cả bếp hoặc 1 trạm) không cần query DB.
+ * - Seed lười ở lần đọc đầu tiên của outlet (từ DB), resync định kỳ để tự lành nếu lỡ event
+ * (vd item đổi trên node khác). Seed/resync dựng board mới bên ngoài rồi swap vào map =>
+ * reader không lock không bao giờ thấy board rỗng/dựng dở.
+ * - Cập nhật bằng các dòng item mới nhất sau commit (KdsStreamHub); SERVED/VOIDED bị gỡ ngay.
+ * - Bounded: outlet quá maxItems => không cache (đọc DB), outlet không ai đọc => bị dọn.
+ * - Ticket (gom theo order + ưu tiên) memo theo version của board: mỗi lần board đổi chỉ dựng lại 1 lần
+ * cho mỗi (trạm, bộ status), mọi màn hình poll dùng chung kết quả.
+ */
+@Component
+public class KdsBoardCache {
+
+    public static final Set<String> ON_BOARD = Set.of(FIRED, IN_PROGRESS, READY);
+
+    private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private record OutletKey(UUID tenantId, UUID outletId) {
+    }
+
+    /** key hàng đợi: createdAt rồi itemId (tránh trùng khi cùng createdAt) */
+    private record QueueKey(Instant createdAt, UUID itemId) implements Comparable<QueueKey> {
+        @Override
+        public int compareTo(QueueKey o) {
+            int c = createdAt.compareTo(o.createdAt);
+            return c != 0 ? c : itemId.compareTo(o.itemId);
+        }
+    }
+
+    /** status -> hàng đợi theo createdAt */
+    private static final class StatusQueues {
+        private final Map<String, ConcurrentSkipListMap<QueueKey, KdsBoardItemResponse>> byStatus = new HashMap<>();
+
+        StatusQueues() {
+            ON_BOARD.forEach(st -> byStatus.put(st, new ConcurrentSkipListMap<>()));
+        }
+
+        ConcurrentSkipListMap<QueueKey, KdsBoardItemResponse> queue(String status) {
+            return byStatus.get(status);
+        }
+    }
+
+    private record TicketKey(String station, Set<String> statuses) {
+    }
+
+    private record TicketMemo(long version, List<KdsTicketResponse> tickets) {
+    }
+
+    private static final class OutletBoard {
+        private final Map<UUID, KdsBoardItemResponse> byId = new HashMap<>();
+        private final Map<TicketKey, TicketMemo> tickets = new ConcurrentHashMap<>();
+        // tăng mỗi lần board đổi (ghi trong synchronized(board))
+        private volatile long version;
+        private final StatusQueues all = new StatusQueues();
+        private final Map<String, StatusQueues> byStation = new ConcurrentHashMap<>();
+        private volatile long seededAt;
+        private volatile long lastReadAt;
+        private volatile boolean seeded;
+
+        void remove(UUID itemId) {
+            KdsBoardItemResponse old = byId.remove(itemId);
+            if (old == null)
+                return;
+            version++;
+            all.queue(old.itemStatus()).remove(key(old));
+            StatusQueues st = byStation.get(old.station());
+            if (st != null)
+                st.queue(old.itemStatus()).remove(key(old));
+        }
+
+        void upsert(KdsBoardItemResponse row) {
+            remove(row.itemId());
+            if (!ON_BOARD.contains(row.itemStatus()))
+                return;
+            version++;
+            byId.put(row.itemId(), row);
+            all.queue(row.itemStatus()).put(key(row), row);
+            byStation.computeIfAbsent(row.station(), k -> new StatusQueues())
+                    .queue(row.itemStatus()).put(key(row), row);
+        }
+
+        /** station null => cả bếp */
+        StatusQueues queues(String station) {
+            return station == null ? all : byStation.get(station);
+        }
+    }
+
+    private final boolean enabled;
+    private final long resyncMs;
+    private final long idleMs;
+    private final int maxItems;
+
+    private final Map<OutletKey, OutletBoard> boards = new ConcurrentHashMap<>();
+
+    public KdsBoardCache(CacheProperties props) {
+        this.enabled = props.isKdsBoardEnabled();
+        this.resyncMs = props.getKdsBoardResyncMs();
+        this.idleMs = props.getKdsBoardIdleMs();
+        this.maxItems = props.getKdsBoardMaxItemsPerOutlet();
+    }
+
+    /**
+     * Items của board theo createdAt tăng dần, hoặc null nếu cache không phục vụ được
+     * (tắt, status ngoài FIRED/IN_PROGRESS/READY, outlet quá lớn) => caller query DB.
+     *
+     * @param station trạm (đã normalize) hoặc null = cả bếp
+     * @param seeder  load toàn bộ item FIRED/IN_PROGRESS/READY của outlet từ DB
+     */
+    public List<KdsBoardItemResponse> get(UUID tenantId, UUID outletId, String station, Instant since,
+            List<String> statuses, Supplier<List<KdsBoardItemResponse>> seeder) {
+        OutletBoard board = ready(tenantId, outletId, statuses, seeder);
+        if (board == null)
+            return null;
+        return read(board, station, since, statuses);
+    }
+
+    /**
+     * Ticket của board (station null = cả bếp), hoặc null nếu cache không phục vụ được => caller tự dựng từ DB.
+     * builder chỉ chạy khi board đã đổi kể từ lần dựng trước cho cùng (trạm, bộ status).
+     */
+    public List<KdsTicketResponse> getTickets(UUID tenantId, UUID outletId, String station, List<String> statuses,
+            Supplier<List<KdsBoardItemResponse>> seeder,
+            Function<List<KdsBoardItemResponse>, List<KdsTicketResponse>> builder) {
+        OutletBoard board = ready(tenantId, outletId, statuses, seeder);
+        if (board == null)
+            return null;
+
+        TicketKey key = new TicketKey(station, Set.copyOf(statuses));
+        long version = board.version;
+        TicketMemo memo = board.tickets.get(key);
+        if (memo != null && memo.version() == version)
+            return memo.tickets();
+
+        List<KdsTicketResponse> built = builder.apply(read(board, station, null, statuses));
+        // apply() chạy song song có thể đã tăng version => memo này tự hết hạn ở lần đọc sau
+        board.tickets.put(key, new TicketMemo(version, built));
+        return built;
+    }
+
+    /** board đã seed (resync nếu quá hạn), null nếu cache không phục vụ được */
+    private OutletBoard ready(UUID tenantId, UUID outletId, List<String> statuses,
+            Supplier<List<KdsBoardItemResponse>> seeder) {
+        if (!enabled || tenantId == null || outletId == null || !ON_BOARD.containsAll(statuses))
+            return null;
+
+        OutletBoard board = seededBoard(new OutletKey(tenantId, outletId), seeder);
+        if (board == null)
+            return null;
+        return board;
+    }
+
+    private static List<KdsBoardItemResponse> read(OutletBoard board, String station, Instant since,
+            List<String> statuses) {
+        StatusQueues queues = board.queues(station);
+        if (queues == null)
+            return List.of(); // trạm chưa có món nào trên board
+
+        QueueKey from = new QueueKey(since != null ? since : Instant.EPOCH, MIN_UUID);
+        List<KdsBoardItemResponse> out = new ArrayList<>();
+        for (String st : statuses) {
+            out.addAll(queues.queue(st).tailMap(from).values());
+        }
+        // mỗi hàng đợi đã sort sẵn => TimSort chỉ merge vài run, gần tuyến tính
+        if (statuses.size() > 1)
+            out.sort(Comparator.comparing(KdsBoardCache::key));
+        return out;
+    }
+
+    /** board đã seed/còn hạn của outlet; null => caller đọc DB */
+    private OutletBoard seededBoard(OutletKey k, Supplier<List<KdsBoardItemResponse>> seeder) {
+        OutletBoard board = boards.computeIfAbsent(k, x -> new OutletBoard());
+        long now = System.currentTimeMillis();
+        board.lastReadAt = now;
+
+        if (board.seeded && now - board.seededAt <= resyncMs)
+            return board;
+
+        // giữ lock board cũ tới khi swap xong => apply() chạy song song chờ rồi áp lên board mới
+        synchronized (board) {
+            OutletBoard current = boards.get(k);
+            if (current != board)
+                return current != null && current.seeded ? current : null; // thread khác vừa swap/evict
+
+            if (board.seeded && now - board.seededAt <= resyncMs)
+                return board;
+
+            List<KdsBoardItemResponse> rows = seeder.get();
+            if (rows.size() > maxItems) {
+                boards.remove(k, board);
+                return null;
+            }
+
+            OutletBoard fresh = new OutletBoard();
+            rows.forEach(fresh::upsert);
+            fresh.lastReadAt = now;
+            fresh.seededAt = System.currentTimeMillis();
+            fresh.seeded = true;
+            // clear chen vào giữa => không cache, caller đọc DB
+            return boards.replace(k, board, fresh) ? fresh : null;
+        }
+    }
+
+    /** Áp các dòng item mới nhất (mọi status) của outlet; outlet chưa seed thì bỏ qua */
+    public void apply(UUID tenantId, UUID outletId, Collection<KdsBoardItemResponse> rows) {
+        if (rows == null || rows.isEmpty())
+            return;
+
+        OutletKey k = new OutletKey(tenantId, outletId);
+        OutletBoard board;
+        while ((board = boards.get(k)) != null) {
+            synchronized (board) {
+                if (boards.get(k) != board)
+                    continue; // vừa resync (swap) => áp lên board mới
+                if (!board.seeded)
+                    return;
+                rows.forEach(board::upsert);
+                if (board.byId.size() > maxItems)
+                    boards.remove(k, board);
+                return;
+            }
+        }
+    }
+
+    /** Mapping trạm của outlet đổi => board phải seed lại */
+    public void evictOutlet(UUID outletId) {
+        boards.keySet().removeIf(k -> k.outletId().equals(outletId));
+    }
+
+    public boolean isEmpty() {
+        return boards.isEmpty();
+    }
+
+    public void clear() {
+        boards.clear();
+    }
+
+    /** Dọn outlet không còn màn hình nào đọc */
+    @Scheduled(fixedDelayString = "${app.cache.kds-board-idle-ms:900000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        boards.entrySet().removeIf(e -> e.getValue().lastReadAt < cutoff);
+    }
+
+    private static QueueKey key(KdsBoardItemResponse row) {
+        Instant createdAt = row.itemCreatedAt() != null ? row.itemCreatedAt() : Instant.EPOCH;
+        return new QueueKey(createdAt, row.itemId());
+    }
+}
@@ -0,0 +1,105 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import com.sassfnb.adapters.persistence.repository.MenuItemRepository;
+import com.sassfnb.adapters.persistence.repository.TableRepository;
+import com.sassfnb.common.cache.GenerationMap;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Từ điển tên cho KDS theo outlet: menuItemId -> tên món, tableId -> tên hiển thị bàn ("A - 01").
+ * Mỗi outlet giữ 1 snapshot bất biến (Map.copyOf), load 1 query/outlet => dựng board chỉ còn đọc
+ * order_items + orders. Menu/Table service gọi invalidate* khi tạo/sửa dòng liên quan; evict kéo
+ * theo KdsBoardCache của outlet vì dòng board đã chứa tên.
+ */
+@Component
+public class KdsNameCache {
+
+    public static final String CACHE_MENU_NAMES = "kds-names:menu";
+    public static final String CACHE_TABLE_NAMES = "kds-names:table";
+
+    private final MenuItemRepository menuItemRepo;
+    private final TableRepository tableRepo;
+    private final KdsBoardCache boardCache;
+    private final CacheInvalidationBus bus;
+
+    // bản load song song với evict không được put đè (GenerationMap)
+    private final GenerationMap<UUID, Map<UUID, String>> menuByOutlet = new GenerationMap<>();
+    private final GenerationMap<UUID, Map<UUID, String>> tableByOutlet = new GenerationMap<>();
+
+    public KdsNameCache(MenuItemRepository menuItemRepo, TableRepository tableRepo, KdsBoardCache boardCache,
+            CacheInvalidationBus bus) {
+        this.menuItemRepo = menuItemRepo;
+        this.tableRepo = tableRepo;
+        this.boardCache = boardCache;
+        this.bus = bus;
+
+        bus.register(CACHE_MENU_NAMES, id -> evictLocal(menuByOutlet, id), this::clear);
+        bus.register(CACHE_TABLE_NAMES, id -> evictLocal(tableByOutlet, id), this::clear);
+    }
+
+    /** menuItemId -> tên món (kể cả món đã ẩn, order cũ vẫn cần tên) */
+    public Map<UUID, String> menuNames(UUID outletId) {
+        if (outletId == null)
+            return Map.of();
+        return menuByOutlet.getOrLoad(outletId, () -> {
+            Map<UUID, String> loaded = new HashMap<>();
+            for (Object[] row : menuItemRepo.findNamesByOutletId(outletId)) {
+                loaded.put((UUID) row[0], row[1] == null ? "" : (String) row[1]);
+            }
+            return Map.copyOf(loaded);
+        });
+    }
+
+    /** tableId -> tên hiển thị (chỉ bàn có tên, kể cả bàn đã xóa mềm) */
+    public Map<UUID, String> tableNames(UUID outletId) {
+        if (outletId == null)
+            return Map.of();
+        return tableByOutlet.getOrLoad(outletId, () -> {
+            Map<UUID, String> loaded = new HashMap<>();
+            for (Object[] row : tableRepo.findCodesByOutletId(outletId)) {
+                String name = tableDisplayName((String) row[1], (String) row[2]);
+                if (name != null)
+                    loaded.put((UUID) row[0], name);
+            }
+            return Map.copyOf(loaded);
+        });
+    }
+
+    /** Gọi trong transaction ghi menu item; evict sau commit (và trên các node khác nếu bật) */
+    public void invalidateMenu(UUID outletId) {
+        bus.invalidate(CACHE_MENU_NAMES, outletId);
+    }
+
+    /** Gọi trong transaction ghi table */
+    public void invalidateTables(UUID outletId) {
+        bus.invalidate(CACHE_TABLE_NAMES, outletId);
+    }
+
+    private void evictLocal(GenerationMap<UUID, Map<UUID, String>> byOutlet, UUID outletId) {
+        byOutlet.evict(outletId);
+        boardCache.evictOutlet(outletId);
+    }
+
+    public void clear() {
+        menuByOutlet.clear();
+        tableByOutlet.clear();
+        boardCache.clear();
+    }
+
+    /** groupCode + code ("A - 01"), chỉ code nếu không có group, null nếu không có code */
+    public static String tableDisplayName(String code, String groupCode) {
+        String c = code == null ? "" : code.trim();
+        String g = groupCode == null ? "" : groupCode.trim();
+
+        if (!g.isBlank() && !c.isBlank())
+            return g + " - " + c;
+        if (!c.isBlank())
+            return c;
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.sassfnb.adapters.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sassfnb.application.config.CacheProperties;
+import com.sassfnb.common.cache.BoundedEviction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Chống dồn tải cho GET /kds/boards, /kds/tickets (nhiều màn hình bếp + expo cùng poll 1 outlet):
+ * - request giống hệt nhau đang chạy song song => chờ chung 1 lần tính (coalesced)
+ * - JSON đã serialize giữ thêm ttl-ms (cached) => số lần chạm DB không tăng theo số màn hình
+ * - item đổi => KdsStreamHub gọi invalidateOutlet SAU khi đã áp vào KdsBoardCache: request thấy generation
+ * mới thì chắc chắn đọc được board mới; generation theo outlet => outlet khác của tenant không bị tính lại
+ * Metric: kds.response.requests{kind, result=computed|coalesced|cached}.
+ */
+@Component
+public class KdsResponseCoalescer {
+
+    private static final long WAIT_IN_FLIGHT_MS = 10_000L;
+
+    public static final String KIND_BOARDS = "boards";
+    public static final String KIND_TICKETS = "tickets";
+
+    /** generation nằm trong key => entry tính trước lần đổi không bao giờ khớp request sau lần đổi */
+    private record Key(String kind, UUID tenantId, UUID outletId, long generation, String station, String since,
+            List<String> statuses) {
+    }
+
+    private record OutletKey(UUID tenantId, UUID outletId) {
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<byte[]> json = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE; // chưa xong => không hết hạn
+    }
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meters;
+    private final long ttlMs;
+    private final int maxEntries;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<OutletKey, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public KdsResponseCoalescer(CacheProperties props, ObjectMapper objectMapper, MeterRegistry meters) {
+        this.objectMapper = objectMapper;
+        this.meters = meters;
+        this.ttlMs = props.getKdsResponseTtlMs();
+        this.maxEntries = props.getKdsResponseMaxEntries();
+    }
+
+    /** JSON của response; compute chỉ chạy khi không có bản đang tính / còn hạn cho cùng key */
+    public byte[] get(String kind, UUID tenantId, UUID outletId, String station, Object since, List<String> statuses,
+            Supplier<Object> compute) {
+        Key key = new Key(kind, tenantId, outletId, generation(tenantId, outletId).get(), station,
+                since == null ? null : since.toString(), statuses == null ? null : List.copyOf(statuses));
+        long now = System.currentTimeMillis();
+
+        Entry fresh = new Entry();
+        Entry current = entries.compute(key, (k, e) -> (e == null || e.expiresAt < now) ? fresh : e);
+
+        if (current != fresh) {
+            count(kind, current.json.isDone() ? "cached" : "coalesced");
+            return await(current.json);
+        }
+
+        count(kind, "computed");
+        BoundedEviction.evictIfFull(entries, maxEntries, e -> e.expiresAt < now, e -> e.json.isDone());
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(compute.get());
+            fresh.expiresAt = System.currentTimeMillis() + ttlMs;
+            fresh.json.complete(json);
+            return json;
+        } catch (JsonProcessingException e) {
+            entries.remove(key, fresh);
+            IllegalStateException ex = new IllegalStateException("Cannot serialize KDS response", e);
+            fresh.json.completeExceptionally(ex);
+            throw ex;
+        } catch (RuntimeException e) {
+            entries.remove(key, fresh);
+            fresh.json.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Gọi sau khi board của outlet đã cập nhật (KdsStreamHub): request sau đó không dùng lại kết quả cũ */
+    public void invalidateOutlet(UUID tenantId, UUID outletId) {
+        if (tenantId == null || outletId == null)
+            return;
+        generation(tenantId, outletId).incrementAndGet();
+        // entry đang tính vẫn trả cho request đã chờ nó; chỉ gỡ để map không giữ rác
+        entries.entrySet().removeIf(en -> en.getKey().tenantId().equals(tenantId)
+                && en.getKey().outletId().equals(outletId) && en.getValue().json.isDone());
+    }
+
+    /** Không biết outlet nào đổi (vd load item lỗi) => bỏ kết quả của mọi outlet trong tenant */
+    public void invalidateTenant(UUID tenantId) {
+        if (tenantId == null)
+            return;
+        generations.forEach((k, gen) -> {
+            if (k.tenantId().equals(tenantId))
+                gen.incrementAndGet();
+        });
+        entries.entrySet().removeIf(en -> en.getKey().tenantId().equals(tenantId) && en.getValue().json.isDone());
+    }
+
+    /** Chưa có request nào đang giữ kết quả => không cần invalidate */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    private AtomicLong generation(UUID tenantId, UUID outletId) {
+        return generations.computeIfAbsent(new OutletKey(tenantId, outletId), k -> new AtomicLong());
+    }
+
+    private void count(String kind, String result) {
+        Counter.builder("kds.response.requests")
+                .tag("kind", kind)
+                .tag("result", result)
+                .register(meters)
+                .increment();
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> f) {
+        try {
+            return f.get(WAIT_IN_FLIGHT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("KDS board is still loading, retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for KDS board");
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import com.sassfnb.adapters.persistence.repository.MenuItemRepository;
+import com.sassfnb.common.cache.GenerationMap;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Mapping món -> trạm bếp theo outlet (load 1 query/outlet, giữ tới khi menu item đổi).
+ * MenuItemServiceImpl gọi invalidateOutlet khi tạo/sửa món; evict kéo theo KdsBoardCache
+ * của outlet vì board đã chia sẵn theo trạm.
+ */
+@Component
+public class KitchenStationCache {
+
+    public static final String CACHE_BY_OUTLET = "kitchen-station:outlet";
+
+    public static final String DEFAULT_STATION = "MAIN";
+
+    private final MenuItemRepository menuItemRepo;
+    private final KdsBoardCache boardCache;
+    private final CacheInvalidationBus bus;
+
+    // evict chen giữa lúc load => bản load cũ không được cache đè
+    private final GenerationMap<UUID, Map<UUID, String>> byOutlet = new GenerationMap<>();
+
+    public KitchenStationCache(MenuItemRepository menuItemRepo, KdsBoardCache boardCache, CacheInvalidationBus bus) {
+        this.menuItemRepo = menuItemRepo;
+        this.boardCache = boardCache;
+        this.bus = bus;
+
+        bus.register(CACHE_BY_OUTLET, this::evictOutletLocal, this::clear);
+    }
+
+    /** Trạm của món, DEFAULT_STATION nếu chưa gán */
+    public String stationOf(UUID outletId, UUID menuItemId) {
+        if (outletId == null || menuItemId == null)
+            return DEFAULT_STATION;
+        return stationsOf(outletId).getOrDefault(menuItemId, DEFAULT_STATION);
+    }
+
+    /** menuItemId -> trạm (chỉ món có trạm riêng) */
+    public Map<UUID, String> stationsOf(UUID outletId) {
+        return byOutlet.getOrLoad(outletId, () -> {
+            Map<UUID, String> loaded = new HashMap<>();
+            for (Object[] row : menuItemRepo.findKitchenStationsByOutletId(outletId)) {
+                loaded.put((UUID) row[0], normalize((String) row[1]));
+            }
+            return Map.copyOf(loaded);
+        });
+    }
+
+    /** Gọi trong transaction ghi menu item; evict sau commit (và trên các node khác nếu bật) */
+    public void invalidateOutlet(UUID outletId) {
+        bus.invalidate(CACHE_BY_OUTLET, outletId);
+    }
+
+    private void evictOutletLocal(UUID outletId) {
+        byOutlet.evict(outletId);
+        boardCache.evictOutlet(outletId);
+    }
+
+    public void clear() {
+        byOutlet.clear();
+        boardCache.clear();
+    }
+
+    /** "bar " -> "BAR", null/blank -> MAIN */
+    public static String normalize(String station) {
+        if (station == null || station.isBlank())
+            return DEFAULT_STATION;
+        return station.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,141 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import com.sassfnb.adapters.persistence.repository.MenuItemRepository;
+import com.sassfnb.adapters.persistence.repository.MenuOptionRepository;
+import com.sassfnb.common.cache.GenerationMap;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Đồ thị option của 1 outlet: món -> options (theo tên) -> values (theo sortOrder, tên) kèm extraPrice.
+ * Load 1 query join/outlet, giữ bản bất biến => validate lựa chọn (addItems) và dựng menu public
+ * chỉ còn đọc map. Option service gọi invalidate* khi ghi option/value; evict kéo theo snapshot
+ * menu public của outlet.
+ */
+@Component
+public class MenuOptionGraphCache {
+
+    public static final String CACHE_BY_OUTLET = "menu-options:outlet";
+
+    public record OptionValue(UUID id, UUID optionId, String name, BigDecimal extraPrice, Integer sortOrder) {
+    }
+
+    public record Option(UUID id, UUID itemId, String name, boolean required, boolean multiSelect,
+            List<OptionValue> values) {
+    }
+
+    public record Graph(Map<UUID, List<Option>> byItem, Map<UUID, OptionValue> valueById) {
+
+        static final Graph EMPTY = new Graph(Map.of(), Map.of());
+
+        /** options của món theo tên (rỗng nếu món không có option) */
+        public List<Option> options(UUID itemId) {
+            return byItem.getOrDefault(itemId, List.of());
+        }
+
+        public OptionValue value(UUID valueId) {
+            return valueById.get(valueId);
+        }
+    }
+
+    private final MenuOptionRepository optRepo;
+    private final MenuItemRepository itemRepo;
+    private final PublicMenuSnapshotCache menuSnapshots;
+    private final CacheInvalidationBus bus;
+
+    // bản load song song với evict không được put đè (GenerationMap)
+    private final GenerationMap<UUID, Graph> byOutlet = new GenerationMap<>();
+
+    public MenuOptionGraphCache(MenuOptionRepository optRepo, MenuItemRepository itemRepo,
+            PublicMenuSnapshotCache menuSnapshots, CacheInvalidationBus bus) {
+        this.optRepo = optRepo;
+        this.itemRepo = itemRepo;
+        this.menuSnapshots = menuSnapshots;
+        this.bus = bus;
+
+        bus.register(CACHE_BY_OUTLET, this::evictLocal, this::clear);
+    }
+
+    public Graph graph(UUID outletId) {
+        if (outletId == null)
+            return Graph.EMPTY;
+
+        return byOutlet.getOrLoad(outletId, () -> build(optRepo.findGraphRowsByOutletId(outletId)));
+    }
+
+    /**
+     * rows đã sort theo (itemId, tên option, sortOrder, tên value):
+     * [itemId, optionId, optionName, required, selectionType, valueId, valueName, extraPrice, sortOrder],
+     * value null khi option chưa có value nào (left join)
+     */
+    private static Graph build(List<Object[]> rows) {
+        Map<UUID, List<Option>> byItem = new LinkedHashMap<>();
+        Map<UUID, OptionValue> valueById = new HashMap<>();
+
+        UUID currentOptionId = null;
+        Object[] optionRow = null;
+        List<OptionValue> values = new ArrayList<>();
+
+        for (Object[] r : rows) {
+            UUID optionId = (UUID) r[1];
+            if (!optionId.equals(currentOptionId)) {
+                if (optionRow != null)
+                    addOption(byItem, optionRow, values);
+                currentOptionId = optionId;
+                optionRow = r;
+                values = new ArrayList<>();
+            }
+
+            if (r[5] != null) {
+                BigDecimal extra = r[7] == null ? BigDecimal.ZERO : (BigDecimal) r[7];
+                OptionValue v = new OptionValue((UUID) r[5], optionId, (String) r[6], extra, (Integer) r[8]);
+                values.add(v);
+                valueById.put(v.id(), v);
+            }
+        }
+        if (optionRow != null)
+            addOption(byItem, optionRow, values);
+
+        Map<UUID, List<Option>> frozen = new HashMap<>(byItem.size() * 2);
+        byItem.forEach((itemId, options) -> frozen.put(itemId, List.copyOf(options)));
+        return new Graph(Map.copyOf(frozen), Map.copyOf(valueById));
+    }
+
+    private static void addOption(Map<UUID, List<Option>> byItem, Object[] r, List<OptionValue> values) {
+        UUID itemId = (UUID) r[0];
+        Option o = new Option(
+                (UUID) r[1],
+                itemId,
+                (String) r[2],
+                Boolean.TRUE.equals(r[3]),
+                "MULTI".equalsIgnoreCase((String) r[4]),
+                List.copyOf(values));
+        byItem.computeIfAbsent(itemId, k -> new ArrayList<>()).add(o);
+    }
+
+    /** Gọi trong transaction ghi option/value của món; evict sau commit (và trên các node khác nếu bật) */
+    public void invalidateItem(UUID itemId) {
+        if (itemId != null)
+            itemRepo.findOutletIdById(itemId).ifPresent(outletId -> bus.invalidate(CACHE_BY_OUTLET, outletId));
+    }
+
+    /** Ghi value của 1 option */
+    public void invalidateOption(UUID optionId) {
+        if (optionId != null)
+            optRepo.findById(optionId).ifPresent(o -> invalidateItem(o.getItemId()));
+    }
+
+    private void evictLocal(UUID outletId) {
+        byOutlet.evict(outletId);
+        // snapshot menu đã chứa option cũ
+        menuSnapshots.evictOutlet(outletId);
+    }
+
+    public void clear() {
+        byOutlet.clear();
+        menuSnapshots.clear();
+    }
+}
@@ -0,0 +1,189 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import com.sassfnb.adapters.persistence.entity.MenuItemPriceEntity;
+import com.sassfnb.adapters.persistence.repository.MenuItemPriceRepository;
+import com.sassfnb.adapters.persistence.repository.MenuItemRepository;
+import com.sassfnb.common.cache.GenerationMap;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Index giá theo thời gian của 1 outlet (menu_item_prices, 1 query/outlet):
+ * - mỗi món: các mốc valid_from / valid_to(+1ns) sort sẵn, chia trục thời gian thành các đoạn,
+ * mỗi đoạn đã chọn sẵn dòng giá effective (dòng phủ at mới tạo nhất, không có thì dòng mới tạo nhất)
+ * => giá tại at = 1 binary search/món, cả outlet trong 1 lượt.
+ * - kèm mốc đổi giá gần nhất trước/sau at của cả outlet => cache phía trên (snapshot menu) hết hạn đúng
+ * lúc happy-hour bắt đầu/kết thúc.
+ * Ghi giá => invalidate* (evict sau commit), evict kéo theo snapshot menu public của outlet.
+ */
+@Component
+public class MenuPriceIndex {
+
+    public static final String CACHE_BY_OUTLET = "menu-price:outlet";
+
+    /** bản bất biến của 1 dòng menu_item_prices */
+    public record PriceRow(
+            UUID id,
+            UUID itemId,
+            String variantName,
+            BigDecimal price,
+            Instant validFrom,
+            Instant validTo,
+            Instant createdAt,
+            Instant updatedAt) {
+
+        boolean covers(Instant at) {
+            return (validFrom == null || !validFrom.isAfter(at))
+                    && (validTo == null || !validTo.isBefore(at));
+        }
+    }
+
+    /** giá effective của mọi món có dòng giá tại at; kết quả đúng cho mọi thời điểm trong [validFrom, validUntil) */
+    public record PricesAt(Map<UUID, PriceRow> byItem, Instant validFrom, Instant validUntil) {
+    }
+
+    /** segment i = [bounds[i-1], bounds[i]) (bounds[-1] = -∞, bounds[n] = +∞) => chosen[i] */
+    private record Timeline(Instant[] bounds, PriceRow[] chosen) {
+
+        PriceRow at(Instant at) {
+            return chosen[upperBound(bounds, at)];
+        }
+    }
+
+    private record OutletIndex(Map<UUID, Timeline> byItem, Instant[] bounds) {
+    }
+
+    private static final Comparator<PriceRow> NEWEST_FIRST = Comparator.comparing(
+            PriceRow::createdAt, Comparator.nullsFirst(Comparator.naturalOrder())).reversed();
+
+    private final MenuItemPriceRepository priceRepo;
+    private final MenuItemRepository itemRepo;
+    private final PublicMenuSnapshotCache menuSnapshots;
+    private final CacheInvalidationBus bus;
+
+    // bản load song song với evict không được put đè (GenerationMap)
+    private final GenerationMap<UUID, OutletIndex> byOutlet = new GenerationMap<>();
+
+    public MenuPriceIndex(MenuItemPriceRepository priceRepo, MenuItemRepository itemRepo,
+            PublicMenuSnapshotCache menuSnapshots, CacheInvalidationBus bus) {
+        this.priceRepo = priceRepo;
+        this.itemRepo = itemRepo;
+        this.menuSnapshots = menuSnapshots;
+        this.bus = bus;
+
+        bus.register(CACHE_BY_OUTLET, this::evictLocal, this::clear);
+    }
+
+    /** Giá effective của cả outlet tại at (món không có dòng giá nào thì không có trong map) */
+    public PricesAt pricesAt(UUID outletId, Instant at) {
+        OutletIndex idx = index(outletId);
+
+        Map<UUID, PriceRow> prices = new HashMap<>(idx.byItem().size() * 2);
+        idx.byItem().forEach((itemId, t) -> prices.put(itemId, t.at(at)));
+
+        int i = upperBound(idx.bounds(), at);
+        Instant from = i > 0 ? idx.bounds()[i - 1] : null;
+        Instant until = i < idx.bounds().length ? idx.bounds()[i] : null;
+        return new PricesAt(prices, from, until);
+    }
+
+    /** Giá effective của 1 món tại at, null nếu món không có dòng giá nào trong outlet */
+    public PriceRow priceAt(UUID outletId, UUID itemId, Instant at) {
+        Timeline t = index(outletId).byItem().get(itemId);
+        return t == null ? null : t.at(at);
+    }
+
+    private OutletIndex index(UUID outletId) {
+        return byOutlet.getOrLoad(outletId, () -> build(priceRepo.findByOutletId(outletId)));
+    }
+
+    private static OutletIndex build(List<MenuItemPriceEntity> entities) {
+        Map<UUID, List<PriceRow>> rowsByItem = entities.stream()
+                .map(MenuPriceIndex::toRow)
+                .collect(Collectors.groupingBy(PriceRow::itemId));
+
+        Map<UUID, Timeline> byItem = new HashMap<>(rowsByItem.size() * 2);
+        TreeSet<Instant> all = new TreeSet<>();
+
+        rowsByItem.forEach((itemId, rows) -> {
+            TreeSet<Instant> bounds = new TreeSet<>();
+            for (PriceRow r : rows) {
+                if (r.validFrom() != null)
+                    bounds.add(r.validFrom());
+                if (r.validTo() != null)
+                    bounds.add(r.validTo().plusNanos(1)); // validTo tính cả mốc đó
+            }
+            all.addAll(bounds);
+
+            Instant[] b = bounds.toArray(Instant[]::new);
+            PriceRow[] chosen = new PriceRow[b.length + 1];
+            for (int i = 0; i <= b.length; i++) {
+                // điểm đại diện của đoạn i: mọi dòng giá hoặc phủ cả đoạn hoặc không phủ điểm nào
+                Instant probe = (i == 0) ? (b.length == 0 ? Instant.EPOCH : b[0].minusNanos(1)) : b[i - 1];
+                chosen[i] = choose(rows, probe);
+            }
+            byItem.put(itemId, new Timeline(b, chosen));
+        });
+
+        return new OutletIndex(Map.copyOf(byItem), all.toArray(Instant[]::new));
+    }
+
+    // cùng luật MenuPriceService.getEffectivePrice
+    private static PriceRow choose(List<PriceRow> rows, Instant at) {
+        PriceRow covering = null;
+        PriceRow newest = null;
+        for (PriceRow r : rows) {
+            if (newest == null || NEWEST_FIRST.compare(r, newest) < 0)
+                newest = r;
+            if (r.covers(at) && (covering == null || NEWEST_FIRST.compare(r, covering) < 0))
+                covering = r;
+        }
+        return covering != null ? covering : newest;
+    }
+
+    /** số mốc <= at */
+    private static int upperBound(Instant[] bounds, Instant at) {
+        int lo = 0, hi = bounds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bounds[mid].isAfter(at))
+                hi = mid;
+            else
+                lo = mid + 1;
+        }
+        return lo;
+    }
+
+    private static PriceRow toRow(MenuItemPriceEntity p) {
+        return new PriceRow(p.getId(), p.getMenuItemId(), p.getVariantName(), p.getPrice(),
+                p.getValidFrom(), p.getValidTo(), p.getCreatedAt(), p.getUpdatedAt());
+    }
+
+    /** Gọi trong transaction ghi giá của outlet; evict sau commit (và trên các node khác nếu bật) */
+    public void invalidateOutlet(UUID outletId) {
+        if (outletId != null)
+            bus.invalidate(CACHE_BY_OUTLET, outletId);
+    }
+
+    /** Ghi giá của 1 món */
+    public void invalidateItem(UUID itemId) {
+        if (itemId != null)
+            itemRepo.findOutletIdById(itemId).ifPresent(this::invalidateOutlet);
+    }
+
+    private void evictLocal(UUID outletId) {
+        byOutlet.evict(outletId);
+        // snapshot menu đã chốt giá theo index cũ
+        menuSnapshots.evictOutlet(outletId);
+    }
+
+    public void clear() {
+        byOutlet.clear();
+        menuSnapshots.clear();
+    }
+}
@@ -0,0 +1,87 @@
+package com.sassfnb.adapters.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache.Snapshot;
+import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.PublicMenuPayload;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON + gzip của snapshot menu public, serialize/nén đúng 1 lần cho mỗi version snapshot của outlet
+ * (mỗi outlet chỉ giữ bản của version mới nhất => bounded theo số outlet).
+ * ETag = hash nội dung JSON => giống nhau giữa các node / sau restart nếu menu không đổi.
+ */
+@Component
+public class PublicMenuPayloadCache {
+
+    private record Entry(long version, PublicMenuPayload payload) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<UUID, Entry> byOutlet = new ConcurrentHashMap<>();
+
+    public PublicMenuPayloadCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** @param toResponse snapshot -> DTO trả về client (chỉ chạy khi version chưa có payload) */
+    public PublicMenuPayload get(Snapshot snap, Function<Snapshot, Object> toResponse) {
+        Entry e = byOutlet.get(snap.outletId());
+        if (e != null && e.version() == snap.version())
+            return e.payload();
+
+        PublicMenuPayload payload = encode(snap, toResponse.apply(snap));
+        // 2 request dựng song song cùng version => bản nào thắng cũng giống nhau; version cũ không đè version mới
+        byOutlet.merge(snap.outletId(), new Entry(snap.version(), payload),
+                (old, neu) -> old.version() > neu.version() ? old : neu);
+        return payload;
+    }
+
+    private PublicMenuPayload encode(Snapshot snap, Object response) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(response);
+            return new PublicMenuPayload(snap.outletId(), etag(json), json, gzip(json), snap.validUntil());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize public menu", ex);
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot gzip public menu", ex);
+        }
+        return out.toByteArray();
+    }
+
+    public void evictOutlet(UUID outletId) {
+        byOutlet.remove(outletId);
+    }
+
+    public void clear() {
+        byOutlet.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.CategoryNode;
+import com.sassfnb.common.cache.GenerationMap;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Snapshot bất biến của menu public theo outlet (category -> item -> option -> value + giá effective).
+ * - Dựng lười ở lần đọc đầu, giữ tới khi menu đổi: category/item gọi invalidateOutlet (evict sau commit),
+ * giá/option evict qua MenuPriceIndex / MenuOptionGraphCache của outlet.
+ * - Giá có lịch (valid_from/valid_to) => snapshot chỉ đúng trong [validFrom, validUntil); hết cửa sổ thì dựng lại.
+ * - version tăng mỗi lần dựng (bắt đầu từ epoch millis => không lặp lại sau restart).
+ */
+@Component
+public class PublicMenuSnapshotCache {
+
+    public static final String CACHE_BY_OUTLET = "public-menu:outlet";
+
+    private static final long CLOCK_SKEW_MS = 60_000L;
+
+    /** validFrom/validUntil null = không giới hạn phía đó */
+    public record Snapshot(
+            UUID outletId,
+            long version,
+            Instant builtAt,
+            Instant validFrom,
+            Instant validUntil,
+            List<CategoryNode> categories) {
+
+        public boolean covers(Instant at) {
+            return (validFrom == null || !at.isBefore(validFrom))
+                    && (validUntil == null || at.isBefore(validUntil));
+        }
+    }
+
+    /** Kết quả dựng tree tại 1 thời điểm (chưa gán version) */
+    public record Built(Instant validFrom, Instant validUntil, List<CategoryNode> categories) {
+    }
+
+    private final CacheInvalidationBus bus;
+    private final PublicMenuPayloadCache payloads;
+
+    // bản dựng song song với evict không được put đè (GenerationMap)
+    private final GenerationMap<UUID, Snapshot> byOutlet = new GenerationMap<>();
+    private final Map<UUID, Object> buildLocks = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    public PublicMenuSnapshotCache(CacheInvalidationBus bus, PublicMenuPayloadCache payloads) {
+        this.bus = bus;
+        this.payloads = payloads;
+
+        bus.register(CACHE_BY_OUTLET, this::evictOutlet, this::clear);
+    }
+
+    /**
+     * Snapshot phủ thời điểm at. at nằm ngoài cửa sổ snapshot hiện tại:
+     * - at ~ hiện tại => dựng lại và thay snapshot (1 lần cho mọi request đồng thời)
+     * - at quá khứ/tương lai (preview) => dựng riêng, không cache
+     */
+    public Snapshot get(UUID outletId, Instant at, Function<Instant, Built> builder) {
+        Instant now = Instant.now();
+        Instant effectiveAt = (at != null) ? at : now;
+
+        Snapshot cached = byOutlet.get(outletId);
+        if (cached != null && cached.covers(effectiveAt))
+            return cached;
+
+        // client gửi at = "bây giờ" của nó (lệch đồng hồ vài giây) vẫn tính là request hiện tại
+        boolean current = at == null || Math.abs(Duration.between(now, at).toMillis()) < CLOCK_SKEW_MS;
+        if (!current)
+            return wrap(outletId, now, builder.apply(effectiveAt));
+
+        synchronized (buildLocks.computeIfAbsent(outletId, k -> new Object())) {
+            cached = byOutlet.get(outletId);
+            if (cached != null && cached.covers(effectiveAt))
+                return cached;
+
+            long gen = byOutlet.generation();
+            Snapshot fresh = wrap(outletId, now, builder.apply(now));
+            byOutlet.put(outletId, fresh, gen);
+            return fresh.covers(effectiveAt) ? fresh : wrap(outletId, now, builder.apply(effectiveAt));
+        }
+    }
+
+    private Snapshot wrap(UUID outletId, Instant builtAt, Built b) {
+        return new Snapshot(outletId, versions.incrementAndGet(), builtAt, b.validFrom(), b.validUntil(),
+                List.copyOf(b.categories()));
+    }
+
+    /** Gọi trong transaction ghi category/item; evict sau commit (và trên các node khác nếu bật) */
+    public void invalidateOutlet(UUID outletId) {
+        if (outletId != null)
+            bus.invalidate(CACHE_BY_OUTLET, outletId);
+    }
+
+    /** Evict ngay trên node này (vd index giá của outlet vừa bị evict) */
+    public void evictOutlet(UUID outletId) {
+        byOutlet.evict(outletId);
+        payloads.evictOutlet(outletId);
+    }
+
+    public void clear() {
+        byOutlet.clear();
+        payloads.clear();
+    }
+}
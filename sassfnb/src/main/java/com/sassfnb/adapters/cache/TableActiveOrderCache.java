@@ -0,0 +1,125 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import com.sassfnb.application.config.CacheProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index in-process: tableId -> order đang active của bàn (đã có mapping order_tables).
+ * Dùng cho QR re-scan: bỏ lookup order_tables + exists check.
+ * Caller vẫn phải check status order (entry chỉ là gợi ý, không phải nguồn sự thật).
+ */
+@Component
+public class TableActiveOrderCache {
+
+    public static final String CACHE_BY_TABLE = "table-active-order:table";
+    public static final String CACHE_BY_ORDER = "table-active-order:order";
+
+    private record Entry(UUID orderId, long expiresAt) {
+    }
+
+    private final long ttlMs;
+    private final int maxEntries;
+
+    private final Map<UUID, Entry> byTable = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> tablesByOrder = new ConcurrentHashMap<>();
+
+    private final CacheInvalidationBus bus;
+
+    public TableActiveOrderCache(CacheProperties props, CacheInvalidationBus bus) {
+        this.ttlMs = props.getTableOrderTtlMs();
+        this.maxEntries = props.getTableOrderMaxEntries();
+        this.bus = bus;
+
+        bus.register(CACHE_BY_TABLE, this::evictTableLocal, this::clear);
+        bus.register(CACHE_BY_ORDER, this::evictOrderLocal, this::clear);
+    }
+
+    /** orderId đang active của bàn, null nếu miss/hết hạn */
+    public UUID get(UUID tableId) {
+        if (tableId == null)
+            return null;
+
+        Entry e = byTable.get(tableId);
+        if (e == null)
+            return null;
+
+        if (e.expiresAt() < System.currentTimeMillis()) {
+            byTable.remove(tableId, e);
+            return null;
+        }
+        return e.orderId();
+    }
+
+    public void put(UUID tableId, UUID orderId) {
+        if (tableId == null || orderId == null)
+            return;
+
+        // bounded: vượt ngưỡng thì bỏ hết (đơn giản, miss chỉ tốn 1 query)
+        if (byTable.size() >= maxEntries) {
+            clear();
+        }
+
+        byTable.put(tableId, new Entry(orderId, System.currentTimeMillis() + ttlMs));
+        tablesByOrder.computeIfAbsent(orderId, k -> ConcurrentHashMap.newKeySet()).add(tableId);
+    }
+
+    /** Put sau commit (rollback => mapping không tồn tại, không được cache) */
+    public void putAfterCommit(UUID tableId, UUID orderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(tableId, orderId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(tableId, orderId);
+            }
+        });
+    }
+
+    // =========================
+    // invalidate (sau commit + các node khác)
+    // =========================
+    public void invalidateTable(UUID tableId) {
+        bus.invalidate(CACHE_BY_TABLE, tableId);
+    }
+
+    public void invalidateOrder(UUID orderId) {
+        bus.invalidate(CACHE_BY_ORDER, orderId);
+    }
+
+    /** Evict ngay trên node này (vd entry trỏ tới order không còn active) */
+    public void evictTableLocal(UUID tableId) {
+        Entry e = byTable.remove(tableId);
+        if (e != null) {
+            tablesByOrder.computeIfPresent(e.orderId(), (k, v) -> {
+                v.remove(tableId);
+                return v.isEmpty() ? null : v;
+            });
+        }
+    }
+
+    private void evictOrderLocal(UUID orderId) {
+        Set<UUID> tables = tablesByOrder.remove(orderId);
+        if (tables == null)
+            return;
+
+        for (UUID tableId : tables) {
+            byTable.computeIfPresent(tableId, (k, e) -> orderId.equals(e.orderId()) ? null : e);
+        }
+    }
+
+    public void clear() {
+        byTable.clear();
+        tablesByOrder.clear();
+    }
+}
@@ -0,0 +1,179 @@
+package com.sassfnb.adapters.messaging;
+
+import com.sassfnb.application.config.CacheProperties;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Invalidate cache in-process theo key (cache name + UUID).
+ * - Local: evict sau khi transaction commit (rollback => không evict).
+ * - Cross-node (app.cache.cross-node-invalidation=true): pg_notify trong cùng transaction,
+ *   Postgres chỉ giao notification khi commit; mỗi node LISTEN trên 1 connection riêng
+ *   mở thẳng qua DriverManager (không lấy từ Hikari => pool không mất 1 connection vĩnh viễn).
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    /** key đặc biệt: xoá toàn bộ cache (vd sau khi mất kết nối LISTEN) */
+    private static final String ALL = "*";
+
+    private final CacheProperties props;
+    private final DataSourceProperties dataSourceProps;
+    private final JdbcTemplate jdbc;
+
+    private final Map<String, Consumer<UUID>> evictors = new ConcurrentHashMap<>();
+    private final Map<String, Runnable> clearers = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile Thread listener;
+
+    public CacheInvalidationBus(CacheProperties props, DataSourceProperties dataSourceProps, JdbcTemplate jdbc) {
+        this.props = props;
+        this.dataSourceProps = dataSourceProps;
+        this.jdbc = jdbc;
+    }
+
+    public void register(String cache, Consumer<UUID> evictor, Runnable clearer) {
+        evictors.put(cache, evictor);
+        clearers.put(cache, clearer);
+    }
+
+    /** Gọi trong transaction ghi; evict thực sự chạy sau commit */
+    public void invalidate(String cache, UUID key) {
+        if (cache == null || key == null)
+            return;
+
+        if (props.isCrossNodeInvalidation()) {
+            jdbc.queryForObject("select pg_notify(?, ?)::text", String.class,
+                    props.getInvalidationChannel(), cache + ":" + key);
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictLocal(cache, key);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictLocal(cache, key);
+            }
+        });
+    }
+
+    private void evictLocal(String cache, UUID key) {
+        Consumer<UUID> evictor = evictors.get(cache);
+        if (evictor != null)
+            evictor.accept(key);
+    }
+
+    private void clearAll() {
+        clearers.values().forEach(Runnable::run);
+    }
+
+    private void dispatch(String payload) {
+        if (payload == null)
+            return;
+
+        int idx = payload.lastIndexOf(':');
+        if (idx <= 0)
+            return;
+
+        String cache = payload.substring(0, idx);
+        String key = payload.substring(idx + 1);
+        try {
+            if (ALL.equals(key)) {
+                Runnable clearer = clearers.get(cache);
+                if (clearer != null)
+                    clearer.run();
+            } else {
+                evictLocal(cache, UUID.fromString(key));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("[CacheInvalidationBus] bad payload: {}", payload);
+        }
+    }
+
+    // =========================
+    // LISTEN loop (cross-node)
+    // =========================
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!props.isCrossNodeInvalidation() || running)
+            return;
+
+        running = true;
+        listener = Thread.ofVirtual().name("cache-invalidation-listener").start(this::listenLoop);
+    }
+
+    private void listenLoop() {
+        String channel = props.getInvalidationChannel();
+
+        while (running) {
+            try (Connection c = openListenConnection(); Statement st = c.createStatement()) {
+                st.execute("LISTEN \"" + channel.replace("\"", "") + "\"");
+                PGConnection pg = c.unwrap(PGConnection.class);
+
+                // có thể đã lỡ notification lúc chưa LISTEN => bỏ hết cache local
+                clearAll();
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(10_000);
+                    if (notifications == null)
+                        continue;
+                    for (PGNotification n : notifications) {
+                        dispatch(n.getParameter());
+                    }
+                }
+            } catch (Exception e) {
+                if (!running)
+                    return;
+                log.warn("[CacheInvalidationBus] LISTEN connection lost, retrying: {}", e.getMessage());
+                clearAll();
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // connection riêng ngoài pool, sống suốt vòng LISTEN
+    private Connection openListenConnection() throws SQLException {
+        return DriverManager.getConnection(
+                dataSourceProps.determineUrl(),
+                dataSourceProps.determineUsername(),
+                dataSourceProps.determinePassword());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread t = listener;
+        if (t != null)
+            t.interrupt();
+    }
+}
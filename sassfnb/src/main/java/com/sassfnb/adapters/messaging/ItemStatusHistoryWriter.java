@@ -0,0 +1,203 @@
+package com.sassfnb.adapters.messaging;
+
+import com.sassfnb.application.domain.order.OrderEvents.ItemStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.ItemsStatusChanged;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ghi order_item_status_history bất đồng bộ:
+ * - sau commit, event chỉ được đẩy vào ring buffer (ArrayBlockingQueue, offer không chặn)
+ * - 1 virtual thread gom và insert bằng JDBC batch mỗi flush-ms hoặc khi đủ batch-size dòng
+ * Buffer đầy => bỏ dòng + log (history là dữ liệu đo lường, không được làm chậm thao tác bếp).
+ * Batch ghi xong => cộng dồn sketch thời gian ra món (TicketTimeSketchUpdater) trên cùng thread.
+ */
+@Component
+public class ItemStatusHistoryWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemStatusHistoryWriter.class);
+
+    private static final String INSERT_SQL = """
+            insert into order_item_status_history (tenant_id, order_item_id, status, changed_at, changed_by, note)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private record Row(UUID tenantId, UUID itemId, String status, Instant at, UUID changedBy, String note) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TicketTimeSketchUpdater ticketTimes;
+    private final BlockingQueue<Row> buffer;
+    private final long flushMs;
+    private final int batchSize;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    public ItemStatusHistoryWriter(
+            JdbcTemplate jdbc,
+            TicketTimeSketchUpdater ticketTimes,
+            @Value("${app.item-history.capacity:65536}") int capacity,
+            @Value("${app.item-history.flush-ms:200}") long flushMs,
+            @Value("${app.item-history.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.ticketTimes = ticketTimes;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.flushMs = Math.max(10, flushMs);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemStatusChanged(ItemStatusChanged e) {
+        offer(new Row(e.tenantId(), e.itemId(), e.toStatus(), e.at(), e.changedBy(), null));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemsStatusChanged(ItemsStatusChanged e) {
+        for (UUID itemId : e.itemIds()) {
+            offer(new Row(e.tenantId(), itemId, e.toStatus(), e.at(), e.changedBy(), e.note()));
+        }
+    }
+
+    private void offer(Row row) {
+        if (row.tenantId() == null || row.itemId() == null || row.status() == null)
+            return;
+
+        if (!buffer.offer(row)) {
+            long n = dropped.incrementAndGet();
+            if (n == 1 || n % 1000 == 0)
+                log.warn("[ItemStatusHistoryWriter] buffer full, dropped {} rows so far", n);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (running)
+            return;
+
+        running = true;
+        flusher = Thread.ofVirtual().name("item-status-history-writer").start(this::flushLoop);
+    }
+
+    private void flushLoop() {
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                Row first = buffer.poll(flushMs, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                // gom tới khi đủ batch-size hoặc hết cửa sổ flush-ms
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMs);
+                while (batch.size() < batchSize) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) > 0)
+                        continue;
+                    long waitNs = deadline - System.nanoTime();
+                    if (waitNs <= 0)
+                        break;
+                    Row next = buffer.poll(waitNs, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException ie) {
+                // stop(): ghi nốt phần đã gom, phần còn lại stop() tự drain
+                flush(batch);
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Row> batch) {
+        if (batch.isEmpty())
+            return;
+
+        List<Row> written = batch;
+        try {
+            jdbc.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, r) -> bind(ps, r));
+        } catch (DataAccessException e) {
+            // 1 dòng lỗi (vd item vừa bị xoá) làm hỏng cả batch => ghi lại từng dòng, chỉ bỏ dòng lỗi
+            log.debug("[ItemStatusHistoryWriter] batch of {} rows failed, retrying row by row: {}",
+                    batch.size(), e.getMessage());
+            written = new ArrayList<>(batch.size());
+            for (Row r : batch) {
+                try {
+                    jdbc.update(INSERT_SQL, ps -> bind(ps, r));
+                    written.add(r);
+                } catch (DataAccessException rowEx) {
+                    log.warn("[ItemStatusHistoryWriter] dropped row item={} status={} at={}: {}",
+                            r.itemId(), r.status(), r.at(), rowEx.getMessage());
+                }
+            }
+        }
+
+        // sketch chỉ nhận dòng đã thật sự nằm trong history
+        ticketTimes.onFlushed(written.stream()
+                .map(r -> new TicketTimeSketchUpdater.Transition(r.tenantId(), r.itemId(), r.status(), r.at()))
+                .toList());
+    }
+
+    private static void bind(PreparedStatement ps, Row r) throws SQLException {
+        ps.setObject(1, r.tenantId());
+        ps.setObject(2, r.itemId());
+        ps.setString(3, r.status());
+        ps.setObject(4, OffsetDateTime.ofInstant(r.at() != null ? r.at() : Instant.now(), ZoneOffset.UTC));
+        if (r.changedBy() != null)
+            ps.setObject(5, r.changedBy());
+        else
+            ps.setNull(5, Types.OTHER);
+        ps.setString(6, r.note());
+    }
+
+    /** Dừng flusher rồi ghi nốt phần còn trong buffer */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread t = flusher;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<Row> rest = new ArrayList<>(batchSize);
+        while (buffer.drainTo(rest, batchSize) > 0) {
+            flush(rest);
+            rest.clear();
+        }
+    }
+}
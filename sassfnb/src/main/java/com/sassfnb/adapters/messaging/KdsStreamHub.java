@@ -0,0 +1,231 @@
+package com.sassfnb.adapters.messaging;
+
+import com.sassfnb.adapters.cache.KdsBoardCache;
+import com.sassfnb.adapters.cache.KdsResponseCoalescer;
+import com.sassfnb.adapters.cache.KitchenStationCache;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsBoardItemResponse;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsDeltaEvent;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsSnapshotEvent;
+import com.sassfnb.application.config.SseProperties;
+import com.sassfnb.application.domain.order.OrderEvents.ItemStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.KitchenOrdersChanged;
+import com.sassfnb.application.service.KdsService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SSE cho màn hình bếp (thay cho poll 3s /kds/boards).
+ * - subscribe: gửi "snapshot" (toàn bộ board + seq hiện tại), hoặc replay các "delta" bị lỡ nếu
+ * client gửi Last-Event-ID còn nằm trong buffer.
+ * - sau commit: cập nhật KdsBoardCache (rồi invalidate KdsResponseCoalescer của outlet) và chỉ đẩy "delta"
+ * (items thêm/đổi + itemId bị gỡ khỏi board), id = seq tăng dần theo outlet.
+ * Client: snapshot => thay toàn bộ state; delta có seq <= seq đang giữ => bỏ qua.
+ */
+@Component
+public class KdsStreamHub {
+
+    private static final Logger log = LoggerFactory.getLogger(KdsStreamHub.class);
+
+    public static final String EVT_SNAPSHOT = "snapshot";
+    public static final String EVT_DELTA = "delta";
+
+    // delta của 1 tenant xử lý tuần tự trên cùng 1 stripe => seq đúng thứ tự commit
+    private static final int STRIPES = 4;
+
+    private final SseHub hub;
+    private final KdsService kdsService;
+    private final KdsBoardCache boardCache;
+    private final KdsResponseCoalescer coalescer;
+    private final int replayBufferSize;
+
+    private final Map<UUID, OutletChannel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService[] stripes = new ExecutorService[STRIPES];
+    private final Object[] stripeLocks = new Object[STRIPES];
+
+    public KdsStreamHub(SseProperties props, KdsService kdsService, KdsBoardCache boardCache,
+            KdsResponseCoalescer coalescer) {
+        this.hub = new SseHub(
+                "kds-stream",
+                props.getTimeoutMs(),
+                props.getMaxKdsSubscribersPerOutlet(),
+                props.getMaxKdsSubscribersPerOutlet(),
+                // màn hình cuối của outlet đóng => bỏ seq/buffer, lần mở sau nhận snapshot
+                channels::remove);
+        this.kdsService = kdsService;
+        this.boardCache = boardCache;
+        this.coalescer = coalescer;
+        this.replayBufferSize = Math.max(1, props.getKdsReplayBufferSize());
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("kds-delta-" + i).factory());
+            stripeLocks[i] = new Object();
+        }
+    }
+
+    /** station null => cả bếp, ngược lại chỉ nhận món của trạm đó */
+    public SseEmitter subscribe(UUID tenantId, UUID outletId, String station, Long lastSeq) {
+        String stationKey = (station == null || station.isBlank()) ? null : KitchenStationCache.normalize(station);
+        UUID topic = topic(tenantId, outletId, stationKey);
+        // giới hạn subscriber tính chung cả outlet (mọi trạm)
+        SseEmitter emitter = hub.subscribe(topic(tenantId, outletId, null), topic);
+        OutletChannel ch = channels.computeIfAbsent(topic, k -> new OutletChannel());
+        // emitter chết ngay trước computeIfAbsent => không để lại channel không ai nghe
+        channels.computeIfPresent(topic, (k, c) -> hub.hasSubscribers(k) ? c : null);
+
+        synchronized (ch) {
+            List<KdsDeltaEvent> missed = ch.since(lastSeq);
+            if (missed != null) {
+                missed.forEach(d -> hub.sendTo(emitter, EVT_DELTA, String.valueOf(d.seq()), d));
+            } else {
+                // client mới hoặc lỡ quá nhiều delta => gửi lại cả board
+                hub.sendTo(emitter, EVT_SNAPSHOT, String.valueOf(ch.seq),
+                        new KdsSnapshotEvent(ch.seq, kdsService.getBoards(tenantId, outletId, stationKey, null, null)));
+            }
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onKitchenOrdersChanged(KitchenOrdersChanged e) {
+        enqueue(e.tenantId(), e.orderIds(), e.at());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemStatusChanged(ItemStatusChanged e) {
+        enqueue(e.tenantId(), List.of(e.orderId()), e.at());
+    }
+
+    /**
+     * Chạy ngay trên thread commit: load dòng item mới nhất + áp vào board cache => request kế tiếp
+     * của chính client (getBoards) đã thấy thay đổi. Chỉ fan-out SSE đẩy sang stripe.
+     * Cả đoạn nằm trong lock của stripe => thứ tự load/apply/seq của 1 tenant đúng thứ tự commit.
+     */
+    private void enqueue(UUID tenantId, List<UUID> orderIds, Instant at) {
+        if (tenantId == null || orderIds == null || orderIds.isEmpty()
+                || (channels.isEmpty() && boardCache.isEmpty() && coalescer.isEmpty()))
+            return;
+
+        int stripe = Math.floorMod(tenantId.hashCode(), STRIPES);
+        synchronized (stripeLocks[stripe]) {
+            Map<UUID, List<KdsBoardItemResponse>> byOutlet;
+            try {
+                byOutlet = kdsService.loadItemsByOutlet(tenantId, orderIds);
+            } catch (RuntimeException ex) {
+                log.warn("[KdsStreamHub] load failed tenant={} orders={}: {}", tenantId, orderIds, ex.toString());
+                coalescer.invalidateTenant(tenantId);
+                return;
+            }
+
+            // board in-memory (getBoards) cập nhật cùng nguồn với delta
+            byOutlet.forEach((outletId, rows) -> {
+                boardCache.apply(tenantId, outletId, rows);
+                // sau apply => request thấy generation mới đã đọc được board mới
+                coalescer.invalidateOutlet(tenantId, outletId);
+            });
+
+            if (channels.isEmpty())
+                return;
+            stripes[stripe].execute(() -> {
+                try {
+                    pushDeltas(tenantId, byOutlet, at);
+                } catch (RuntimeException ex) {
+                    log.warn("[KdsStreamHub] delta failed tenant={} orders={}: {}", tenantId, orderIds, ex.toString());
+                }
+            });
+        }
+    }
+
+    private void pushDeltas(UUID tenantId, Map<UUID, List<KdsBoardItemResponse>> byOutlet, Instant at) {
+        byOutlet.forEach((outletId, rows) -> {
+            // màn hình cả bếp + từng trạm có món trong lần đổi này
+            publishDelta(topic(tenantId, outletId, null), outletId, rows, at);
+
+            Map<String, List<KdsBoardItemResponse>> byStation = new HashMap<>();
+            for (KdsBoardItemResponse r : rows) {
+                byStation.computeIfAbsent(r.station(), k -> new ArrayList<>()).add(r);
+            }
+            byStation.forEach((station, stationRows) -> publishDelta(topic(tenantId, outletId, station), outletId,
+                    stationRows, at));
+        });
+    }
+
+    private void publishDelta(UUID topic, UUID outletId, List<KdsBoardItemResponse> rows, Instant at) {
+        OutletChannel ch = channels.get(topic);
+        if (ch == null)
+            return; // không có màn hình nào đang mở cho topic này
+
+        List<KdsBoardItemResponse> upserts = new ArrayList<>();
+        List<UUID> removed = new ArrayList<>();
+        for (KdsBoardItemResponse r : rows) {
+            if (KdsBoardCache.ON_BOARD.contains(r.itemStatus()))
+                upserts.add(r);
+            else
+                removed.add(r.itemId());
+        }
+
+        synchronized (ch) {
+            KdsDeltaEvent delta = new KdsDeltaEvent(++ch.seq, outletId, upserts, removed,
+                    at != null ? at : Instant.now());
+            ch.append(delta, replayBufferSize);
+            hub.publishSync(topic, EVT_DELTA, String.valueOf(delta.seq()), delta);
+        }
+    }
+
+    /** topic gồm cả tenant => outletId trùng giữa 2 tenant cũng không lẫn dữ liệu; station null = cả bếp */
+    private static UUID topic(UUID tenantId, UUID outletId, String station) {
+        String raw = tenantId + ":" + outletId + (station == null ? "" : ":" + station);
+        return UUID.nameUUIDFromBytes(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:20000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService s : stripes) {
+            s.shutdownNow();
+        }
+        hub.shutdown();
+    }
+
+    /** seq + buffer delta gần nhất của 1 outlet (truy cập trong synchronized(channel)) */
+    private static final class OutletChannel {
+        // bắt đầu từ epoch millis => seq cũ của client trước khi server restart không khớp nhầm buffer mới
+        private long seq = System.currentTimeMillis();
+        private final ArrayDeque<KdsDeltaEvent> recent = new ArrayDeque<>();
+
+        void append(KdsDeltaEvent delta, int max) {
+            recent.addLast(delta);
+            while (recent.size() > max) {
+                recent.removeFirst();
+            }
+        }
+
+        /** null => không replay được (chưa có lastSeq / đã trôi khỏi buffer / seq lạ sau restart) */
+        List<KdsDeltaEvent> since(Long lastSeq) {
+            if (lastSeq == null || lastSeq > seq)
+                return null;
+            if (lastSeq == seq)
+                return List.of();
+
+            KdsDeltaEvent oldest = recent.peekFirst();
+            if (oldest == null || oldest.seq() > lastSeq + 1)
+                return null;
+
+            return recent.stream().filter(d -> d.seq() > lastSeq).toList();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.sassfnb.adapters.messaging;
+
+import com.sassfnb.adapters.persistence.repository.OrderRepository;
+import com.sassfnb.adapters.rest.dto.publicorder.PublicOrderDtos.OrderStreamEvent;
+import com.sassfnb.application.config.SseProperties;
+import com.sassfnb.application.domain.order.OrderEvents.ItemStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.KitchenOrdersChanged;
+import com.sassfnb.application.domain.order.OrderEvents.OrdersChanged;
+import com.sassfnb.application.domain.order.OrderEvents.PaymentConfirmed;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * SSE cho khách theo dõi order (thay cho poll 3s).
+ * Event chỉ đẩy sau khi transaction commit => client refetch sẽ thấy data mới.
+ */
+@Component
+public class OrderStreamHub {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStreamHub.class);
+
+    public static final String EVT_REVISION = "revision";
+    public static final String EVT_ITEM_STATUS = "item-status";
+    public static final String EVT_PAYMENT = "payment";
+
+    private final SseHub hub;
+    private final OrderRepository orderRepo;
+
+    public OrderStreamHub(SseProperties props, OrderRepository orderRepo) {
+        this.orderRepo = orderRepo;
+        this.hub = new SseHub(
+                "order-stream",
+                props.getTimeoutMs(),
+                props.getMaxSubscribersPerOutlet(),
+                props.getMaxSubscribersPerOrder());
+    }
+
+    public SseEmitter subscribe(UUID outletId, UUID orderId, Long revision) {
+        SseEmitter emitter = hub.subscribe(outletId, orderId);
+        // gửi revision hiện tại để client so với bản đang giữ (resync sau reconnect)
+        hub.sendTo(emitter, EVT_REVISION, revision);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemStatusChanged(ItemStatusChanged e) {
+        hub.publish(e.orderId(), EVT_ITEM_STATUS, new OrderStreamEvent(
+                EVT_ITEM_STATUS, e.orderId(), e.itemId(), e.fromStatus(), e.toStatus(), e.at()));
+    }
+
+    /** thêm/sửa/xoá món, submit/fire/void, discount, thanh toán tay, đóng/mở lại order => đẩy revision mới */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersChanged(OrdersChanged e) {
+        publishRevisions(e.orderIds());
+    }
+
+    // submit/fire/void: cùng event với KDS stream => khách cũng thấy revision mới
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onKitchenOrdersChanged(KitchenOrdersChanged e) {
+        publishRevisions(e.orderIds());
+    }
+
+    private void publishRevisions(List<UUID> orderIds) {
+        if (orderIds == null || orderIds.isEmpty())
+            return;
+
+        // chỉ đọc revision của order đang có khách mở
+        List<UUID> watched = orderIds.stream().distinct().filter(hub::hasSubscribers).toList();
+        if (watched.isEmpty())
+            return;
+
+        try {
+            for (Object[] row : orderRepo.findRevisionsByIdIn(watched)) {
+                hub.publish((UUID) row[0], EVT_REVISION, row[1]);
+            }
+        } catch (RuntimeException ex) {
+            // đã commit => không làm hỏng request; client tự resync khi reconnect
+            log.warn("[OrderStreamHub] revision push failed orders={}: {}", watched, ex.toString());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentConfirmed(PaymentConfirmed e) {
+        hub.publish(e.orderId(), EVT_PAYMENT, new OrderStreamEvent(
+                EVT_PAYMENT, e.orderId(), null, null, "CONFIRMED", e.at()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:20000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.shutdown();
+    }
+}
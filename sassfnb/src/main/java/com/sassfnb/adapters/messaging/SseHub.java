@@ -0,0 +1,189 @@
+package com.sassfnb.adapters.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Registry SseEmitter dùng chung.
+ * - topic: key nhận event (vd orderId)
+ * - group: key để giới hạn số subscriber (vd outletId)
+ * Gửi event trên virtual thread => client chậm không chặn thread commit transaction.
+ */
+public class SseHub {
+
+    private static final Logger log = LoggerFactory.getLogger(SseHub.class);
+
+    private final String name;
+    private final long timeoutMs;
+    private final int maxPerGroup;
+    private final int maxPerTopic;
+
+    private final Map<UUID, Set<SseEmitter>> byTopic = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> countByGroup = new ConcurrentHashMap<>();
+    // event cuối đang chờ gửi của mỗi topic => event sau nối đuôi, giữ đúng thứ tự publish
+    private final Map<UUID, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    // gọi trong compute khi subscriber cuối của topic rời đi => state theo topic của caller dọn cùng lúc
+    private final Consumer<UUID> onTopicEmpty;
+
+    public SseHub(String name, long timeoutMs, int maxPerGroup, int maxPerTopic) {
+        this(name, timeoutMs, maxPerGroup, maxPerTopic, topic -> {
+        });
+    }
+
+    public SseHub(String name, long timeoutMs, int maxPerGroup, int maxPerTopic, Consumer<UUID> onTopicEmpty) {
+        this.name = name;
+        this.timeoutMs = timeoutMs;
+        this.maxPerGroup = maxPerGroup;
+        this.maxPerTopic = maxPerTopic;
+        this.onTopicEmpty = onTopicEmpty;
+    }
+
+    public SseEmitter subscribe(UUID group, UUID topic) {
+        countByGroup.compute(group, (k, n) -> {
+            int count = n == null ? 0 : n;
+            if (count >= maxPerGroup)
+                throw new IllegalStateException("Too many " + name + " subscribers for " + group);
+            return count + 1;
+        });
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        try {
+            // add trong compute => không đua với cleanup đang xoá set rỗng của topic
+            byTopic.compute(topic, (k, set) -> {
+                Set<SseEmitter> emitters = set == null ? ConcurrentHashMap.newKeySet() : set;
+                if (emitters.size() >= maxPerTopic)
+                    throw new IllegalStateException("Too many " + name + " subscribers for " + topic);
+                emitters.add(emitter);
+                return emitters;
+            });
+        } catch (IllegalStateException e) {
+            releaseGroup(group);
+            throw e;
+        }
+
+        AtomicBoolean removed = new AtomicBoolean();
+        Runnable cleanup = () -> {
+            if (!removed.compareAndSet(false, true))
+                return;
+            byTopic.computeIfPresent(topic, (k, set) -> {
+                set.remove(emitter);
+                if (!set.isEmpty())
+                    return set;
+                // subscribe cùng topic đang chờ compute này => không thấy state nửa vời
+                onTopicEmpty.accept(k);
+                return null;
+            });
+            releaseGroup(group);
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+
+        return emitter;
+    }
+
+    private void releaseGroup(UUID group) {
+        countByGroup.computeIfPresent(group, (k, n) -> n <= 1 ? null : n - 1);
+    }
+
+    /** Gửi ngay cho 1 emitter (vd snapshot đầu tiên sau subscribe) */
+    public void sendTo(SseEmitter emitter, String event, Object data) {
+        sendTo(emitter, event, null, data);
+    }
+
+    /** id != null => client gửi lại qua Last-Event-ID khi reconnect */
+    public void sendTo(SseEmitter emitter, String event, String id, Object data) {
+        try {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event).data(data);
+            if (id != null)
+                builder.id(id);
+            emitter.send(builder);
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Fan-out bất đồng bộ tới mọi subscriber của topic.
+     * Các event cùng topic gửi tuần tự theo thứ tự publish (nối đuôi nhau), topic khác chạy song song.
+     */
+    public void publish(UUID topic, String event, Object data) {
+        publish(topic, event, null, data);
+    }
+
+    public void publish(UUID topic, String event, String id, Object data) {
+        if (!hasSubscribers(topic))
+            return;
+
+        Runnable send = () -> {
+            Set<SseEmitter> emitters = byTopic.get(topic);
+            if (emitters == null)
+                return;
+            for (SseEmitter emitter : emitters) {
+                sendTo(emitter, event, id, data);
+            }
+        };
+
+        CompletableFuture<Void> tail = tails.compute(topic, (k, prev) -> (prev == null
+                ? CompletableFuture.<Void>completedFuture(null)
+                : prev.exceptionally(ex -> null)).thenRunAsync(send, sender));
+        // hết việc => bỏ tail để map không giữ topic đã im lặng
+        tail.whenComplete((r, ex) -> tails.remove(topic, tail));
+    }
+
+    /** Gửi tuần tự trên thread hiện tại (caller tự lo thứ tự, vd delta có seq) */
+    public void publishSync(UUID topic, String event, String id, Object data) {
+        Set<SseEmitter> emitters = byTopic.get(topic);
+        if (emitters == null)
+            return;
+
+        for (SseEmitter emitter : emitters) {
+            sendTo(emitter, event, id, data);
+        }
+    }
+
+    /** Comment line giữ kết nối; emitter chết sẽ bị dọn qua onError */
+    public void heartbeat() {
+        if (byTopic.isEmpty())
+            return;
+
+        sender.execute(() -> byTopic.values().forEach(emitters -> emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("hb"));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        })));
+    }
+
+    /** topic đang có client mở => đáng để tính payload */
+    public boolean hasSubscribers(UUID topic) {
+        Set<SseEmitter> emitters = byTopic.get(topic);
+        return emitters != null && !emitters.isEmpty();
+    }
+
+    public int subscriberCount() {
+        return byTopic.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public void shutdown() {
+        byTopic.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        byTopic.clear();
+        tails.clear();
+        sender.shutdown();
+        log.debug("[SseHub:{}] shutdown", name);
+    }
+}
@@ -0,0 +1,120 @@
+package com.sassfnb.adapters.messaging;
+
+import com.sassfnb.adapters.cache.KitchenStationCache;
+import com.sassfnb.adapters.persistence.repository.TicketTimeSketchRepository;
+import com.sassfnb.adapters.persistence.repository.TicketTimeSketchRepository.BucketDelta;
+import com.sassfnb.adapters.persistence.repository.TicketTimeSketchRepository.ItemRefRow;
+import com.sassfnb.adapters.persistence.repository.TicketTimeSketchRepository.StatusAtRow;
+import com.sassfnb.common.stats.QuantileSketch;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+/**
+ * Cộng dồn sketch thời gian ra món sau mỗi batch history đã ghi (chạy trên thread của ItemStatusHistoryWriter):
+ * - READY  => FIRE_TO_READY  = READY - FIRED gần nhất
+ * - SERVED => READY_TO_SERVED = SERVED - READY gần nhất
+ * Mỗi mẫu cộng 1 vào bucket của 3 chiều ITEM / STATION / HOUR, ngày + giờ lấy theo mốc bắt đầu (giờ VN).
+ */
+@Component
+@RequiredArgsConstructor
+public class TicketTimeSketchUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketTimeSketchUpdater.class);
+
+    private static final ZoneId BIZ_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    public static final String FIRE_TO_READY = "FIRE_TO_READY";
+    public static final String READY_TO_SERVED = "READY_TO_SERVED";
+
+    public static final String DIM_ITEM = "ITEM";
+    public static final String DIM_STATION = "STATION";
+    public static final String DIM_HOUR = "HOUR";
+
+    private static final String FIRED = "FIRED";
+    private static final String READY = "READY";
+    private static final String SERVED = "SERVED";
+
+    /** 1 dòng history vừa ghi */
+    public record Transition(UUID tenantId, UUID itemId, String status, Instant at) {
+    }
+
+    private final TicketTimeSketchRepository repo;
+    private final KitchenStationCache stationCache;
+
+    public void onFlushed(List<Transition> batch) {
+        List<Transition> ends = batch.stream()
+                .filter(t -> READY.equals(t.status()) || SERVED.equals(t.status()))
+                .toList();
+        if (ends.isEmpty())
+            return;
+
+        try {
+            repo.increment(toDeltas(ends));
+        } catch (RuntimeException e) {
+            // không được làm chết thread flusher của history
+            log.warn("[TicketTimeSketchUpdater] {} samples skipped: {}", ends.size(), e.getMessage());
+        }
+    }
+
+    private List<BucketDelta> toDeltas(List<Transition> ends) {
+        Set<UUID> itemIds = new HashSet<>();
+        ends.forEach(t -> itemIds.add(t.itemId()));
+
+        // mốc bắt đầu: FIRED/READY gần nhất (đã nằm trong history, kể cả khi cùng batch)
+        Map<UUID, Map<String, Instant>> startAt = new HashMap<>();
+        for (StatusAtRow r : repo.fetchStatusTimes(itemIds, List.of(FIRED, READY))) {
+            startAt.computeIfAbsent(r.itemId(), k -> new HashMap<>()).put(r.status(), r.at());
+        }
+
+        Map<UUID, ItemRefRow> refs = new HashMap<>();
+        for (ItemRefRow r : repo.fetchItemRefs(itemIds)) {
+            refs.put(r.itemId(), r);
+        }
+
+        Map<BucketDelta, Long> counts = new HashMap<>();
+        for (Transition t : ends) {
+            ItemRefRow ref = refs.get(t.itemId());
+            Map<String, Instant> starts = startAt.get(t.itemId());
+            if (ref == null || starts == null || t.at() == null)
+                continue;
+
+            boolean ready = READY.equals(t.status());
+            Instant start = starts.get(ready ? FIRED : READY);
+            if (start == null)
+                continue; // vd item READY thẳng từ NEW (không qua FIRED)
+
+            String metric = ready ? FIRE_TO_READY : READY_TO_SERVED;
+            int bucket = QuantileSketch.bucketOf(Duration.between(start, t.at()).toMillis());
+            ZonedDateTime local = start.atZone(BIZ_ZONE);
+
+            String station = stationCache.stationOf(ref.outletId(), ref.menuItemId());
+            if (ref.menuItemId() != null)
+                count(counts, t, ref, local, metric, DIM_ITEM, ref.menuItemId().toString(), bucket);
+            count(counts, t, ref, local, metric, DIM_STATION, station, bucket);
+            count(counts, t, ref, local, metric, DIM_HOUR, String.valueOf(local.getHour()), bucket);
+        }
+
+        // sort => thứ tự khóa dòng ổn định giữa các node
+        List<BucketDelta> out = new ArrayList<>(counts.size());
+        counts.forEach((k, n) -> out.add(new BucketDelta(k.tenantId(), k.outletId(), k.businessDate(), k.metric(),
+                k.dimType(), k.dimKey(), k.bucket(), n)));
+        Collections.sort(out);
+        return out;
+    }
+
+    private static void count(Map<BucketDelta, Long> counts, Transition t, ItemRefRow ref, ZonedDateTime local,
+            String metric, String dimType, String dimKey, int bucket) {
+        // key gom với count = 0, count thật nằm ở value
+        BucketDelta key = new BucketDelta(t.tenantId(), ref.outletId(), local.toLocalDate(), metric, dimType, dimKey,
+                bucket, 0);
+        counts.merge(key, 1L, Long::sum);
+    }
+}
@@ -57,6 +57,10 @@ public class MenuItemEntity {
     @Column(name = "thumbnail_url")
     private String thumbnailUrl;
 
+    // ✅ trạm bếp (GRILL/BAR/COLD...), null => MAIN
+    @Column(name = "kitchen_station", length = 30)
+    private String kitchenStation;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -75,4 +75,13 @@ public class OrderEntity {
 
     @Column(name = "balance_amount", precision = 19, scale = 2, nullable = false)
     private BigDecimal balanceAmount = BigDecimal.ZERO; // ✅ default
+
+    // ✅ DB-managed (trigger V62): tăng mỗi lần order/items/discounts/payments đổi
+    @Column(name = "revision", nullable = false, insertable = false, updatable = false)
+    private Long revision;
+
+    // ✅ optimistic locking (V63) - khác revision: chỉ Hibernate tăng
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
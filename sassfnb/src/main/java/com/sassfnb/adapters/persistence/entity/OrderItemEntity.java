@@ -19,7 +19,9 @@ import java.util.UUID;
 @Table(name = "order_items", indexes = {
         @Index(name = "idx_oit_tenant", columnList = "tenant_id"),
         @Index(name = "idx_oit_order", columnList = "order_id"),
-        @Index(name = "idx_oit_status", columnList = "status")
+        @Index(name = "idx_oit_status", columnList = "status"),
+        @Index(name = "idx_oit_outlet_change_txid", columnList = "outlet_id, change_txid, id"),
+        @Index(name = "idx_oit_outlet_status_created", columnList = "outlet_id, status, created_at")
 })
 public class OrderItemEntity {
 
@@ -33,6 +35,14 @@ public class OrderItemEntity {
     @Column(name = "order_id", nullable = false, columnDefinition = "uuid")
     private UUID orderId;
 
+    // ✅ denormalized từ orders.outlet_id, DB trigger điền lúc insert (KDS không cần join orders)
+    @Column(name = "outlet_id", columnDefinition = "uuid", insertable = false, updatable = false)
+    private UUID outletId;
+
+    // ✅ txid của transaction ghi dòng gần nhất (DB trigger) => cursor change-feed KDS theo thứ tự commit
+    @Column(name = "change_txid", insertable = false, updatable = false)
+    private Long changeTxid;
+
     @Column(name = "menu_item_id", nullable = false, columnDefinition = "uuid")
     private UUID menuItemId;
 
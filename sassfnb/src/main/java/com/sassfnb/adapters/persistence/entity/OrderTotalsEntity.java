@@ -0,0 +1,62 @@
+package com.sassfnb.adapters.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read model totals của order (V65).
+ * DB-managed: trigger cộng dồn delta từ order_items / order_discounts / payments => app chỉ đọc.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "order_totals")
+public class OrderTotalsEntity {
+
+    @Id
+    @Column(name = "order_id", columnDefinition = "uuid")
+    private UUID orderId;
+
+    @Column(name = "tenant_id", nullable = false, columnDefinition = "uuid")
+    private UUID tenantId;
+
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount; // mọi item (kể cả VOIDED)
+
+    @Column(name = "active_item_count", nullable = false)
+    private Integer activeItemCount; // item != VOIDED
+
+    @Column(name = "line_total_all", precision = 19, scale = 2, nullable = false)
+    private BigDecimal lineTotalAll;
+
+    @Column(name = "line_total", precision = 19, scale = 2, nullable = false)
+    private BigDecimal lineTotal; // SUM(total_amount) item != VOIDED
+
+    @Column(name = "gross_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal grossAmount; // SUM(unit_price * quantity) item != VOIDED
+
+    @Column(name = "item_discount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal itemDiscount;
+
+    @Column(name = "order_discount_type", length = 20)
+    private String orderDiscountType; // PERCENT | AMOUNT | null
+
+    @Column(name = "order_discount_value", precision = 19, scale = 2, nullable = false)
+    private BigDecimal orderDiscountValue;
+
+    @Column(name = "paid_confirmed", precision = 19, scale = 2, nullable = false)
+    private BigDecimal paidConfirmed;
+
+    @Column(name = "paid_settled", precision = 19, scale = 2, nullable = false)
+    private BigDecimal paidSettled;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
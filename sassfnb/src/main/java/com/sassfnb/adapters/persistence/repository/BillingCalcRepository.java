@@ -21,17 +21,16 @@ public class BillingCalcRepository {
   }
 
   // =========================
-  // ORDER aggregates
+  // ORDER aggregates (read model order_totals - V65, 1 dòng/order)
   // =========================
   public OrderAgg calcOrderAgg(UUID tenantId, UUID orderId) {
     String sql = """
             SELECT
-              COALESCE(SUM(oi.unit_price * oi.quantity), 0) AS sub_total,
-              COALESCE(SUM(COALESCE(oi.discount_amount, 0)), 0) AS discount_total
-            FROM order_items oi
-            WHERE oi.tenant_id = :tenantId
-              AND oi.order_id  = :orderId
-              AND UPPER(oi.status) <> 'VOIDED'
+              COALESCE(SUM(t.gross_amount), 0) AS sub_total,
+              COALESCE(SUM(t.item_discount), 0) AS discount_total
+            FROM order_totals t
+            WHERE t.tenant_id = :tenantId
+              AND t.order_id  = :orderId
         """;
 
     Object[] row = (Object[]) em.createNativeQuery(sql)
@@ -44,11 +43,10 @@ public class BillingCalcRepository {
 
   public BigDecimal sumPaidByOrder(UUID tenantId, UUID orderId) {
     String sql = """
-            SELECT COALESCE(SUM(p.amount), 0)
-            FROM payments p
-            WHERE p.tenant_id = :tenantId
-              AND p.order_id  = :orderId
-              AND UPPER(p.status) = 'CONFIRMED'
+            SELECT COALESCE(SUM(t.paid_confirmed), 0)
+            FROM order_totals t
+            WHERE t.tenant_id = :tenantId
+              AND t.order_id  = :orderId
         """;
 
     Object val = em.createNativeQuery(sql)
@@ -65,14 +63,13 @@ public class BillingCalcRepository {
   public GroupAgg calcGroupAgg(UUID tenantId, UUID groupId) {
     String sql = """
             SELECT
-              COALESCE(SUM(oi.unit_price * oi.quantity), 0) AS sub_total,
-              COALESCE(SUM(COALESCE(oi.discount_amount, 0)), 0) AS discount_total
+              COALESCE(SUM(t.gross_amount), 0) AS sub_total,
+              COALESCE(SUM(t.item_discount), 0) AS discount_total
             FROM billing_group_orders bgo
-            JOIN order_items oi ON oi.order_id = bgo.order_id
+            JOIN order_totals t ON t.order_id = bgo.order_id
             WHERE bgo.tenant_id = :tenantId
               AND bgo.group_id  = :groupId
-              AND oi.tenant_id  = :tenantId
-              AND UPPER(oi.status) <> 'VOIDED'
+              AND t.tenant_id   = :tenantId
         """;
 
     Object[] row = (Object[]) em.createNativeQuery(sql)
@@ -118,11 +115,11 @@ public class BillingCalcRepository {
 
   public OrderDiscountAgg getOrderDiscount(UUID tenantId, UUID orderId) {
     String sql = """
-            SELECT od.type, od.value
-            FROM order_discounts od
-            WHERE od.tenant_id = :tenantId
-              AND od.order_id  = :orderId
-            LIMIT 1
+            SELECT t.order_discount_type, t.order_discount_value
+            FROM order_totals t
+            WHERE t.tenant_id = :tenantId
+              AND t.order_id  = :orderId
+              AND t.order_discount_type IS NOT NULL
         """;
 
     var list = em.createNativeQuery(sql)
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -43,4 +44,25 @@ public interface MenuItemPriceRepository extends JpaRepository<MenuItemPriceEnti
   // ✅ NEW: fallback lấy record mới nhất
   Optional<MenuItemPriceEntity> findTopByMenuItemIdOrderByCreatedAtDesc(UUID menuItemId);
 
+  // ✅ batch: giá effective của nhiều món trong 1 query (cùng luật findEffectivePriceAt + fallback mới nhất)
+  @Query(value = """
+        SELECT DISTINCT ON (p.menu_item_id) p.*
+        FROM menu_item_prices p
+        WHERE p.menu_item_id IN (:itemIds)
+        ORDER BY p.menu_item_id,
+                 ((p.valid_from IS NULL OR p.valid_from <= :at)
+                  AND (p.valid_to IS NULL OR p.valid_to >= :at)) DESC,
+                 p.created_at DESC NULLS LAST
+      """, nativeQuery = true)
+  List<MenuItemPriceEntity> findEffectivePricesAt(
+      @Param("itemIds") Collection<UUID> itemIds,
+      @Param("at") Instant at);
+
+  // ✅ mọi dòng giá của các món thuộc outlet (MenuPriceIndex)
+  @Query("""
+          select p from MenuItemPriceEntity p
+          where p.menuItemId in (select i.id from MenuItemEntity i where i.outletId = :outletId)
+      """)
+  List<MenuItemPriceEntity> findByOutletId(@Param("outletId") UUID outletId);
+
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -53,4 +54,28 @@ public interface MenuItemRepository extends JpaRepository<MenuItemEntity, UUID>
 
   Optional<MenuItemEntity> findByIdAndOutletId(UUID id, UUID outletId);
 
+  // Batch: lấy nhiều món trong 1 outlet (addItems)
+  List<MenuItemEntity> findByOutletIdAndIdIn(UUID outletId, Collection<UUID> ids);
+
+  // KDS: mapping món -> trạm bếp của outlet (chỉ món có trạm riêng) => [menuItemId, kitchenStation]
+  @Query("""
+        select i.id, i.kitchenStation
+        from MenuItemEntity i
+        where i.outletId = :outletId
+          and i.kitchenStation is not null
+      """)
+  List<Object[]> findKitchenStationsByOutletId(@Param("outletId") UUID outletId);
+
+  // public menu snapshot: món thuộc outlet nào (evict khi ghi giá/option)
+  @Query("select i.outletId from MenuItemEntity i where i.id = :id")
+  Optional<UUID> findOutletIdById(@Param("id") UUID id);
+
+  // KDS: từ điển tên món của outlet => [menuItemId, name]
+  @Query("""
+        select i.id, i.name
+        from MenuItemEntity i
+        where i.outletId = :outletId
+      """)
+  List<Object[]> findNamesByOutletId(@Param("outletId") UUID outletId);
+
 }
@@ -3,6 +3,8 @@ package com.sassfnb.adapters.persistence.repository;
 
 import com.sassfnb.adapters.persistence.entity.MenuOptionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,4 +21,17 @@ public interface MenuOptionRepository extends JpaRepository<MenuOptionEntity, UU
     boolean existsByTenantIdAndItemIdAndNameIgnoreCase(UUID tenantId, UUID itemId, String name);
 
     List<MenuOptionEntity> findByItemIdOrderByNameAsc(UUID itemId);
+
+    // ✅ đồ thị option của outlet (MenuOptionGraphCache), 1 query:
+    // [itemId, optionId, optionName, required, selectionType, valueId, valueName, extraPrice, sortOrder]
+    @Query("""
+            select o.itemId, o.id, o.name, o.required, o.selectionType,
+                   v.id, v.name, v.extraPrice, v.sortOrder
+            from MenuOptionEntity o
+            join MenuItemEntity i on i.id = o.itemId
+            left join MenuOptionValueEntity v on v.menuOptionId = o.id
+            where i.outletId = :outletId
+            order by o.itemId, o.name, o.id, v.sortOrder asc nulls last, v.name
+            """)
+    List<Object[]> findGraphRowsByOutletId(@Param("outletId") UUID outletId);
 }
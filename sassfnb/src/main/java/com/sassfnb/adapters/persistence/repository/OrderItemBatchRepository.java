@@ -0,0 +1,161 @@
+package com.sassfnb.adapters.persistence.repository;
+
+import com.sassfnb.adapters.persistence.entity.OrderItemEntity;
+import com.sassfnb.adapters.persistence.entity.OrderItemOptionSelectionEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * JDBC batch insert cho order_items + order_item_option_selections.
+ * Caller phải tự set id (UUID) + createdAt trước khi gọi.
+ * + bulk đổi status item (bump ticket KDS) trong 1 statement.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderItemBatchRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    private static OffsetDateTime toOdt(Instant instant) {
+        if (instant == null)
+            return null;
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static BigDecimal nvl(BigDecimal v) {
+        return v == null ? BigDecimal.ZERO : v;
+    }
+
+    public int[] insertItems(List<OrderItemEntity> items) {
+        if (items == null || items.isEmpty())
+            return new int[0];
+
+        String sql = """
+                    insert into order_items (
+                        id, tenant_id, order_id, menu_item_id, price_id,
+                        quantity, unit_price, discount_amount, total_amount,
+                        status, note, created_at, updated_at
+                    ) values (
+                        :id, :tenantId, :orderId, :menuItemId, :priceId,
+                        :quantity, :unitPrice, :discountAmount, :totalAmount,
+                        :status, :note, :createdAt, :createdAt
+                    )
+                """;
+
+        SqlParameterSource[] batch = items.stream()
+                .map(i -> new MapSqlParameterSource()
+                        .addValue("id", i.getId())
+                        .addValue("tenantId", i.getTenantId())
+                        .addValue("orderId", i.getOrderId())
+                        .addValue("menuItemId", i.getMenuItemId())
+                        .addValue("priceId", i.getPriceId())
+                        .addValue("quantity", i.getQuantity())
+                        .addValue("unitPrice", nvl(i.getUnitPrice()))
+                        .addValue("discountAmount", nvl(i.getDiscountAmount()))
+                        .addValue("totalAmount", nvl(i.getTotalAmount()))
+                        .addValue("status", i.getStatus())
+                        .addValue("note", i.getNote())
+                        .addValue("createdAt", toOdt(i.getCreatedAt())))
+                .toArray(SqlParameterSource[]::new);
+
+        return jdbc.batchUpdate(sql, batch);
+    }
+
+    public int[] insertSelections(List<OrderItemOptionSelectionEntity> selections) {
+        if (selections == null || selections.isEmpty())
+            return new int[0];
+
+        String sql = """
+                    insert into order_item_option_selections (
+                        id, tenant_id, order_id, order_item_id,
+                        menu_item_id, menu_option_id, menu_option_value_id,
+                        option_name, value_name, extra_price, created_at
+                    ) values (
+                        :id, :tenantId, :orderId, :orderItemId,
+                        :menuItemId, :menuOptionId, :menuOptionValueId,
+                        :optionName, :valueName, :extraPrice, :createdAt
+                    )
+                """;
+
+        SqlParameterSource[] batch = selections.stream()
+                .map(s -> new MapSqlParameterSource()
+                        .addValue("id", s.getId())
+                        .addValue("tenantId", s.getTenantId())
+                        .addValue("orderId", s.getOrderId())
+                        .addValue("orderItemId", s.getOrderItemId())
+                        .addValue("menuItemId", s.getMenuItemId())
+                        .addValue("menuOptionId", s.getMenuOptionId())
+                        .addValue("menuOptionValueId", s.getMenuOptionValueId())
+                        .addValue("optionName", s.getOptionName())
+                        .addValue("valueName", s.getValueName())
+                        .addValue("extraPrice", nvl(s.getExtraPrice()))
+                        .addValue("createdAt", toOdt(s.getCreatedAt())))
+                .toArray(SqlParameterSource[]::new);
+
+        return jdbc.batchUpdate(sql, batch);
+    }
+
+    /**
+     * Bump nhiều item 1 statement: khóa các dòng được chọn (theo itemIds và/hoặc orderId),
+     * chỉ UPDATE dòng có status nằm trong fromStatuses, trả về mọi dòng được chọn kèm status cũ + cờ updated.
+     * Caller phải truyền ít nhất itemIds hoặc orderId.
+     */
+    public List<StatusTransitionRow> transitionStatus(UUID tenantId, UUID orderId, Collection<UUID> itemIds,
+            Collection<String> fromStatuses, String toStatus, Instant now) {
+        boolean byIds = itemIds != null && !itemIds.isEmpty();
+        if (!byIds && orderId == null)
+            return List.of();
+
+        String where = (byIds ? " and i.id in (:itemIds)" : "") + (orderId != null ? " and i.order_id = :orderId" : "");
+
+        String sql = """
+                    with req as (
+                        select i.id, i.order_id, i.status as old_status
+                        from order_items i
+                        where i.tenant_id = :tenantId
+                """ + where + """
+                        order by i.id
+                        for update
+                    ), upd as (
+                        update order_items i
+                        set status = :toStatus,
+                            updated_at = :now
+                        from req
+                        where i.id = req.id
+                          and req.old_status in (:fromStatuses)
+                        returning i.id
+                    )
+                    select req.id, req.order_id, req.old_status, (upd.id is not null) as updated
+                    from req
+                    left join upd on upd.id = req.id
+                """;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("fromStatuses", fromStatuses)
+                .addValue("toStatus", toStatus)
+                .addValue("now", toOdt(now));
+        if (byIds)
+            params.addValue("itemIds", itemIds);
+        if (orderId != null)
+            params.addValue("orderId", orderId);
+
+        return jdbc.query(sql, params, (rs, i) -> new StatusTransitionRow(
+                rs.getObject("id", UUID.class),
+                rs.getObject("order_id", UUID.class),
+                rs.getString("old_status"),
+                rs.getBoolean("updated")));
+    }
+
+    public record StatusTransitionRow(UUID itemId, UUID orderId, String oldStatus, boolean updated) {
+    }
+}
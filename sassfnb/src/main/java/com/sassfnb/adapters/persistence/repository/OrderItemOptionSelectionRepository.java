@@ -3,6 +3,7 @@ package com.sassfnb.adapters.persistence.repository;
 import com.sassfnb.adapters.persistence.entity.OrderItemOptionSelectionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,6 +13,8 @@ public interface OrderItemOptionSelectionRepository extends JpaRepository<OrderI
 
     List<OrderItemOptionSelectionEntity> findByOrderItemIdOrderByCreatedAtAsc(UUID orderItemId);
 
+    List<OrderItemOptionSelectionEntity> findByOrderItemIdInOrderByCreatedAtAsc(Collection<UUID> orderItemIds);
+
     void deleteByOrderItemId(UUID orderItemId);
 
     void deleteByOrderId(UUID orderId);
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,18 +19,21 @@ public interface OrderItemRepository extends JpaRepository<OrderItemEntity, UUID
 
         Optional<OrderItemEntity> findByIdAndOrderId(UUID id, UUID orderId);
 
+        // delta response: chỉ load các item vừa đổi
+        List<OrderItemEntity> findByOrderIdAndIdInOrderByCreatedAtAsc(UUID orderId, Collection<UUID> ids);
+
         /**
-         * KDS query (MVP): lọc theo tenant + outlet, since, statuses.
-         * statuses phải là list không rỗng.
+         * KDS query: lọc theo tenant + outlet, since, statuses.
+         * statuses phải là list không rỗng, UPPERCASE (check constraint) => dùng được
+         * idx_oit_outlet_status_created.
          */
         @Query("""
                             select oi
                             from OrderItemEntity oi
-                            join OrderEntity o on o.id = oi.orderId
-                            where o.tenantId = :tenantId
-                              and o.outletId = :outletId
+                            where oi.outletId = :outletId
+                              and oi.tenantId = :tenantId
+                              and oi.status in :statuses
                               and oi.createdAt >= :since
-                              and upper(oi.status) in :statuses
                             order by oi.createdAt
                         """)
         List<OrderItemEntity> findKdsItems(
@@ -38,6 +42,34 @@ public interface OrderItemRepository extends JpaRepository<OrderItemEntity, UUID
                         @Param("since") Instant since,
                         @Param("statuses") List<String> statuses);
 
+        /**
+         * KDS change-feed: item đã lên bếp (khác NEW) có (change_txid, id) > cursor, theo
+         * idx_oit_outlet_change_txid. xmin: chỉ đọc transaction đã kết thúc (txid < xmin của snapshot)
+         * => transaction commit muộn không thể chen vào sau cursor.
+         */
+        @Query(value = """
+                            select oi.*
+                            from order_items oi
+                            where oi.outlet_id = :outletId
+                              and oi.tenant_id = :tenantId
+                              and (oi.change_txid, oi.id) > (:cursorTxid, :cursorId)
+                              and oi.change_txid < :xmin
+                              and oi.status <> 'NEW'
+                            order by oi.change_txid, oi.id
+                            limit :limit
+                        """, nativeQuery = true)
+        List<OrderItemEntity> findKdsChanges(
+                        @Param("tenantId") UUID tenantId,
+                        @Param("outletId") UUID outletId,
+                        @Param("cursorTxid") long cursorTxid,
+                        @Param("cursorId") UUID cursorId,
+                        @Param("xmin") long xmin,
+                        @Param("limit") int limit);
+
+        /** txid nhỏ nhất còn đang chạy: mọi txid nhỏ hơn đã commit/rollback xong */
+        @Query(value = "select pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+        long currentSnapshotXmin();
+
         @Query("""
                             select coalesce(sum(i.totalAmount), 0)
                             from OrderItemEntity i
@@ -76,4 +108,98 @@ public interface OrderItemRepository extends JpaRepository<OrderItemEntity, UUID
                         @Param("fromStatus") String fromStatus,
                         @Param("toStatus") String toStatus,
                         @Param("now") Instant now);
+
+        // =========================
+        // ✅ BULK UPDATE theo danh sách id (fire 1 phần order)
+        // status luôn UPPERCASE (ck_order_items_status) => so sánh trực tiếp
+        // =========================
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
+        @Query("""
+                            update OrderItemEntity i
+                            set i.status = :toStatus,
+                                i.updatedAt = :now
+                            where i.orderId = :orderId
+                              and i.id in :ids
+                              and i.status = :fromStatus
+                        """)
+        int bulkUpdateStatusByOrderIdAndIdsAndStatus(
+                        @Param("orderId") UUID orderId,
+                        @Param("ids") Collection<UUID> ids,
+                        @Param("fromStatus") String fromStatus,
+                        @Param("toStatus") String toStatus,
+                        @Param("now") Instant now);
+
+        List<OrderItemEntity> findByOrderIdInOrderByCreatedAtAsc(Collection<UUID> orderIds);
+
+        // ✅ BULK UPDATE nhiều order 1 statement (submit-batch)
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
+        @Query("""
+                            update OrderItemEntity i
+                            set i.status = :toStatus,
+                                i.updatedAt = :now
+                            where i.orderId in :orderIds
+                              and i.status = :fromStatus
+                        """)
+        int bulkUpdateStatusByOrderIdsAndStatus(
+                        @Param("orderIds") Collection<UUID> orderIds,
+                        @Param("fromStatus") String fromStatus,
+                        @Param("toStatus") String toStatus,
+                        @Param("now") Instant now);
+
+        // [orderId, tổng item, số item có status = :status]
+        @Query("""
+                            select i.orderId, count(i), sum(case when i.status = :status then 1 else 0 end)
+                            from OrderItemEntity i
+                            where i.orderId in :orderIds
+                            group by i.orderId
+                        """)
+        List<Object[]> countItemsByOrderIds(
+                        @Param("orderIds") Collection<UUID> orderIds,
+                        @Param("status") String status);
+
+        // ✅ BULK UPDATE mọi item của order trừ các status cho trước (void order)
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
+        @Query("""
+                            update OrderItemEntity i
+                            set i.status = :toStatus,
+                                i.updatedAt = :now
+                            where i.orderId = :orderId
+                              and i.status not in :excludedStatuses
+                        """)
+        int bulkUpdateStatusByOrderIdExcludingStatuses(
+                        @Param("orderId") UUID orderId,
+                        @Param("excludedStatuses") Collection<String> excludedStatuses,
+                        @Param("toStatus") String toStatus,
+                        @Param("now") Instant now);
+
+        @Query("""
+                            select i.id
+                            from OrderItemEntity i
+                            where i.orderId = :orderId
+                              and i.status = :status
+                            order by i.createdAt
+                        """)
+        List<UUID> findIdsByOrderIdAndStatus(
+                        @Param("orderId") UUID orderId,
+                        @Param("status") String status);
+
+        @Query("""
+                            select i.id
+                            from OrderItemEntity i
+                            where i.orderId in :orderIds
+                              and i.status = :status
+                        """)
+        List<UUID> findIdsByOrderIdsAndStatus(
+                        @Param("orderIds") Collection<UUID> orderIds,
+                        @Param("status") String status);
+
+        @Query("""
+                            select i.id
+                            from OrderItemEntity i
+                            where i.orderId = :orderId
+                              and i.status not in :excludedStatuses
+                        """)
+        List<UUID> findIdsByOrderIdExcludingStatuses(
+                        @Param("orderId") UUID orderId,
+                        @Param("excludedStatuses") Collection<String> excludedStatuses);
 }
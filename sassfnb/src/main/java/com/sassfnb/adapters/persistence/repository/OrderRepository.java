@@ -2,10 +2,13 @@
 package com.sassfnb.adapters.persistence.repository;
 
 import com.sassfnb.adapters.persistence.entity.OrderEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,4 +39,20 @@ public interface OrderRepository extends JpaRepository<OrderEntity, UUID>, Order
 
     Optional<OrderEntity> findByTenantIdAndOutletIdAndPaymentCode(UUID tenantId, UUID outletId, String paymentCode);
 
+    // ✅ revision hiện tại (do trigger bump) - đọc thẳng DB, không qua entity cache
+    @Query("select o.revision from OrderEntity o where o.id = :id")
+    Optional<Long> findRevisionById(@Param("id") UUID id);
+
+    // ✅ revision của nhiều order => [orderId, revision] (SSE báo khách sau commit)
+    @Query("select o.id, o.revision from OrderEntity o where o.id in :ids")
+    List<Object[]> findRevisionsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // ✅ thêm/xoá món: version +1 lúc commit => 2 request ghi song song, request commit sau bị conflict
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select o from OrderEntity o where o.id = :id")
+    Optional<OrderEntity> findForWriteById(@Param("id") UUID id);
+
+    @Query("select o.outletId from OrderEntity o where o.id = :id")
+    Optional<UUID> findOutletIdById(@Param("id") UUID id);
+
 }
@@ -5,8 +5,17 @@ import com.sassfnb.adapters.persistence.entity.OrderEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface OrderRepositoryCustom {
     Page<OrderEntity> search(UUID outletId, String status, UUID tableId, String q, Pageable pageable);
+
+    /**
+     * Keyset: order by created_at desc, id desc; cursor = (createdAt, id) của dòng cuối trang trước.
+     * status phải UPPERCASE (so sánh trực tiếp để dùng index).
+     */
+    List<OrderEntity> searchKeyset(UUID tenantId, UUID outletId, String status, UUID tableId, String q,
+            Instant cursorCreatedAt, UUID cursorId, int limit);
 }
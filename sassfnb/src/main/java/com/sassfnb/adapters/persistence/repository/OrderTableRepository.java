@@ -2,7 +2,11 @@ package com.sassfnb.adapters.persistence.repository;
 
 import com.sassfnb.adapters.persistence.entity.OrderTableEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,4 +27,14 @@ public interface OrderTableRepository extends JpaRepository<OrderTableEntity, UU
     void deleteByOrderId(UUID orderId);
 
     void deleteByTableId(UUID tableId);
+
+    // detach = set unlinked_at cho mọi mapping active của order (1 statement)
+    @Modifying
+    @Query("""
+                update OrderTableEntity m
+                set m.unlinkedAt = :now
+                where m.orderId = :orderId
+                  and m.unlinkedAt is null
+            """)
+    int unlinkActiveByOrderId(@Param("orderId") UUID orderId, @Param("now") Instant now);
 }
@@ -0,0 +1,19 @@
+package com.sassfnb.adapters.persistence.repository;
+
+import com.sassfnb.adapters.persistence.entity.OrderTotalsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OrderTotalsRepository extends JpaRepository<OrderTotalsEntity, UUID> {
+
+    Optional<OrderTotalsEntity> findByOrderIdAndTenantId(UUID orderId, UUID tenantId);
+
+    // ✅ so order_totals với SUM thật (order đổi từ :since), sửa dòng lệch; trả về số order đã sửa
+    @Query(value = "select public.fn_order_totals_reconcile(:since)", nativeQuery = true)
+    Integer reconcileSince(@Param("since") OffsetDateTime since);
+}
@@ -5,6 +5,8 @@ import com.sassfnb.adapters.persistence.entity.TableEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,4 +27,12 @@ public interface TableRepository extends JpaRepository<TableEntity, UUID> {
 
     // ✅ dùng cho Billing prepareGroup / pick tables
     List<TableEntity> findByOutletIdAndDeletedFalse(UUID outletId);
+
+    // KDS: từ điển tên bàn của outlet (kể cả bàn đã xóa mềm) => [tableId, code, groupCode]
+    @Query("""
+            select t.id, t.code, t.groupCode
+            from TableEntity t
+            where t.outletId = :outletId
+            """)
+    List<Object[]> findCodesByOutletId(@Param("outletId") UUID outletId);
 }
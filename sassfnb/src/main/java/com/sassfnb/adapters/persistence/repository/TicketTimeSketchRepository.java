@@ -0,0 +1,168 @@
+package com.sassfnb.adapters.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Bucket sketch thời gian ra món (kitchen_ticket_time_sketches) + các lookup nhỏ để cộng dồn sau mỗi batch history.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TicketTimeSketchRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /** Mốc FIRED/READY gần nhất của từng item (index idx_oish_item_changed) */
+    public List<StatusAtRow> fetchStatusTimes(Collection<UUID> itemIds, Collection<String> statuses) {
+        if (itemIds == null || itemIds.isEmpty())
+            return List.of();
+
+        String sql = """
+                    select h.order_item_id, h.status, max(h.changed_at) as changed_at
+                    from order_item_status_history h
+                    where h.order_item_id in (:itemIds)
+                      and h.status in (:statuses)
+                    group by h.order_item_id, h.status
+                """;
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("itemIds", itemIds);
+        params.put("statuses", statuses);
+
+        return jdbc.query(sql, params, (rs, i) -> new StatusAtRow(
+                rs.getObject("order_item_id", UUID.class),
+                rs.getString("status"),
+                rs.getTimestamp("changed_at").toInstant()));
+    }
+
+    public record StatusAtRow(UUID itemId, String status, Instant at) {
+    }
+
+    public List<ItemRefRow> fetchItemRefs(Collection<UUID> itemIds) {
+        if (itemIds == null || itemIds.isEmpty())
+            return List.of();
+
+        String sql = """
+                    select oi.id, oi.outlet_id, oi.menu_item_id
+                    from order_items oi
+                    where oi.id in (:itemIds)
+                """;
+
+        return jdbc.query(sql, Map.of("itemIds", itemIds), (rs, i) -> new ItemRefRow(
+                rs.getObject("id", UUID.class),
+                rs.getObject("outlet_id", UUID.class),
+                rs.getObject("menu_item_id", UUID.class)));
+    }
+
+    public record ItemRefRow(UUID itemId, UUID outletId, UUID menuItemId) {
+    }
+
+    /**
+     * Cộng dồn count theo bucket. Caller truyền deltas đã sort theo khóa
+     * => nhiều node upsert cùng lúc luôn khóa dòng theo cùng thứ tự (không deadlock).
+     */
+    public int[] increment(List<BucketDelta> deltas) {
+        if (deltas == null || deltas.isEmpty())
+            return new int[0];
+
+        String sql = """
+                    insert into kitchen_ticket_time_sketches (
+                        tenant_id, outlet_id, business_date, metric, dim_type, dim_key, bucket, cnt
+                    ) values (
+                        :tenantId, :outletId, :businessDate, :metric, :dimType, :dimKey, :bucket, :cnt
+                    )
+                    on conflict (tenant_id, outlet_id, metric, dim_type, business_date, dim_key, bucket)
+                    do update set cnt = kitchen_ticket_time_sketches.cnt + excluded.cnt
+                """;
+
+        SqlParameterSource[] batch = deltas.stream()
+                .map(d -> new MapSqlParameterSource()
+                        .addValue("tenantId", d.tenantId())
+                        .addValue("outletId", d.outletId())
+                        .addValue("businessDate", d.businessDate())
+                        .addValue("metric", d.metric())
+                        .addValue("dimType", d.dimType())
+                        .addValue("dimKey", d.dimKey())
+                        .addValue("bucket", d.bucket())
+                        .addValue("cnt", d.count()))
+                .toArray(SqlParameterSource[]::new);
+
+        return jdbc.batchUpdate(sql, batch);
+    }
+
+    public record BucketDelta(
+            UUID tenantId,
+            UUID outletId,
+            LocalDate businessDate,
+            String metric,
+            String dimType,
+            String dimKey,
+            int bucket,
+            long count) implements Comparable<BucketDelta> {
+
+        private static final Comparator<BucketDelta> ORDER = Comparator
+                .comparing(BucketDelta::tenantId)
+                .thenComparing(BucketDelta::outletId)
+                .thenComparing(BucketDelta::metric)
+                .thenComparing(BucketDelta::dimType)
+                .thenComparing(BucketDelta::businessDate)
+                .thenComparing(BucketDelta::dimKey)
+                .thenComparingInt(BucketDelta::bucket);
+
+        @Override
+        public int compareTo(BucketDelta o) {
+            return ORDER.compare(this, o);
+        }
+    }
+
+    /** Bucket đã gộp các ngày trong khoảng, theo dim_key */
+    public List<BucketRow> fetchBuckets(UUID tenantId, UUID outletId, LocalDate fromDate, LocalDate toDate,
+            String metric, String dimType) {
+        String sql = """
+                    select s.dim_key, s.bucket, sum(s.cnt) as cnt
+                    from kitchen_ticket_time_sketches s
+                    where s.tenant_id = :tenantId
+                      and s.outlet_id = :outletId
+                      and s.metric = :metric
+                      and s.dim_type = :dimType
+                      and s.business_date between :fromDate and :toDate
+                    group by s.dim_key, s.bucket
+                """;
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("tenantId", tenantId);
+        params.put("outletId", outletId);
+        params.put("metric", metric);
+        params.put("dimType", dimType);
+        params.put("fromDate", fromDate);
+        params.put("toDate", toDate);
+
+        return jdbc.query(sql, params, (rs, i) -> new BucketRow(
+                rs.getString("dim_key"),
+                rs.getInt("bucket"),
+                rs.getLong("cnt")));
+    }
+
+    public record BucketRow(String dimKey, int bucket, long count) {
+    }
+
+    public Map<UUID, String> fetchMenuItemNames(Collection<UUID> menuItemIds) {
+        if (menuItemIds == null || menuItemIds.isEmpty())
+            return Map.of();
+
+        Map<UUID, String> out = new HashMap<>();
+        jdbc.query("select mi.id, mi.name from menu_items mi where mi.id in (:ids)",
+                Map.of("ids", menuItemIds),
+                rs -> {
+                    out.put(rs.getObject("id", UUID.class), rs.getString("name"));
+                });
+        return out;
+    }
+}
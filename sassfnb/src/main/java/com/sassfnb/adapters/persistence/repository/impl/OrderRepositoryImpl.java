@@ -4,6 +4,7 @@ package com.sassfnb.adapters.persistence.repository.impl;
 import com.sassfnb.adapters.persistence.entity.OrderEntity;
 import com.sassfnb.adapters.persistence.repository.OrderRepositoryCustom;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -11,6 +12,7 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.*;
 
 @Repository
@@ -65,4 +67,50 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
 
         return new PageImpl<>(content, pageable, total);
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<OrderEntity> searchKeyset(UUID tenantId, UUID outletId, String status, UUID tableId, String q,
+            Instant cursorCreatedAt, UUID cursorId, int limit) {
+        if (outletId == null)
+            throw new IllegalArgumentException("outletId is required");
+
+        // native: row comparison (created_at, id) < (...) => index range scan, không offset
+        StringBuilder sql = new StringBuilder("""
+                select o.* from orders o
+                where o.tenant_id = :tenantId
+                  and o.outlet_id = :outletId
+                """);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("tenantId", tenantId);
+        params.put("outletId", outletId);
+
+        if (status != null && !status.isBlank()) {
+            sql.append(" and o.status = :status");
+            params.put("status", status);
+        }
+        if (tableId != null) {
+            sql.append(" and o.table_id = :tableId");
+            params.put("tableId", tableId);
+        }
+        if (q != null && !q.isBlank()) {
+            // lower(note) khớp idx_orders_note_trgm (nếu có pg_trgm)
+            sql.append(" and lower(o.note) like lower(:q)");
+            params.put("q", "%" + q.trim() + "%");
+        }
+        if (cursorCreatedAt != null && cursorId != null) {
+            sql.append(" and (o.created_at, o.id) < (:cursorCreatedAt, :cursorId)");
+            params.put("cursorCreatedAt", cursorCreatedAt);
+            params.put("cursorId", cursorId);
+        }
+
+        sql.append(" order by o.created_at desc, o.id desc");
+
+        Query query = em.createNativeQuery(sql.toString(), OrderEntity.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+
+        return query.getResultList();
+    }
 }
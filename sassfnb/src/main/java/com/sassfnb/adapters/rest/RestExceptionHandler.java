@@ -1,7 +1,9 @@
 package com.sassfnb.adapters.rest;
 
+import com.sassfnb.application.exception.ConflictException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -20,6 +22,13 @@ public class RestExceptionHandler {
                 .body(new ApiError("ILLEGAL_STATE", ex.getMessage()));
     }
 
+    // ✅ optimistic lock hết lượt retry / Idempotency-Key dùng sai
+    @ExceptionHandler({ ConflictException.class, ObjectOptimisticLockingFailureException.class })
+    public ResponseEntity<ApiError> handleConflict(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiError("CONFLICT", ex.getMessage()));
+    }
+
     public record ApiError(String code, String message) {
     }
 }
@@ -2,6 +2,7 @@ package com.sassfnb.adapters.rest.controller;
 
 import com.sassfnb.adapters.rest.dto.billing.CloseDtos.*;
 import com.sassfnb.application.service.BillingCloseService;
+import com.sassfnb.common.concurrency.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -17,12 +18,12 @@ public class BillingCloseController {
     @PostMapping("/api/v1/orders/{orderId}/close")
     @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
     public CloseResponse closeOrder(@PathVariable UUID orderId) {
-        return billingCloseService.closeOrder(orderId);
+        return OptimisticRetry.run(() -> billingCloseService.closeOrder(orderId));
     }
 
     @PostMapping("/api/v1/billing/groups/{groupId}/close")
     @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
     public CloseResponse closeGroup(@PathVariable UUID groupId) {
-        return billingCloseService.closeGroup(groupId);
+        return OptimisticRetry.run(() -> billingCloseService.closeGroup(groupId));
     }
 }
@@ -1,13 +1,19 @@
 // src/main/java/com/sassfnb/adapters/rest/controller/KdsController.java
 package com.sassfnb.adapters.rest.controller;
 
+import com.sassfnb.adapters.cache.KdsResponseCoalescer;
+import com.sassfnb.adapters.cache.KitchenStationCache;
+import com.sassfnb.adapters.messaging.KdsStreamHub;
 import com.sassfnb.adapters.rest.dto.kds.KdsDtos.*;
 import com.sassfnb.application.ports.TenantResolver;
 import com.sassfnb.application.service.KdsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Instant;
 import java.util.List;
@@ -20,22 +26,28 @@ public class KdsController {
 
     private final KdsService kdsService;
     private final TenantResolver tenantResolver;
+    private final KdsStreamHub streamHub;
+    private final KdsResponseCoalescer coalescer;
 
     /**
      * Bếp/bar xem items cần làm
      *
      * FE gọi:
      * GET /api/v1/kds/boards?since=...&status=FIRED&status=IN_PROGRESS
+     * GET /api/v1/kds/boards?station=BAR -> chỉ món của trạm BAR
      *
      * Context:
      * - tenantId: lấy từ JWT (SecurityContext) qua TenantResolver.currentTenantId()
      * - outletId: ưu tiên query param nếu truyền, nếu không lấy từ header
      * X-Outlet-Id
+     *
+     * Nhiều màn hình cùng filter => dùng chung 1 lần tính + JSON cache ngắn (KdsResponseCoalescer)
      */
-    @GetMapping("/boards")
+    @GetMapping(value = "/boards", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
-    public KdsBoardsResponse boards(
+    public ResponseEntity<byte[]> boards(
             @RequestParam(required = false) UUID outletId,
+            @RequestParam(required = false) String station,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
             @RequestParam(required = false) List<String> status) {
         UUID tenantId = tenantResolver.currentTenantId();
@@ -47,7 +59,82 @@ public class KdsController {
         // (Optional) nếu bạn muốn đảm bảo FE đang gửi restaurant/outlet hợp lệ:
         // UUID restaurantId = tenantResolver.currentRestaurantId();
 
-        return kdsService.getBoards(tenantId, resolvedOutletId, since, status);
+        String stationKey = stationKey(station);
+        byte[] json = coalescer.get(KdsResponseCoalescer.KIND_BOARDS, tenantId, resolvedOutletId, stationKey, since,
+                status, () -> kdsService.getBoards(tenantId, resolvedOutletId, stationKey, since, status));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    /**
+     * Board dạng ticket: món gom theo order, ticket sắp theo ưu tiên (priorityAt tăng dần)
+     *
+     * FE gọi:
+     * GET /api/v1/kds/tickets?station=GRILL&status=FIRED&status=IN_PROGRESS
+     */
+    @GetMapping(value = "/tickets", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
+    public ResponseEntity<byte[]> tickets(
+            @RequestParam(required = false) UUID outletId,
+            @RequestParam(required = false) String station,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+            @RequestParam(required = false) List<String> status) {
+        UUID tenantId = tenantResolver.currentTenantId();
+        UUID resolvedOutletId = (outletId != null) ? outletId : tenantResolver.currentOutletId();
+        String stationKey = stationKey(station);
+        byte[] json = coalescer.get(KdsResponseCoalescer.KIND_TICKETS, tenantId, resolvedOutletId, stationKey, since,
+                status, () -> kdsService.getTickets(tenantId, resolvedOutletId, stationKey, since, status));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    /** "bar " / "BAR" => cùng 1 key coalescing; blank => cả bếp */
+    private static String stationKey(String station) {
+        return (station == null || station.isBlank()) ? null : KitchenStationCache.normalize(station);
+    }
+
+    /**
+     * Change-feed cho client poll: item đổi (kể cả SERVED/VOIDED) sau cursor.
+     *
+     * FE gọi:
+     * GET /api/v1/kds/changes -> chỉ nextCursor (điểm bắt đầu), sau đó GET /boards lấy board ban đầu
+     * GET /api/v1/kds/changes?cursor=... -> chỉ các dòng đổi từ lần trước (hasMore => gọi tiếp ngay)
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
+    public KdsChangesResponse changes(
+            @RequestParam(required = false) UUID outletId,
+            @RequestParam(required = false) String station,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        UUID tenantId = tenantResolver.currentTenantId();
+        UUID resolvedOutletId = (outletId != null) ? outletId : tenantResolver.currentOutletId();
+        return kdsService.getChanges(tenantId, resolvedOutletId, station, cursor, limit);
+    }
+
+    /**
+     * SSE board bếp (thay cho poll /boards):
+     * event "snapshot" = cả board, sau đó chỉ "delta" (upserts + removedItemIds).
+     * Reconnect: gửi Last-Event-ID (hoặc ?lastSeq=) => server replay delta bị lỡ, hết buffer thì snapshot lại.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
+    public SseEmitter stream(
+            @RequestParam(required = false) UUID outletId,
+            @RequestParam(required = false) String station,
+            @RequestParam(required = false) Long lastSeq,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        UUID tenantId = tenantResolver.currentTenantId();
+        UUID resolvedOutletId = (outletId != null) ? outletId : tenantResolver.currentOutletId();
+
+        Long resumeFrom = lastSeq;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                resumeFrom = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ignored) {
+                resumeFrom = null; // id lạ => snapshot lại
+            }
+        }
+
+        return streamHub.subscribe(tenantId, resolvedOutletId, station, resumeFrom);
     }
 
     /**
@@ -61,6 +148,19 @@ public class KdsController {
         return kdsService.patchItemStatus(itemId, req);
     }
 
+    /**
+     * Bump cả ticket: 1 request + 1 UPDATE thay vì PATCH từng item.
+     *
+     * FE gọi:
+     * POST /api/v1/kds/items/status {"orderId": "...", "status": "READY"}
+     * POST /api/v1/kds/items/status {"itemIds": ["...", "..."], "status": "READY"}
+     */
+    @PostMapping("/items/status")
+    @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
+    public BulkKdsItemStatusResponse bulkStatus(@RequestBody BulkKdsItemStatusRequest req) {
+        return kdsService.bulkItemStatus(tenantResolver.currentTenantId(), req);
+    }
+
     // Nếu bạn có endpoint served:
     // @PostMapping("/orders/{orderId}/items/{itemId}/served")
     // ...
@@ -3,6 +3,7 @@ package com.sassfnb.adapters.rest.controller;
 
 import com.sassfnb.adapters.rest.dto.order.OrderDtos.*;
 import com.sassfnb.application.service.OrderWorkflowService;
+import com.sassfnb.common.concurrency.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -33,6 +34,6 @@ public class OrderPaymentController {
     public CloseOrderResponse finalizeOrder(
             @PathVariable UUID orderId,
             @RequestBody(required = false) CloseOrderRequest req) {
-        return workflow.close(orderId, req);
+        return OptimisticRetry.run(() -> workflow.close(orderId, req));
     }
 }
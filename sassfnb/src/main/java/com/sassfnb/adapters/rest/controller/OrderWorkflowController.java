@@ -4,6 +4,7 @@ import com.sassfnb.adapters.rest.dto.kds.KdsDtos.PatchKdsItemStatusResponse;
 import com.sassfnb.adapters.rest.dto.order.OrderDtos.*;
 import com.sassfnb.application.service.KdsService;
 import com.sassfnb.application.service.OrderWorkflowService;
+import com.sassfnb.common.concurrency.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -31,7 +32,7 @@ public class OrderWorkflowController {
     @PostMapping("/{orderId}/submit")
     @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER','STAFF')")
     public SubmitOrderResponse submit(@PathVariable UUID orderId) {
-        return workflowService.submit(orderId);
+        return OptimisticRetry.run(() -> workflowService.submit(orderId));
     }
 
     /**
@@ -42,7 +43,7 @@ public class OrderWorkflowController {
     public ReopenOrderResponse reopen(
             @PathVariable UUID orderId,
             @RequestBody(required = false) ReopenOrderRequest req) {
-        return workflowService.reopen(orderId, req);
+        return OptimisticRetry.run(() -> workflowService.reopen(orderId, req));
     }
 
     // =========================
@@ -85,7 +86,7 @@ public class OrderWorkflowController {
     public OrderResponse voidOrder(
             @PathVariable UUID orderId,
             @RequestBody(required = false) VoidOrderRequest req) {
-        return workflowService.voidOrder(orderId, req);
+        return OptimisticRetry.run(() -> workflowService.voidOrder(orderId, req));
     }
 
     // =========================
@@ -100,7 +101,7 @@ public class OrderWorkflowController {
     public OrderResponse patchNote(
             @PathVariable UUID orderId,
             @RequestBody PatchOrderNoteRequest req) {
-        return workflowService.patchNote(orderId, req);
+        return OptimisticRetry.run(() -> workflowService.patchNote(orderId, req));
     }
 
     // kds
@@ -1,12 +1,21 @@
 package com.sassfnb.adapters.rest.controller;
 
+import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.PublicMenuPayload;
 import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.PublicMenuTreeResponse;
+import com.sassfnb.application.config.CacheProperties;
 import com.sassfnb.application.service.PublicMenuService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
@@ -15,14 +24,100 @@ import java.util.UUID;
 public class PublicMenuController {
 
     private final PublicMenuService service;
+    private final CacheProperties cacheProps;
 
     // ✅ GET /api/v1/public/menu/tree?orderId=...
     // (optional) &at=2026-01-14T12:00:00Z
+    // không có at => JSON/gzip dựng sẵn + ETag (If-None-Match khớp => 304)
     @GetMapping("/tree")
-    public PublicMenuTreeResponse tree(
+    public ResponseEntity<?> tree(
             @RequestParam(required = false) UUID orderId,
             @RequestParam(required = false) UUID outletId,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at) {
-        return service.tree(orderId, outletId, at);
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (at != null) {
+            PublicMenuTreeResponse res = service.tree(orderId, outletId, at);
+            return ResponseEntity.ok(res);
+        }
+
+        PublicMenuPayload payload = service.currentPayload(orderId, outletId);
+        boolean gzip = acceptsGzip(acceptEncoding) && payload.gzip().length < payload.json().length;
+
+        // strong ETag theo từng content-coding (bytes gzip khác bytes json)
+        String etag = gzip ? gzipEtag(payload.etag()) : payload.etag();
+
+        if (matches(ifNoneMatch, payload.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl(payload))
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (gzip)
+            ok.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        return ok.eTag(etag)
+                .cacheControl(cacheControl(payload))
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(gzip ? payload.gzip() : payload.json());
+    }
+
+    // max-age không vượt quá lúc giá có lịch kế tiếp đổi
+    private CacheControl cacheControl(PublicMenuPayload payload) {
+        long maxAge = cacheProps.getPublicMenuMaxAgeSeconds();
+        if (payload.validUntil() != null) {
+            long untilChange = Duration.between(Instant.now(), payload.validUntil()).getSeconds();
+            maxAge = Math.max(0, Math.min(maxAge, untilChange));
+        }
+        return CacheControl.maxAge(Duration.ofSeconds(maxAge))
+                .cachePublic()
+                .staleWhileRevalidate(Duration.ofSeconds(cacheProps.getPublicMenuStaleSeconds()));
+    }
+
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    /** If-None-Match: "*", danh sách, hoặc W/"..." (so sánh weak theo RFC 9110) */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank())
+            return false;
+
+        for (String raw : ifNoneMatch.split(",")) {
+            String tag = raw.trim();
+            if (tag.equals("*"))
+                return true;
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals(etag) || tag.equals(gzipEtag(etag)))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equals("gzip") && !coding.equals("*"))
+                continue;
+
+            boolean refused = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String p = tokens[i].replace(" ", "");
+                if (p.startsWith("q=") && p.substring(2).matches("0(\\.0*)?"))
+                    refused = true;
+            }
+            if (!refused)
+                return true;
+        }
+        return false;
     }
 }
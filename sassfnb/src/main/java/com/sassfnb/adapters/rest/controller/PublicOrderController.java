@@ -1,12 +1,22 @@
 package com.sassfnb.adapters.rest.controller;
 
+import com.sassfnb.adapters.cache.IdempotencyStore;
+import com.sassfnb.adapters.messaging.OrderStreamHub;
 import com.sassfnb.adapters.rest.dto.publicorder.PublicOrderDtos.*;
 import com.sassfnb.application.service.PublicOrderService;
+import com.sassfnb.common.concurrency.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/v1/public/orders")
@@ -14,30 +24,126 @@ import java.util.UUID;
 public class PublicOrderController {
 
     private final PublicOrderService service;
+    private final OrderStreamHub streamHub;
+    private final IdempotencyStore idempotencyStore;
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     @PostMapping
-    public OrderResponse create(@RequestBody CreateOrderRequest req) {
-        return service.createOrder(req);
+    public OrderResponse create(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idemKey,
+            @RequestBody CreateOrderRequest req) {
+        // key của khách chỉ có nghĩa trong phiên QR/bàn của họ
+        String scope = req == null ? "create" : "create:" + req.outletId() + ":" + req.qrSessionId() + ":" + req.tableId();
+        return idempotent(idemKey, scope, req, () -> service.createOrder(req));
     }
 
     @PostMapping("/{orderId}/items")
-    public OrderResponse addItems(@PathVariable UUID orderId, @RequestBody List<AddItemRequest> items) {
-        return service.addItems(orderId, items);
+    public OrderResponse addItems(@PathVariable UUID orderId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idemKey,
+            @RequestBody List<AddItemRequest> items) {
+        return idempotent(idemKey, "addItems:" + orderId, items, () -> service.addItems(orderId, items));
     }
 
     @PatchMapping("/{orderId}/items/{itemId}")
     public OrderResponse patchItem(@PathVariable UUID orderId, @PathVariable UUID itemId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idemKey,
             @RequestBody PatchItemRequest req) {
-        return service.patchItem(orderId, itemId, req);
+        return idempotent(idemKey, "patchItem:" + itemId, req, () -> service.patchItem(orderId, itemId, req));
     }
 
     @DeleteMapping("/{orderId}/items/{itemId}")
-    public OrderResponse deleteItem(@PathVariable UUID orderId, @PathVariable UUID itemId) {
-        return service.deleteItem(orderId, itemId);
+    public OrderResponse deleteItem(@PathVariable UUID orderId, @PathVariable UUID itemId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idemKey) {
+        return idempotent(idemKey, "deleteItem:" + itemId, null, () -> service.deleteItem(orderId, itemId));
+    }
+
+    // =========================
+    // Delta: ?view=delta => chỉ trả item vừa đổi + totals + revision
+    // (client đang giữ order tự merge, không cần tải lại cả order)
+    // =========================
+    @PostMapping(value = "/{orderId}/items", params = "view=delta")
+    public OrderDeltaResponse addItemsDelta(@PathVariable UUID orderId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idemKey,
+            @RequestBody List<AddItemRequest> items) {
+        return idempotent(idemKey, "addItemsDelta:" + orderId, items, () -> service.addItemsDelta(orderId, items));
     }
 
+    @PatchMapping(value = "/{orderId}/items/{itemId}", params = "view=delta")
+    public OrderDeltaResponse patchItemDelta(@PathVariable UUID orderId, @PathVariable UUID itemId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idemKey,
+            @RequestBody PatchItemRequest req) {
+        return idempotent(idemKey, "patchItemDelta:" + itemId, req,
+                () -> service.patchItemDelta(orderId, itemId, req));
+    }
+
+    @DeleteMapping(value = "/{orderId}/items/{itemId}", params = "view=delta")
+    public OrderDeltaResponse deleteItemDelta(@PathVariable UUID orderId, @PathVariable UUID itemId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idemKey) {
+        return idempotent(idemKey, "deleteItemDelta:" + itemId, null,
+                () -> service.deleteItemDelta(orderId, itemId));
+    }
+
+    /**
+     * Poll order (FE gọi mỗi vài giây).
+     * ETag = revision của order; If-None-Match khớp => 304, chỉ đọc 1 cột orders.revision.
+     * Cache-Control: no-cache => browser tự gửi If-None-Match ở lần poll sau.
+     */
     @GetMapping("/{orderId}")
-    public OrderResponse get(@PathVariable UUID orderId) {
-        return service.getOrder(orderId);
+    public ResponseEntity<OrderResponse> get(
+            @PathVariable UUID orderId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null && !ifNoneMatch.isBlank()) {
+            String current = etag(service.getOrderRevision(orderId));
+            if (etagMatches(ifNoneMatch, current)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(current)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+        }
+
+        OrderResponse res = service.getOrder(orderId);
+        return ResponseEntity.ok()
+                .eTag(etag(res.revision()))
+                .cacheControl(CacheControl.noCache())
+                .body(res);
+    }
+
+    /**
+     * SSE: đẩy item-status (IN_PROGRESS/READY/SERVED...) + payment CONFIRMED.
+     * Event đầu tiên "revision" = revision hiện tại để client tự resync.
+     */
+    @GetMapping(value = "/{orderId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable UUID orderId) {
+        UUID outletId = service.getOrderOutletId(orderId);
+        return streamHub.subscribe(outletId, orderId, service.getOrderRevision(orderId));
+    }
+
+    /**
+     * Mutation: retry khi optimistic conflict (mỗi lần 1 transaction mới);
+     * có Idempotency-Key => request lặp lại (retry do mạng) trả về response cũ, không thêm món trùng.
+     */
+    private <T> T idempotent(String idemKey, String scope, Object request, Supplier<T> action) {
+        Supplier<T> withRetry = () -> OptimisticRetry.run(action);
+        if (idemKey == null || idemKey.isBlank())
+            return withRetry.get();
+
+        return idempotencyStore.execute(scope + ":" + idemKey.trim(), request, withRetry);
+    }
+
+    private static String etag(Long revision) {
+        return "\"r" + (revision == null ? 0 : revision) + "\"";
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String current) {
+        for (String raw : ifNoneMatch.split(",")) {
+            String tag = raw.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if ("*".equals(tag) || current.equals(tag))
+                return true;
+        }
+        return false;
     }
 }
@@ -4,6 +4,7 @@ import com.sassfnb.adapters.rest.dto.order.OrderDtos.ReopenOrderRequest;
 import com.sassfnb.adapters.rest.dto.order.OrderDtos.ReopenOrderResponse;
 import com.sassfnb.adapters.rest.dto.order.OrderDtos.SubmitOrderResponse;
 import com.sassfnb.application.service.OrderWorkflowService;
+import com.sassfnb.common.concurrency.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,7 +21,7 @@ public class PublicOrderSubmitController {
     public SubmitOrderResponse submit(
             @PathVariable UUID orderId,
             @RequestParam UUID outletId) {
-        return workflowService.submitPublic(orderId, outletId);
+        return OptimisticRetry.run(() -> workflowService.submitPublic(orderId, outletId));
     }
 
     @PostMapping("/{orderId}/reopen")
@@ -28,6 +29,6 @@ public class PublicOrderSubmitController {
             @PathVariable UUID orderId,
             @RequestParam UUID outletId,
             @RequestBody(required = false) ReopenOrderRequest req) {
-        return workflowService.reopenPublic(orderId, outletId, req);
+        return OptimisticRetry.run(() -> workflowService.reopenPublic(orderId, outletId, req));
     }
 }
@@ -82,4 +82,14 @@ public class ReportController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
         return reportService.payrollSummary(outletId, fromDate, toDate);
     }
+
+    @GetMapping("/ticket-times")
+    @PreAuthorize("hasAnyAuthority('ROOT','OWNER','ADMIN','MANAGER')")
+    public TicketTimesResponse ticketTimes(
+            @RequestParam(required = false) UUID outletId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "ITEM") String groupBy) {
+        return reportService.ticketTimes(outletId, fromDate, toDate, groupBy);
+    }
 }
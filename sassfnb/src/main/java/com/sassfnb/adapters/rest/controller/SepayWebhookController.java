@@ -2,6 +2,7 @@ package com.sassfnb.adapters.rest.controller;
 
 import com.sassfnb.adapters.rest.dto.billing.SepayWebhookDtos.*;
 import com.sassfnb.application.service.SepayWebhookService;
+import com.sassfnb.common.concurrency.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,7 +22,7 @@ public class SepayWebhookController {
             @PathVariable UUID outletId,
             @PathVariable String secret,
             @RequestBody SepayWebhookRequest request) {
-        return sepayWebhookService.handleWebhook(outletId, secret, request);
+        return OptimisticRetry.run(() -> sepayWebhookService.handleWebhook(outletId, secret, request));
     }
 
     // FE -> get QR for order
@@ -3,6 +3,7 @@ package com.sassfnb.adapters.rest.controller;
 
 import com.sassfnb.adapters.rest.dto.order.OrderDtos.*;
 import com.sassfnb.application.service.OrderWorkflowService;
+import com.sassfnb.common.concurrency.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +33,28 @@ public class StaffOrderController {
         return service.staffList(req, pageable);
     }
 
+    // GET /api/v1/staff/orders?paging=keyset&outletId=&status=&tableId=&q=&cursor=&size=
+    // ✅ không offset/count: trả nextCursor + hasMore (màn lịch sử order outlet đông)
+    @GetMapping(params = "paging=keyset")
+    public OrderCursorPage listKeyset(
+            @RequestParam UUID outletId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) UUID tableId,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        var req = new StaffOrderListRequest(outletId, status, tableId, q);
+        return service.staffListKeyset(req, cursor, size);
+    }
+
+    // POST /api/v1/staff/orders:submit-batch  Body: { "orderIds": ["uuid1","uuid2"] }
+    // ✅ gửi bếp nhiều bàn 1 lần, kết quả theo từng order
+    @PostMapping(":submit-batch")
+    public SubmitBatchResponse submitBatch(@RequestBody SubmitBatchRequest req) {
+        return OptimisticRetry.run(() -> service.submitBatch(req));
+    }
+
     // GET /api/v1/staff/orders/{orderId}
     @GetMapping("/{orderId}")
     public OrderResponse get(@PathVariable UUID orderId) {
@@ -53,17 +76,32 @@ public class StaffOrderController {
         return service.voidItem(orderId, itemId, req);
     }
 
+    // ?view=delta => chỉ trả item vừa đổi + totals + revision
+    @PostMapping(value = "/{orderId}/fire", params = "view=delta")
+    public OrderDeltaResponse fireDelta(@PathVariable UUID orderId,
+            @RequestBody(required = false) FireOrderRequest req) {
+        return service.fireDelta(orderId, req);
+    }
+
+    @PostMapping(value = "/{orderId}/items/{itemId}/void", params = "view=delta")
+    public OrderDeltaResponse voidItemDelta(
+            @PathVariable UUID orderId,
+            @PathVariable UUID itemId,
+            @RequestBody(required = false) VoidItemRequest req) {
+        return service.voidItemDelta(orderId, itemId, req);
+    }
+
     // POST /api/v1/staff/orders/{orderId}/void
     @PostMapping("/{orderId}/void")
     public OrderResponse voidOrder(
             @PathVariable UUID orderId,
             @RequestBody(required = false) VoidOrderRequest req) {
-        return service.voidOrder(orderId, req);
+        return OptimisticRetry.run(() -> service.voidOrder(orderId, req));
     }
 
     // PATCH /api/v1/staff/orders/{orderId}/note
     @PatchMapping("/{orderId}/note")
     public OrderResponse patchNote(@PathVariable UUID orderId, @RequestBody PatchOrderNoteRequest req) {
-        return service.patchNote(orderId, req);
+        return OptimisticRetry.run(() -> service.patchNote(orderId, req));
     }
 }
@@ -34,16 +34,70 @@ public class KdsDtos {
                         String tableName,
                         Integer people,
                         String orderNote,
-                        Instant openedAt) {
+                        Instant openedAt,
+
+                        String station) { // trạm bếp của món (MAIN nếu chưa gán)
         }
 
         public record KdsBoardsResponse(
                         UUID outletId,
                         Instant since,
                         List<String> statuses,
+                        String station, // null => cả bếp
+                        List<KdsBoardItemResponse> items) {
+        }
+
+        // ===== GET /kds/tickets (món gom theo order, sắp theo ưu tiên) =====
+        // priorityAt = món chờ lâu nhất - boostSeconds => sort tăng dần, không đổi theo thời gian
+        // flags: ALLERGY (note có dị ứng), PARTIAL_READY (đã có món READY, còn món đang làm)
+        public record KdsTicketResponse(
+                        UUID orderId,
+                        String orderStatus,
+                        UUID tableId,
+                        String tableName,
+                        Integer people,
+                        String orderNote,
+                        Instant openedAt,
+                        Instant firstItemAt,
+                        Instant lastItemAt,
+                        Instant priorityAt,
+                        long boostSeconds,
+                        List<String> flags,
                         List<KdsBoardItemResponse> items) {
         }
 
+        public record KdsTicketsResponse(
+                        UUID outletId,
+                        Instant since,
+                        List<String> statuses,
+                        String station, // null => cả bếp
+                        List<KdsTicketResponse> tickets) {
+        }
+
+        // ===== GET /kds/changes (change-feed theo thứ tự commit) =====
+        // items gồm cả SERVED/VOIDED để client gỡ khỏi board; nextCursor luôn có (cursor cho lần gọi sau)
+        public record KdsChangesResponse(
+                        UUID outletId,
+                        List<KdsBoardItemResponse> items,
+                        String nextCursor,
+                        boolean hasMore) {
+        }
+
+        // ===== SSE /kds/stream =====
+        // snapshot: toàn bộ board tại seq; delta: item upsert/remove sau seq đó
+        public record KdsSnapshotEvent(
+                        long seq,
+                        KdsBoardsResponse board) {
+        }
+
+        public record KdsDeltaEvent(
+                        long seq,
+                        UUID outletId,
+                        List<KdsBoardItemResponse> upserts,
+                        List<UUID> removedItemIds,
+                        Instant at) {
+        }
+
         public record PatchKdsItemStatusRequest(String status) {
         }
 
@@ -53,4 +107,27 @@ public class KdsDtos {
                         String newStatus,
                         Instant updatedAt) {
         }
+
+        // ✅ NEW: bump cả ticket - itemIds và/hoặc orderId (cả 2 => item của order đó trong danh sách)
+        public record BulkKdsItemStatusRequest(
+                        UUID orderId,
+                        List<UUID> itemIds,
+                        String status) {
+        }
+
+        /** result: UPDATED | UNCHANGED (đã ở status đích) | INVALID_TRANSITION | NOT_FOUND */
+        public record BulkKdsItemOutcome(
+                        UUID itemId,
+                        UUID orderId,
+                        String oldStatus,
+                        String newStatus,
+                        String result) {
+        }
+
+        public record BulkKdsItemStatusResponse(
+                        String status,
+                        int updatedCount,
+                        List<BulkKdsItemOutcome> items,
+                        Instant updatedAt) {
+        }
 }
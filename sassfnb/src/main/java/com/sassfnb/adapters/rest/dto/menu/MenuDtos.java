@@ -60,7 +60,8 @@ public class MenuDtos {
                         String imageUrl,
                         String status, // ACTIVE/INACTIVE
                         BigDecimal basePrice,
-                        List<String> tags // optional
+                        List<String> tags, // optional
+                        String kitchenStation // optional: GRILL/BAR/COLD..., null => MAIN
         ) {
         }
 
@@ -70,7 +71,8 @@ public class MenuDtos {
                         String description,
                         String imageUrl,
                         String status,
-                        List<String> tags) {
+                        List<String> tags,
+                        String kitchenStation) { // "" => về trạm mặc định
         }
 
         public record ItemPublishPatchRequest(String status) {
@@ -85,6 +87,7 @@ public class MenuDtos {
                         String imageUrl,
                         String status,
                         List<String> tags,
+                        String kitchenStation,
                         Instant createdAt,
                         Instant updatedAt) {
         }
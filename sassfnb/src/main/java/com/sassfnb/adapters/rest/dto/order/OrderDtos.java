@@ -35,6 +35,25 @@ public class OrderDtos {
                         Instant updatedAt) {
         }
 
+        // ===== Submit nhiều order 1 lần (staff tablet) =====
+        public record SubmitBatchRequest(List<UUID> orderIds) {
+        }
+
+        public record SubmitBatchResult(
+                        UUID orderId,
+                        boolean ok,
+                        String status,
+                        Integer firedCount,
+                        String error,
+                        Instant updatedAt) {
+        }
+
+        public record SubmitBatchResponse(
+                        int submitted,
+                        int failed,
+                        List<SubmitBatchResult> results) {
+        }
+
         public record ReopenOrderRequest(String reason) {
         }
 
@@ -48,6 +67,13 @@ public class OrderDtos {
                         String q) {
         }
 
+        // keyset page: không count, hasMore = còn dòng sau trang này
+        public record OrderCursorPage(
+                        List<OrderResponse> items,
+                        String nextCursor,
+                        boolean hasMore) {
+        }
+
         public record FireOrderRequest(
                         Boolean all,
                         List<UUID> itemIds) {
@@ -95,6 +121,17 @@ public class OrderDtos {
                         BigDecimal grandTotal,
                         List<OrderItemResponse> items,
                         Instant createdAt,
+                        Instant updatedAt,
+                        Long revision) {
+        }
+
+        /** Delta (?view=delta): chỉ các item vừa đổi + totals mới */
+        public record OrderDeltaResponse(
+                        UUID id,
+                        String status,
+                        Long revision,
+                        BigDecimal grandTotal,
+                        List<OrderItemResponse> changedItems,
                         Instant updatedAt) {
         }
 
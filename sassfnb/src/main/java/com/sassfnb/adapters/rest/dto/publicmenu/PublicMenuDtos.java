@@ -44,4 +44,16 @@ public class PublicMenuDtos {
             BigDecimal extraPrice,
             Integer sortOrder) {
     }
+
+    /**
+     * Menu hiện tại đã serialize sẵn (json) + nén (gzip) cho GET /tree không có at.
+     * etag là strong ETag của bản json; validUntil = lúc giá có lịch kế tiếp đổi (null = không có).
+     */
+    public record PublicMenuPayload(
+            UUID outletId,
+            String etag,
+            byte[] json,
+            byte[] gzip,
+            Instant validUntil) {
+    }
 }
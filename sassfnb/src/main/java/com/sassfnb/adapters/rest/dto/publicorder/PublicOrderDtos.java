@@ -75,6 +75,28 @@ public class PublicOrderDtos {
                         Instant createdAt,
                         Instant updatedAt,
                         BigDecimal grandTotal,
-                        List<OrderItemResponse> items) {
+                        List<OrderItemResponse> items,
+                        Long revision) {
+        }
+
+        // SSE /public/orders/{orderId}/stream: payload của event item-status / payment
+        public record OrderStreamEvent(
+                        String type,
+                        UUID orderId,
+                        UUID itemId,
+                        String fromStatus,
+                        String toStatus,
+                        Instant at) {
+        }
+
+        // ✅ delta (?view=delta): chỉ các item vừa đổi + totals mới
+        public record OrderDeltaResponse(
+                        UUID id,
+                        String status,
+                        Long revision,
+                        BigDecimal grandTotal,
+                        List<OrderItemResponse> changedItems,
+                        List<UUID> removedItemIds,
+                        Instant updatedAt) {
         }
 }
@@ -119,6 +119,30 @@ public class ReportDtos {
                         BigDecimal netPay) {
         }
 
+        // ✅ NEW: Ticket times (FIRED->READY, READY->SERVED) từ sketch phân vị, đơn vị giây
+        public record TicketTimeStats(
+                        long count,
+                        Double p50Sec,
+                        Double p90Sec,
+                        Double p99Sec) {
+        }
+
+        /** key: menuItemId | station | giờ 0..23 (theo groupBy); label: tên món / trạm / "HH:00" */
+        public record TicketTimeRow(
+                        String key,
+                        String label,
+                        TicketTimeStats fireToReady,
+                        TicketTimeStats readyToServed) {
+        }
+
+        public record TicketTimesResponse(
+                        UUID outletId,
+                        LocalDate fromDate,
+                        LocalDate toDate,
+                        String groupBy,
+                        List<TicketTimeRow> rows) {
+        }
+
         // ===== internal =====
         public record TimeWindow(Instant fromTs, Instant toTs) {
         }
@@ -0,0 +1,36 @@
+// src/main/java/com/sassfnb/application/config/CacheProperties.java
+package com.sassfnb.application.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    // table -> active order (QR re-scan)
+    private long tableOrderTtlMs = 10 * 60 * 1000L;
+    private int tableOrderMaxEntries = 10_000;
+
+    // Idempotency-Key cho public order mutations (retry do Wi-Fi chập chờn)
+    private long idempotencyTtlMs = 10 * 60 * 1000L;
+    private int idempotencyMaxEntries = 20_000;
+
+    // KDS board in-memory theo outlet (FIRED/IN_PROGRESS/READY)
+    private boolean kdsBoardEnabled = true;
+    private long kdsBoardResyncMs = 60_000L;
+    private long kdsBoardIdleMs = 15 * 60 * 1000L;
+    private int kdsBoardMaxItemsPerOutlet = 2_000;
+
+    // GET /kds/boards, /kds/tickets: gộp request trùng đang chạy + giữ JSON thêm ttl-ms
+    private long kdsResponseTtlMs = 500L;
+    private int kdsResponseMaxEntries = 1_000;
+
+    // GET /public/menu/tree: Cache-Control cho CDN/điện thoại (ETag để revalidate khi hết hạn)
+    private long publicMenuMaxAgeSeconds = 60L;
+    private long publicMenuStaleSeconds = 300L;
+
+    // nhiều node: invalidate qua Postgres LISTEN/NOTIFY
+    private boolean crossNodeInvalidation = false;
+    private String invalidationChannel = "sassfnb_cache";
+}
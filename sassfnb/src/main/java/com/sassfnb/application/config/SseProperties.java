@@ -0,0 +1,24 @@
+// src/main/java/com/sassfnb/application/config/SseProperties.java
+package com.sassfnb.application.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.sse")
+public class SseProperties {
+
+    // connection tự đóng sau khoảng này, client (EventSource) tự reconnect
+    private long timeoutMs = 30 * 60 * 1000L;
+
+    // gửi comment giữ kết nối (proxy/LB hay cắt connection im lặng)
+    private long heartbeatMs = 20_000L;
+
+    // giới hạn số subscriber để 1 outlet không ăn hết connection
+    private int maxSubscribersPerOutlet = 500;
+    private int maxSubscribersPerOrder = 10;
+
+    // KDS: số màn hình bếp / outlet và số delta giữ lại để resync sau reconnect
+    private int maxKdsSubscribersPerOutlet = 20;
+    private int kdsReplayBufferSize = 500;
+}
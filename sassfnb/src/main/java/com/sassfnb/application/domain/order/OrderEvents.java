@@ -0,0 +1,58 @@
+package com.sassfnb.application.domain.order;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Domain events của order (publish qua Spring ApplicationEventPublisher).
+ * Listener nhận sau khi transaction commit (SSE push, ...).
+ */
+public class OrderEvents {
+
+    /** Item đổi trạng thái (FIRED -> IN_PROGRESS -> READY -> SERVED ...) */
+    public record ItemStatusChanged(
+            UUID tenantId,
+            UUID orderId,
+            UUID itemId,
+            String fromStatus,
+            String toStatus,
+            Instant at,
+            UUID changedBy) {
+    }
+
+    /** Nhiều item cùng sang 1 status (submit/fire/void...) - nguồn cho status history */
+    public record ItemsStatusChanged(
+            UUID tenantId,
+            List<UUID> itemIds,
+            String toStatus,
+            UUID changedBy,
+            String note,
+            Instant at) {
+    }
+
+    /** Nội dung order khách thấy vừa đổi (item thêm/sửa/xóa, submit/fire/void, giảm giá, note, reopen/close, thanh toán...) */
+    public record OrdersChanged(
+            UUID tenantId,
+            List<UUID> orderIds,
+            Instant at) {
+    }
+
+    /** Item của các order này vừa vào/ra/đổi trên bếp (submit, fire, void...) */
+    public record KitchenOrdersChanged(
+            UUID tenantId,
+            List<UUID> orderIds,
+            Instant at) {
+    }
+
+    /** Payment CONFIRMED (vd: Sepay webhook) */
+    public record PaymentConfirmed(
+            UUID tenantId,
+            UUID outletId,
+            UUID orderId,
+            BigDecimal amount,
+            String paymentCode,
+            Instant at) {
+    }
+}
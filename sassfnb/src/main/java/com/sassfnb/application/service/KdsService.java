@@ -4,15 +4,30 @@ package com.sassfnb.application.service;
 import com.sassfnb.adapters.rest.dto.kds.KdsDtos.*;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface KdsService {
 
-    KdsBoardsResponse getBoards(UUID tenantId, UUID outletId, Instant since, List<String> statuses);
+    /** station null => cả bếp, ngược lại chỉ món thuộc trạm đó (GRILL/BAR/COLD...) */
+    KdsBoardsResponse getBoards(UUID tenantId, UUID outletId, String station, Instant since, List<String> statuses);
+
+    /** Như getBoards nhưng gom theo order thành ticket, sắp theo ưu tiên (tuổi món, dị ứng, bàn đã ra 1 phần) */
+    KdsTicketsResponse getTickets(UUID tenantId, UUID outletId, String station, Instant since, List<String> statuses);
+
+    /** Change-feed: item đã lên bếp đổi sau cursor, theo (change_txid, id) = thứ tự commit */
+    KdsChangesResponse getChanges(UUID tenantId, UUID outletId, String station, String cursor, Integer limit);
+
+    /** Mọi item (mọi status) của các order, nhóm theo outletId - nguồn cho KDS delta */
+    Map<UUID, List<KdsBoardItemResponse>> loadItemsByOutlet(UUID tenantId, Collection<UUID> orderIds);
 
     PatchKdsItemStatusResponse patchItemStatus(UUID itemId, PatchKdsItemStatusRequest req);
 
+    /** Bump nhiều item (cả ticket) sang IN_PROGRESS/READY/SERVED trong 1 UPDATE, trả kết quả từng item */
+    BulkKdsItemStatusResponse bulkItemStatus(UUID tenantId, BulkKdsItemStatusRequest req);
+
     // phục vụ: READY -> SERVED
     PatchKdsItemStatusResponse markServed(UUID orderId, UUID itemId);
 }
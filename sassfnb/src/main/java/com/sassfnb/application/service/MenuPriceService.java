@@ -4,7 +4,9 @@ package com.sassfnb.application.service;
 import com.sassfnb.adapters.rest.dto.menu.MenuDtos.*;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface MenuPriceService {
@@ -19,4 +21,7 @@ public interface MenuPriceService {
     void deletePrice(UUID itemId, UUID priceId);
 
     PriceResponse getEffectivePrice(UUID itemId, UUID outletId, Instant at);
+
+    /** itemId -> giá effective tại at (1 query cho cả danh sách); món không có dòng giá nào thì không có key */
+    Map<UUID, PriceResponse> getEffectivePrices(Collection<UUID> itemIds, Instant at);
 }
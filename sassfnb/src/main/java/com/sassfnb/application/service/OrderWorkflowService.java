@@ -11,10 +11,16 @@ public interface OrderWorkflowService {
     // ===== Staff/POS (auth + tenant context) =====
     SubmitOrderResponse submit(UUID orderId);
 
+    /** Submit nhiều order trong 1 transaction, kết quả theo từng order */
+    SubmitBatchResponse submitBatch(SubmitBatchRequest req);
+
     ReopenOrderResponse reopen(UUID orderId, ReopenOrderRequest req);
 
     Page<OrderResponse> staffList(StaffOrderListRequest req, Pageable pageable);
 
+    /** Keyset paging (cursor = dòng cuối trang trước), không count */
+    OrderCursorPage staffListKeyset(StaffOrderListRequest req, String cursor, int size);
+
     OrderResponse staffGet(UUID orderId);
 
     OrderResponse fire(UUID orderId, FireOrderRequest req);
@@ -25,6 +31,11 @@ public interface OrderWorkflowService {
 
     OrderResponse patchNote(UUID orderId, PatchOrderNoteRequest req);
 
+    // ===== Delta (?view=delta) =====
+    OrderDeltaResponse fireDelta(UUID orderId, FireOrderRequest req);
+
+    OrderDeltaResponse voidItemDelta(UUID orderId, UUID itemId, VoidItemRequest req);
+
     // ===== Public (NO tenant header/token) =====
     SubmitOrderResponse submitPublic(UUID orderId, UUID outletId);
 
@@ -1,5 +1,6 @@
 package com.sassfnb.application.service;
 
+import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.PublicMenuPayload;
 import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.PublicMenuTreeResponse;
 
 import java.time.Instant;
@@ -7,4 +8,7 @@ import java.util.UUID;
 
 public interface PublicMenuService {
     PublicMenuTreeResponse tree(UUID orderId, UUID outletId, Instant at);
+
+    /** Menu hiện tại đã serialize + nén sẵn (dùng chung cho mọi lần quét QR tới khi menu đổi) */
+    PublicMenuPayload currentPayload(UUID orderId, UUID outletId);
 }
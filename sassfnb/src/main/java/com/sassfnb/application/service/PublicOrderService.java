@@ -15,4 +15,17 @@ public interface PublicOrderService {
     OrderResponse deleteItem(UUID orderId, UUID itemId);
 
     OrderResponse getOrder(UUID orderId);
+
+    // revision hiện tại (ETag / conditional GET) - không đụng tới order_items
+    Long getOrderRevision(UUID orderId);
+
+    // outlet của order (SSE stream giới hạn subscriber theo outlet)
+    UUID getOrderOutletId(UUID orderId);
+
+    // ===== Delta (?view=delta): chỉ trả item vừa đổi + totals mới =====
+    OrderDeltaResponse addItemsDelta(UUID orderId, List<AddItemRequest> items);
+
+    OrderDeltaResponse patchItemDelta(UUID orderId, UUID itemId, PatchItemRequest req);
+
+    OrderDeltaResponse deleteItemDelta(UUID orderId, UUID itemId);
 }
@@ -21,4 +21,7 @@ public interface ReportService {
 
     // ✅ NEW
     PayrollSummaryResponse payrollSummary(UUID outletId, LocalDate fromDate, LocalDate toDate);
+
+    // ✅ NEW: groupBy = ITEM | STATION | HOUR
+    TicketTimesResponse ticketTimes(UUID outletId, LocalDate fromDate, LocalDate toDate, String groupBy);
 }
@@ -9,12 +9,14 @@ import com.sassfnb.adapters.persistence.repository.PaymentRepository;
 import com.sassfnb.adapters.rest.dto.billing.BillingDtos.BillingScope;
 import com.sassfnb.adapters.rest.dto.billing.CloseDtos;
 import com.sassfnb.application.domain.billing.BillingGroupStatus;
+import com.sassfnb.application.domain.order.OrderEvents.OrdersChanged;
 import com.sassfnb.application.exception.BadRequestException;
 import com.sassfnb.application.exception.NotFoundException;
 import com.sassfnb.application.ports.TenantResolver;
 import com.sassfnb.application.service.BillingCloseService;
 import com.sassfnb.application.service.BillingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -49,6 +51,9 @@ public class BillingCloseServiceImpl implements BillingCloseService {
     private final PaymentRepository paymentRepository;
     private final BillingService billingService;
 
+    // ✅ khách đang mở order nhận revision mới sau commit
+    private final ApplicationEventPublisher events;
+
     @Override
     @Transactional
     public CloseDtos.CloseResponse closeOrder(UUID orderId) {
@@ -75,6 +80,7 @@ public class BillingCloseServiceImpl implements BillingCloseService {
         order.setStatus(ORDER_STATUS_PAID);
         order.setClosedAt(closedAt);
         orderRepository.save(order);
+        events.publishEvent(new OrdersChanged(tenantId, List.of(orderId), closedAt));
 
         return CloseDtos.CloseResponse.builder()
                 .id(orderId)
@@ -137,6 +143,7 @@ public class BillingCloseServiceImpl implements BillingCloseService {
             order.setClosedAt(closedAt);
             orderRepository.save(order);
         }
+        events.publishEvent(new OrdersChanged(tenantId, orderIds, closedAt));
 
         return CloseDtos.CloseResponse.builder()
                 .id(groupId)
@@ -12,12 +12,14 @@ import com.sassfnb.adapters.rest.dto.billing.BillingDtos.BillingScope;
 import com.sassfnb.adapters.rest.dto.billing.PaymentDtos.ManualPaymentRequest;
 import com.sassfnb.adapters.rest.dto.billing.PaymentDtos.ManualPaymentResponse;
 import com.sassfnb.adapters.rest.dto.billing.PaymentDtos.SepayInitResponse;
+import com.sassfnb.application.domain.order.OrderEvents.OrdersChanged;
 import com.sassfnb.application.exception.BadRequestException;
 import com.sassfnb.application.exception.NotFoundException;
 import com.sassfnb.application.ports.TenantResolver;
 import com.sassfnb.application.service.BillingPaymentService;
 import com.sassfnb.application.service.BillingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -60,6 +62,9 @@ public class BillingPaymentServiceImpl implements BillingPaymentService {
 
     private final BillingService billingService;
 
+    // ✅ khách đang mở order nhận revision mới sau commit
+    private final ApplicationEventPublisher events;
+
     // =========================
     // 3) MANUAL PAYMENTS
     // =========================
@@ -115,6 +120,7 @@ public class BillingPaymentServiceImpl implements BillingPaymentService {
         p.setReceivedAt(request.receivedAt() != null ? request.receivedAt() : Instant.now());
 
         paymentRepository.save(p);
+        events.publishEvent(new OrdersChanged(tenantId, List.of(orderId), Instant.now()));
 
         BigDecimal paidTotal = nvl(billingCalcRepository.sumPaidByOrder(tenantId, orderId));
         BigDecimal grandTotal = nvl(totals.grandTotal());
@@ -212,6 +218,8 @@ public class BillingPaymentServiceImpl implements BillingPaymentService {
             remain = remain.subtract(pay);
         }
 
+        events.publishEvent(new OrdersChanged(tenantId, orderIds, Instant.now()));
+
         // Sau khi allocate -> trả totals của GROUP (paid/due theo group)
         BigDecimal paidTotal = nvl(billingCalcRepository.sumPaidByGroup(tenantId, groupId));
         BigDecimal grandTotal = nvl(groupTotals.grandTotal());
@@ -1,16 +1,23 @@
 package com.sassfnb.application.service.impl;
 
-import com.sassfnb.adapters.persistence.entity.MenuItemEntity;
+import com.sassfnb.adapters.cache.KdsBoardCache;
+import com.sassfnb.adapters.cache.KdsNameCache;
+import com.sassfnb.adapters.cache.KitchenStationCache;
 import com.sassfnb.adapters.persistence.entity.OrderEntity;
 import com.sassfnb.adapters.persistence.entity.OrderItemEntity;
-import com.sassfnb.adapters.persistence.entity.TableEntity;
-import com.sassfnb.adapters.persistence.repository.MenuItemRepository;
+import com.sassfnb.adapters.persistence.repository.OrderItemBatchRepository;
+import com.sassfnb.adapters.persistence.repository.OrderItemBatchRepository.StatusTransitionRow;
 import com.sassfnb.adapters.persistence.repository.OrderItemRepository;
 import com.sassfnb.adapters.persistence.repository.OrderRepository;
-import com.sassfnb.adapters.persistence.repository.TableRepository;
 import com.sassfnb.adapters.rest.dto.kds.KdsDtos.*;
+import com.sassfnb.application.domain.order.OrderEvents.ItemStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.ItemsStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.KitchenOrdersChanged;
+import com.sassfnb.application.ports.TenantResolver;
 import com.sassfnb.application.service.KdsService;
+import com.sassfnb.common.paging.TxidCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,13 +33,28 @@ import static com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsItemStatus.*;
 public class KdsServiceImpl implements KdsService {
 
     private final OrderItemRepository itemRepo;
+    private final OrderItemBatchRepository itemBatchRepo;
     private final OrderRepository orderRepo;
-    private final MenuItemRepository menuItemRepo;
-    private final TableRepository tableRepo;
+    private final ApplicationEventPublisher events;
+    private final KdsBoardCache boardCache;
+    private final KitchenStationCache stationCache;
+    private final KdsNameCache nameCache;
+    private final TenantResolver tenantResolver;
+
+    private static final int DEFAULT_CHANGES_LIMIT = 200;
+    private static final int MAX_CHANGES_LIMIT = 1000;
+    private static final int MAX_BULK_ITEMS = 200;
+
+    // status đích -> status nguồn hợp lệ (cùng luồng với patchItemStatus/markServed)
+    private static final Map<String, Set<String>> BULK_TRANSITIONS = Map.of(
+            IN_PROGRESS, Set.of(FIRED),
+            READY, Set.of(FIRED, IN_PROGRESS),
+            SERVED, Set.of(READY));
 
     @Override
     @Transactional(readOnly = true)
-    public KdsBoardsResponse getBoards(UUID tenantId, UUID outletId, Instant since, List<String> statuses) {
+    public KdsBoardsResponse getBoards(UUID tenantId, UUID outletId, String station, Instant since,
+            List<String> statuses) {
         if (tenantId == null)
             throw new IllegalArgumentException("tenantId is required");
         if (outletId == null)
@@ -47,7 +69,58 @@ public class KdsServiceImpl implements KdsService {
             statusUpper = List.of(FIRED, IN_PROGRESS, READY);
         }
 
-        List<OrderItemEntity> items = itemRepo.findKdsItems(tenantId, outletId, sinceTs, statusUpper);
+        String stationKey = (station == null || station.isBlank()) ? null : KitchenStationCache.normalize(station);
+
+        // ✅ board in-memory (FIRED/IN_PROGRESS/READY, chia sẵn theo trạm); null => filter ngoài phạm vi cache, đọc DB
+        List<KdsBoardItemResponse> cached = boardCache.get(tenantId, outletId, stationKey, sinceTs, statusUpper,
+                () -> loadBoardItems(tenantId, outletId, null, Instant.EPOCH, List.copyOf(KdsBoardCache.ON_BOARD)));
+
+        List<KdsBoardItemResponse> dtoItems = (cached != null)
+                ? cached
+                : loadBoardItems(tenantId, outletId, stationKey, sinceTs, statusUpper);
+
+        return new KdsBoardsResponse(outletId, sinceTs, statusUpper, stationKey, dtoItems);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KdsTicketsResponse getTickets(UUID tenantId, UUID outletId, String station, Instant since,
+            List<String> statuses) {
+        if (tenantId == null)
+            throw new IllegalArgumentException("tenantId is required");
+        if (outletId == null)
+            throw new IllegalArgumentException("outletId is required");
+
+        List<String> statusUpper = normalizeStatuses(statuses);
+        if (statusUpper == null) {
+            statusUpper = List.of(FIRED, IN_PROGRESS, READY);
+        }
+        final List<String> st = statusUpper;
+
+        String stationKey = (station == null || station.isBlank()) ? null : KitchenStationCache.normalize(station);
+
+        // ✅ ticket dựng 1 lần mỗi khi board đổi (memo trong KdsBoardCache), dùng chung cho mọi màn hình
+        List<KdsTicketResponse> tickets = boardCache.getTickets(tenantId, outletId, stationKey, st,
+                () -> loadBoardItems(tenantId, outletId, null, Instant.EPOCH, List.copyOf(KdsBoardCache.ON_BOARD)),
+                KdsTicketBuilder::build);
+
+        if (tickets == null)
+            tickets = KdsTicketBuilder.build(loadBoardItems(tenantId, outletId, stationKey, Instant.EPOCH, st));
+
+        // since: giữ ticket còn món trong cửa sổ (giữ nguyên cả ticket, không cắt món)
+        if (since != null) {
+            tickets = tickets.stream()
+                    .filter(t -> !t.lastItemAt().isBefore(since))
+                    .toList();
+        }
+
+        return new KdsTicketsResponse(outletId, since, st, stationKey, tickets);
+    }
+
+    private List<KdsBoardItemResponse> loadBoardItems(UUID tenantId, UUID outletId, String station, Instant since,
+            List<String> statuses) {
+        List<OrderItemEntity> items = filterStation(outletId, station,
+                itemRepo.findKdsItems(tenantId, outletId, since, statuses));
 
         // ============ Load Orders (để lấy tableId, people, note...) ============
         List<UUID> orderIds = items.stream()
@@ -58,42 +131,99 @@ public class KdsServiceImpl implements KdsService {
         Map<UUID, OrderEntity> ordersById = orderRepo.findAllById(orderIds).stream()
                 .collect(Collectors.toMap(OrderEntity::getId, o -> o));
 
-        // ============ Load Menu Item Names (batch) ============
-        List<UUID> menuItemIds = items.stream()
-                .map(OrderItemEntity::getMenuItemId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .toList();
+        return toBoardItems(items, ordersById);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KdsChangesResponse getChanges(UUID tenantId, UUID outletId, String station, String cursor,
+            Integer limit) {
+        if (tenantId == null)
+            throw new IllegalArgumentException("tenantId is required");
+        if (outletId == null)
+            throw new IllegalArgumentException("outletId is required");
 
-        Map<UUID, String> menuNameById = menuItemRepo.findAllById(menuItemIds).stream()
-                .collect(Collectors.toMap(
-                        MenuItemEntity::getId,
-                        mi -> mi.getName() == null ? "" : mi.getName(),
-                        (a, b) -> a // tránh lỗi nếu trùng key
-                ));
+        int size = (limit == null) ? DEFAULT_CHANGES_LIMIT : Math.min(Math.max(limit, 1), MAX_CHANGES_LIMIT);
+        // lấy xmin TRƯỚC khi đọc dòng: mọi txid < xmin đã kết thúc => chắc chắn thấy ở query sau
+        long xmin = itemRepo.currentSnapshotXmin();
 
-        // ============ Load Table Names (batch) ============
-        List<UUID> tableIds = ordersById.values().stream()
-                .map(OrderEntity::getTableId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .toList();
+        TxidCursor c = TxidCursor.decode(cursor);
+        if (c == null) {
+            // chưa có cursor => chỉ trả điểm bắt đầu; client lấy board qua /boards rồi đi theo cursor này
+            // (dòng đổi trong lúc đó có thể về 2 lần - upsert theo itemId nên vô hại)
+            return new KdsChangesResponse(outletId, List.of(), new TxidCursor(xmin, TxidCursor.MIN_ID).encode(), false);
+        }
+
+        // lấy dư 1 dòng => biết còn trang sau
+        List<OrderItemEntity> rows = itemRepo.findKdsChanges(tenantId, outletId, c.txid(), c.id(), xmin, size + 1);
 
-        Map<UUID, TableEntity> tableById = tableRepo.findAllById(tableIds).stream()
-                .collect(Collectors.toMap(TableEntity::getId, t -> t));
+        boolean hasMore = rows.size() > size;
+        List<OrderItemEntity> page = hasMore ? rows.subList(0, size) : rows;
+
+        // hết trang => đã thấy đủ mọi txid < xmin, cursor nhảy tới xmin (không quét lại dòng NEW/outlet khác)
+        TxidCursor next;
+        if (hasMore) {
+            OrderItemEntity last = page.get(page.size() - 1);
+            next = new TxidCursor(last.getChangeTxid(), last.getId());
+        } else {
+            next = xmin > c.txid() ? new TxidCursor(xmin, TxidCursor.MIN_ID) : c;
+        }
+        String nextCursor = next.encode();
+
+        // cursor đi qua mọi dòng của outlet, chỉ trả dòng thuộc trạm được hỏi
+        String stationKey = (station == null || station.isBlank()) ? null : KitchenStationCache.normalize(station);
+        List<OrderItemEntity> stationRows = filterStation(outletId, stationKey, page);
+
+        Map<UUID, OrderEntity> ordersById = orderRepo.findAllById(
+                stationRows.stream().map(OrderItemEntity::getOrderId).distinct().toList()).stream()
+                .collect(Collectors.toMap(OrderEntity::getId, o -> o));
 
-        // ============ Map DTO ============
-        List<KdsBoardItemResponse> dtoItems = items.stream().map(oi -> {
+        return new KdsChangesResponse(outletId, toBoardItems(stationRows, ordersById), nextCursor, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, List<KdsBoardItemResponse>> loadItemsByOutlet(UUID tenantId, Collection<UUID> orderIds) {
+        if (orderIds == null || orderIds.isEmpty())
+            return Map.of();
+
+        Map<UUID, OrderEntity> ordersById = orderRepo.findAllById(orderIds).stream()
+                .filter(o -> Objects.equals(o.getTenantId(), tenantId))
+                .collect(Collectors.toMap(OrderEntity::getId, o -> o));
+
+        if (ordersById.isEmpty())
+            return Map.of();
+
+        List<OrderItemEntity> items = itemRepo.findByOrderIdInOrderByCreatedAtAsc(ordersById.keySet());
+
+        Map<UUID, List<KdsBoardItemResponse>> byOutlet = new HashMap<>();
+        for (KdsBoardItemResponse row : toBoardItems(items, ordersById)) {
+            UUID outletId = ordersById.get(row.orderId()).getOutletId();
+            byOutlet.computeIfAbsent(outletId, k -> new ArrayList<>()).add(row);
+        }
+        return byOutlet;
+    }
+
+    private List<OrderItemEntity> filterStation(UUID outletId, String station, List<OrderItemEntity> items) {
+        if (station == null)
+            return items;
+        Map<UUID, String> stations = stationCache.stationsOf(outletId);
+        return items.stream()
+                .filter(oi -> station.equals(stations.getOrDefault(oi.getMenuItemId(), KitchenStationCache.DEFAULT_STATION)))
+                .toList();
+    }
+
+    private List<KdsBoardItemResponse> toBoardItems(List<OrderItemEntity> items, Map<UUID, OrderEntity> ordersById) {
+        // ✅ tên món / tên bàn lấy từ từ điển in-memory theo outlet (không query menu_items/tables mỗi request)
+        return items.stream().map(oi -> {
             OrderEntity o = ordersById.get(oi.getOrderId());
+            UUID outletId = (o == null ? oi.getOutletId() : o.getOutletId());
 
-            String menuItemName = menuNameById.getOrDefault(oi.getMenuItemId(), null);
+            String menuItemName = (oi.getMenuItemId() == null) ? null
+                    : nameCache.menuNames(outletId).get(oi.getMenuItemId());
 
             UUID tableId = (o == null ? null : o.getTableId());
-            String tableName = null;
-            if (tableId != null) {
-                TableEntity t = tableById.get(tableId);
-                tableName = (t == null) ? null : buildTableName(t); // tuỳ biến cách hiển thị
-            }
+            String tableName = (tableId == null) ? null : nameCache.tableNames(outletId).get(tableId);
 
             return new KdsBoardItemResponse(
                     oi.getId(),
@@ -114,29 +244,10 @@ public class KdsServiceImpl implements KdsService {
                     tableName, // ✅ NEW
                     (o == null ? null : o.getPeople()),
                     (o == null ? null : o.getNote()),
-                    (o == null ? null : o.getOpenedAt()));
+                    (o == null ? null : o.getOpenedAt()),
+                    stationCache.stationOf(outletId, oi.getMenuItemId()));
         }).toList();
 
-        return new KdsBoardsResponse(outletId, sinceTs, statusUpper, dtoItems);
-    }
-
-    private String buildTableName(TableEntity t) {
-        // ví dụ phổ biến: groupCode + code
-        String code = safe(t.getCode());
-        String group = safe(t.getGroupCode());
-
-        if (!group.isBlank() && !code.isBlank())
-            return group + " - " + code;
-        if (!code.isBlank())
-            return code;
-
-        // fallback nếu bạn có field name riêng:
-        // return safe(t.getName());
-        return null;
-    }
-
-    private String safe(String s) {
-        return s == null ? "" : s.trim();
     }
 
     @Override
@@ -176,9 +287,69 @@ public class KdsServiceImpl implements KdsService {
         it.setStatus(target);
         itemRepo.save(it);
 
+        events.publishEvent(new ItemStatusChanged(
+                it.getTenantId(), it.getOrderId(), it.getId(), old, target, Instant.now(), currentUserIdOrNull()));
+
         return new PatchKdsItemStatusResponse(it.getId(), old, target, it.getUpdatedAt());
     }
 
+    @Override
+    public BulkKdsItemStatusResponse bulkItemStatus(UUID tenantId, BulkKdsItemStatusRequest req) {
+        if (tenantId == null)
+            throw new IllegalArgumentException("tenantId is required");
+        if (req == null || req.status() == null || req.status().isBlank())
+            throw new IllegalArgumentException("status is required");
+
+        String target = req.status().trim().toUpperCase();
+        Set<String> from = BULK_TRANSITIONS.get(target);
+        if (from == null)
+            throw new IllegalArgumentException("status must be IN_PROGRESS, READY or SERVED");
+
+        List<UUID> itemIds = (req.itemIds() == null) ? List.of()
+                : req.itemIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (itemIds.isEmpty() && req.orderId() == null)
+            throw new IllegalArgumentException("orderId or itemIds is required");
+        if (itemIds.size() > MAX_BULK_ITEMS)
+            throw new IllegalArgumentException("Too many items (max " + MAX_BULK_ITEMS + ")");
+
+        Instant now = Instant.now();
+
+        // ✅ 1 statement: khóa + kiểm tra status nguồn + UPDATE, trả status cũ từng dòng
+        List<StatusTransitionRow> rows = itemBatchRepo.transitionStatus(
+                tenantId, req.orderId(), itemIds, from, target, now);
+
+        List<BulkKdsItemOutcome> outcomes = new ArrayList<>(rows.size());
+        List<UUID> updatedIds = new ArrayList<>();
+        Set<UUID> touchedOrders = new LinkedHashSet<>();
+        Set<UUID> seen = new HashSet<>();
+
+        for (StatusTransitionRow r : rows) {
+            seen.add(r.itemId());
+            String old = safeUpper(r.oldStatus());
+            if (r.updated()) {
+                updatedIds.add(r.itemId());
+                touchedOrders.add(r.orderId());
+                outcomes.add(new BulkKdsItemOutcome(r.itemId(), r.orderId(), old, target, "UPDATED"));
+            } else {
+                outcomes.add(new BulkKdsItemOutcome(r.itemId(), r.orderId(), old, old,
+                        target.equals(old) ? "UNCHANGED" : "INVALID_TRANSITION"));
+            }
+        }
+
+        for (UUID id : itemIds) {
+            if (!seen.contains(id))
+                outcomes.add(new BulkKdsItemOutcome(id, null, null, null, "NOT_FOUND"));
+        }
+
+        if (!updatedIds.isEmpty()) {
+            // history (1 event cho cả batch) + KDS delta theo order
+            events.publishEvent(new ItemsStatusChanged(tenantId, updatedIds, target, currentUserIdOrNull(), null, now));
+            events.publishEvent(new KitchenOrdersChanged(tenantId, List.copyOf(touchedOrders), now));
+        }
+
+        return new BulkKdsItemStatusResponse(target, updatedIds.size(), outcomes, now);
+    }
+
     @Override
     public PatchKdsItemStatusResponse markServed(UUID orderId, UUID itemId) {
         if (orderId == null)
@@ -198,9 +369,21 @@ public class KdsServiceImpl implements KdsService {
         it.setStatus(SERVED);
         itemRepo.save(it);
 
+        events.publishEvent(new ItemStatusChanged(
+                it.getTenantId(), it.getOrderId(), it.getId(), old, SERVED, Instant.now(), currentUserIdOrNull()));
+
         return new PatchKdsItemStatusResponse(it.getId(), old, SERVED, it.getUpdatedAt());
     }
 
+    // chỉ để ghi status history => thiếu user không chặn thao tác bếp
+    private UUID currentUserIdOrNull() {
+        try {
+            return tenantResolver.currentUserId();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
     private String safeUpper(String s) {
         return s == null ? "" : s.trim().toUpperCase();
     }
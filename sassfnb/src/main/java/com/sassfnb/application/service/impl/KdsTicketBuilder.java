@@ -0,0 +1,123 @@
+// src/main/java/com/sassfnb/application/service/impl/KdsTicketBuilder.java
+package com.sassfnb.application.service.impl;
+
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsBoardItemResponse;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsTicketResponse;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+
+import static com.sassfnb.adapters.rest.dto.kds.KdsDtos.KdsItemStatus.*;
+
+/**
+ * Gom items board thành ticket theo order + chấm ưu tiên.
+ * Ưu tiên biểu diễn bằng mốc priorityAt = món đang chờ lâu nhất - boost => thứ tự không đổi theo thời gian,
+ * chỉ cần tính lại khi board đổi (KdsBoardCache memo theo version).
+ */
+final class KdsTicketBuilder {
+
+    static final String FLAG_ALLERGY = "ALLERGY";
+    static final String FLAG_PARTIAL_READY = "PARTIAL_READY";
+
+    // ticket có note dị ứng => đẩy lên như đã chờ thêm 3 phút
+    private static final long ALLERGY_BOOST_SECONDS = 180;
+    // bàn đã nhận 1 phần món => ưu tiên làm nốt để ra đồng bộ
+    private static final long PARTIAL_READY_BOOST_SECONDS = 240;
+
+    // so khớp trên note đã bỏ dấu + lowercase
+    private static final List<String> ALLERGY_KEYWORDS = List.of(
+            "di ung", "allerg", "gluten", "dau phong", "peanut", "hai san", "seafood", "lactose");
+
+    private static final Comparator<KdsTicketResponse> ORDER = Comparator
+            .comparing(KdsTicketResponse::priorityAt)
+            .thenComparing(KdsTicketResponse::firstItemAt)
+            .thenComparing(KdsTicketResponse::orderId);
+
+    private KdsTicketBuilder() {
+    }
+
+    /** items bất kỳ thứ tự; ticket sắp theo priorityAt, items trong ticket theo createdAt */
+    static List<KdsTicketResponse> build(List<KdsBoardItemResponse> items) {
+        Map<UUID, List<KdsBoardItemResponse>> byOrder = new LinkedHashMap<>();
+        for (KdsBoardItemResponse it : items) {
+            byOrder.computeIfAbsent(it.orderId(), k -> new ArrayList<>()).add(it);
+        }
+
+        List<KdsTicketResponse> tickets = new ArrayList<>(byOrder.size());
+        byOrder.values().forEach(rows -> tickets.add(toTicket(rows)));
+        tickets.sort(ORDER);
+        return List.copyOf(tickets);
+    }
+
+    private static KdsTicketResponse toTicket(List<KdsBoardItemResponse> rows) {
+        rows.sort(Comparator.comparing(KdsTicketBuilder::createdAt).thenComparing(KdsBoardItemResponse::itemId));
+
+        KdsBoardItemResponse head = rows.get(0);
+        Instant first = createdAt(head);
+        Instant last = createdAt(rows.get(rows.size() - 1));
+
+        // mốc chờ: món chưa xong lâu nhất; ticket chỉ còn READY => món READY lâu nhất
+        Instant waitingSince = null;
+        boolean anyReady = false;
+        boolean anyCooking = false;
+        boolean allergy = hasAllergyNote(head.orderNote());
+        for (KdsBoardItemResponse r : rows) {
+            if (READY.equals(r.itemStatus())) {
+                anyReady = true;
+            } else if (FIRED.equals(r.itemStatus()) || IN_PROGRESS.equals(r.itemStatus())) {
+                anyCooking = true;
+                if (waitingSince == null)
+                    waitingSince = createdAt(r);
+            }
+            allergy = allergy || hasAllergyNote(r.note());
+        }
+        if (waitingSince == null)
+            waitingSince = first;
+
+        List<String> flags = new ArrayList<>(2);
+        long boost = 0;
+        if (allergy) {
+            flags.add(FLAG_ALLERGY);
+            boost += ALLERGY_BOOST_SECONDS;
+        }
+        if (anyReady && anyCooking) {
+            flags.add(FLAG_PARTIAL_READY);
+            boost += PARTIAL_READY_BOOST_SECONDS;
+        }
+
+        return new KdsTicketResponse(
+                head.orderId(),
+                head.orderStatus(),
+                head.tableId(),
+                head.tableName(),
+                head.people(),
+                head.orderNote(),
+                head.openedAt(),
+                first,
+                last,
+                waitingSince.minusSeconds(boost),
+                boost,
+                List.copyOf(flags),
+                List.copyOf(rows));
+    }
+
+    static boolean hasAllergyNote(String note) {
+        if (note == null || note.isBlank())
+            return false;
+        String plain = Normalizer.normalize(note, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        for (String k : ALLERGY_KEYWORDS) {
+            if (plain.contains(k))
+                return true;
+        }
+        return false;
+    }
+
+    private static Instant createdAt(KdsBoardItemResponse r) {
+        return r.itemCreatedAt() != null ? r.itemCreatedAt() : Instant.EPOCH;
+    }
+}
@@ -1,6 +1,7 @@
 // src/main/java/com/sassfnb/application/service/impl/MenuCategoryServiceImpl.java
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache;
 import com.sassfnb.adapters.persistence.entity.MenuCategoryEntity;
 import com.sassfnb.adapters.persistence.repository.MenuCategoryRepository;
 import com.sassfnb.adapters.rest.dto.menu.MenuDtos.*;
@@ -24,6 +25,9 @@ public class MenuCategoryServiceImpl implements MenuCategoryService {
     private final TenantResolver ctx;
     private final DevDefaultsProperties dev;
 
+    // ✅ category đổi => snapshot menu public của outlet phải dựng lại
+    private final PublicMenuSnapshotCache menuSnapshots;
+
     private ServiceDefaults defs() {
         return new ServiceDefaults(ctx, dev);
     }
@@ -54,6 +58,7 @@ public class MenuCategoryServiceImpl implements MenuCategoryService {
         e.setSortOrder(req.sortOrder());
         e.setStatus(req.status() == null ? "ACTIVE" : req.status());
 
+        menuSnapshots.invalidateOutlet(outletId);
         return toDto(repo.save(e));
     }
 
@@ -78,12 +83,14 @@ public class MenuCategoryServiceImpl implements MenuCategoryService {
         if (req.status() != null && !req.status().isBlank())
             e.setStatus(req.status());
 
+        menuSnapshots.invalidateOutlet(e.getOutletId());
         return toDto(repo.save(e));
     }
 
     @Override
     public void delete(UUID id, boolean cascade) {
         var e = find(id);
+        menuSnapshots.invalidateOutlet(e.getOutletId());
         if (cascade)
             repo.delete(e);
         else {
@@ -97,6 +104,7 @@ public class MenuCategoryServiceImpl implements MenuCategoryService {
         var e = find(id);
         e.setSortOrder(req.sortOrder());
         repo.save(e);
+        menuSnapshots.invalidateOutlet(e.getOutletId());
     }
 
     @Override
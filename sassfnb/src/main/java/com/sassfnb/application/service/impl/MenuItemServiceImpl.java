@@ -1,6 +1,10 @@
 // src/main/java/com/sassfnb/application/service/impl/MenuItemServiceImpl.java
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.cache.KdsNameCache;
+import com.sassfnb.adapters.cache.KitchenStationCache;
+import com.sassfnb.adapters.cache.MenuPriceIndex;
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache;
 import com.sassfnb.adapters.persistence.entity.MenuItemEntity;
 import com.sassfnb.adapters.persistence.entity.MenuItemPriceEntity;
 import com.sassfnb.adapters.persistence.entity.MenuOptionValueEntity;
@@ -42,6 +46,16 @@ public class MenuItemServiceImpl implements MenuItemService {
     // ✅ NEW
     private final UploadGateway upload;
 
+    // ✅ KDS: mapping món -> trạm bếp (evict khi đổi trạm)
+    private final KitchenStationCache stationCache;
+
+    // ✅ KDS: từ điển tên món theo outlet (evict khi tạo món / đổi tên)
+    private final KdsNameCache nameCache;
+
+    // ✅ menu public: snapshot theo outlet (evict khi món/giá đổi)
+    private final PublicMenuSnapshotCache menuSnapshots;
+    private final MenuPriceIndex priceIndex;
+
     private ServiceDefaults defs() {
         return new ServiceDefaults(ctx, dev);
     }
@@ -90,6 +104,7 @@ public class MenuItemServiceImpl implements MenuItemService {
         e.setThumbnailUrl(null);
 
         e.setBasePrice(price);
+        e.setKitchenStation(normalizeStation(req.kitchenStation()));
 
         String status = (req.status() == null) ? "ACTIVE" : req.status();
         e.setAvailable("ACTIVE".equalsIgnoreCase(status));
@@ -97,6 +112,11 @@ public class MenuItemServiceImpl implements MenuItemService {
         // 1) Save item trước để có itemId
         e = itemRepo.save(e);
 
+        if (e.getKitchenStation() != null)
+            stationCache.invalidateOutlet(outletId);
+        nameCache.invalidateMenu(outletId);
+        menuSnapshots.invalidateOutlet(outletId);
+
         // 2) Auto create 1 price row
         var p = new MenuItemPriceEntity();
         p.setTenantId(defs().tenantId());
@@ -106,6 +126,7 @@ public class MenuItemServiceImpl implements MenuItemService {
         p.setValidFrom(null);
         p.setValidTo(null);
         priceRepo.save(p);
+        priceIndex.invalidateOutlet(outletId);
 
         return toDto(e);
     }
@@ -117,8 +138,10 @@ public class MenuItemServiceImpl implements MenuItemService {
     public ItemResponse update(UUID id, ItemUpdateRequest req) {
         var e = find(id);
 
-        if (req.name() != null)
+        if (req.name() != null && !req.name().equals(e.getName())) {
             e.setName(req.name());
+            nameCache.invalidateMenu(e.getOutletId());
+        }
         if (req.categoryId() != null)
             e.setCategoryId(req.categoryId());
         if (req.description() != null)
@@ -128,7 +151,17 @@ public class MenuItemServiceImpl implements MenuItemService {
         if (req.status() != null)
             e.setAvailable("ACTIVE".equalsIgnoreCase(req.status()));
 
+        // "" => về trạm mặc định
+        if (req.kitchenStation() != null) {
+            String station = normalizeStation(req.kitchenStation());
+            if (!Objects.equals(station, e.getKitchenStation())) {
+                e.setKitchenStation(station);
+                stationCache.invalidateOutlet(e.getOutletId());
+            }
+        }
+
         e = itemRepo.save(e);
+        menuSnapshots.invalidateOutlet(e.getOutletId());
         return toDto(e);
     }
 
@@ -165,6 +198,7 @@ public class MenuItemServiceImpl implements MenuItemService {
 
         e.setImageUrl(url);
         e = itemRepo.save(e);
+        menuSnapshots.invalidateOutlet(e.getOutletId());
 
         return toDto(e);
     }
@@ -192,6 +226,7 @@ public class MenuItemServiceImpl implements MenuItemService {
         String status = (req.status() == null) ? "ACTIVE" : req.status();
         e.setAvailable("ACTIVE".equalsIgnoreCase(status));
         e = itemRepo.save(e);
+        menuSnapshots.invalidateOutlet(e.getOutletId());
         return toDto(e);
     }
 
@@ -203,6 +238,7 @@ public class MenuItemServiceImpl implements MenuItemService {
         var e = find(id);
         e.setAvailable(false);
         itemRepo.save(e);
+        menuSnapshots.invalidateOutlet(e.getOutletId());
     }
 
     // =========================================================
@@ -223,10 +259,15 @@ public class MenuItemServiceImpl implements MenuItemService {
         dup.setImageUrl(src.getImageUrl());
         dup.setThumbnailUrl(src.getThumbnailUrl());
         dup.setBasePrice(src.getBasePrice() != null ? src.getBasePrice() : BigDecimal.ZERO);
+        dup.setKitchenStation(src.getKitchenStation());
 
         dup.setAvailable(false);
 
         dup = itemRepo.save(dup);
+
+        if (dup.getKitchenStation() != null)
+            stationCache.invalidateOutlet(dup.getOutletId());
+        nameCache.invalidateMenu(dup.getOutletId());
         return new DuplicateItemResponse(dup.getId());
     }
 
@@ -285,6 +326,12 @@ public class MenuItemServiceImpl implements MenuItemService {
                 .orElseThrow(() -> new NoSuchElementException("Item not found"));
     }
 
+    // lưu null cho trạm mặc định => mapping chỉ chứa món có trạm riêng
+    private static String normalizeStation(String station) {
+        String s = KitchenStationCache.normalize(station);
+        return KitchenStationCache.DEFAULT_STATION.equals(s) ? null : s;
+    }
+
     private ItemResponse toDto(MenuItemEntity e) {
         String status = Boolean.TRUE.equals(e.getAvailable()) ? "ACTIVE" : "INACTIVE";
         List<String> tags = List.of();
@@ -298,6 +345,7 @@ public class MenuItemServiceImpl implements MenuItemService {
                 e.getImageUrl(),
                 status,
                 tags,
+                KitchenStationCache.normalize(e.getKitchenStation()),
                 e.getCreatedAt(),
                 e.getUpdatedAt());
     }
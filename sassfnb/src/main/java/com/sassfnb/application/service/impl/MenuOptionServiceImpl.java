@@ -1,5 +1,6 @@
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.cache.MenuOptionGraphCache;
 import com.sassfnb.adapters.persistence.entity.MenuOptionEntity;
 import com.sassfnb.adapters.persistence.entity.MenuOptionValueEntity;
 import com.sassfnb.adapters.persistence.repository.MenuOptionRepository;
@@ -24,6 +25,9 @@ public class MenuOptionServiceImpl implements MenuOptionService {
     private final MenuOptionValueRepository valRepo;
     private final TenantResolver tenantResolver;
 
+    // ✅ option/value đổi => đồ thị option của outlet (kéo theo snapshot menu public) phải load lại
+    private final MenuOptionGraphCache optionGraph;
+
     private UUID tenantId() {
         return tenantResolver.currentTenantId();
     }
@@ -61,6 +65,7 @@ public class MenuOptionServiceImpl implements MenuOptionService {
         e.setSelectionType(Boolean.TRUE.equals(req.multiSelect()) ? "MULTI" : "SINGLE");
 
         e = optRepo.save(e);
+        optionGraph.invalidateItem(e.getItemId());
 
         return new OptionResponse(
                 e.getId(),
@@ -87,6 +92,7 @@ public class MenuOptionServiceImpl implements MenuOptionService {
             e.setSelectionType(req.multiSelect() ? "MULTI" : "SINGLE");
 
         e = optRepo.save(e);
+        optionGraph.invalidateItem(e.getItemId());
 
         return new OptionResponse(
                 e.getId(),
@@ -105,6 +111,8 @@ public class MenuOptionServiceImpl implements MenuOptionService {
         MenuOptionEntity opt = optRepo.findByIdAndTenantId(optionId, tid)
                 .orElseThrow(() -> new NoSuchElementException("Option not found"));
 
+        optionGraph.invalidateItem(opt.getItemId());
+
         // ✅ xoá toàn bộ value của option trước
         valRepo.deleteByMenuOptionId(opt.getId());
         optRepo.delete(opt);
@@ -140,6 +148,7 @@ public class MenuOptionServiceImpl implements MenuOptionService {
         v.setSortOrder(req.sortOrder());
 
         v = valRepo.save(v);
+        optionGraph.invalidateOption(v.getMenuOptionId());
 
         return new OptionValueResponse(
                 v.getId(),
@@ -164,6 +173,7 @@ public class MenuOptionServiceImpl implements MenuOptionService {
             v.setSortOrder(req.sortOrder());
 
         v = valRepo.save(v);
+        optionGraph.invalidateOption(v.getMenuOptionId());
 
         return new OptionValueResponse(
                 v.getId(),
@@ -181,5 +191,6 @@ public class MenuOptionServiceImpl implements MenuOptionService {
                 .orElseThrow(() -> new NoSuchElementException("Option value not found"));
 
         valRepo.delete(v);
+        optionGraph.invalidateOption(v.getMenuOptionId());
     }
 }
@@ -1,6 +1,8 @@
 // src/main/java/com/sassfnb/application/service/impl/MenuPriceServiceImpl.java
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.cache.MenuPriceIndex;
+import com.sassfnb.adapters.cache.MenuPriceIndex.PriceRow;
 import com.sassfnb.adapters.persistence.entity.MenuItemPriceEntity;
 import com.sassfnb.adapters.persistence.repository.MenuItemPriceRepository;
 import com.sassfnb.adapters.rest.dto.menu.MenuDtos.*;
@@ -12,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +24,9 @@ public class MenuPriceServiceImpl implements MenuPriceService {
     private final MenuItemPriceRepository repo;
     private final TenantResolver tenantResolver;
 
+    // ✅ index giá theo thời gian của outlet (evict kéo theo snapshot menu public)
+    private final MenuPriceIndex priceIndex;
+
     private UUID tenantId() {
         return tenantResolver.currentTenantId();
     }
@@ -52,6 +58,7 @@ public class MenuPriceServiceImpl implements MenuPriceService {
         e.setValidFrom(req.startAt());
         e.setValidTo(req.endAt());
 
+        priceIndex.invalidateItem(itemId);
         return toDto(repo.save(e));
     }
 
@@ -74,6 +81,7 @@ public class MenuPriceServiceImpl implements MenuPriceService {
         if (req.currency() != null)
             e.setVariantName(req.currency());
 
+        priceIndex.invalidateItem(itemId);
         return toDto(repo.save(e));
     }
 
@@ -94,6 +102,7 @@ public class MenuPriceServiceImpl implements MenuPriceService {
         if (!e.getMenuItemId().equals(itemId))
             throw new IllegalArgumentException("Invalid item");
         repo.delete(e);
+        priceIndex.invalidateItem(itemId);
     }
 
     // ================================
@@ -105,10 +114,30 @@ public class MenuPriceServiceImpl implements MenuPriceService {
 
         Instant effectiveAt = (at != null) ? at : Instant.now();
 
-        var p = repo.findEffectivePriceAt(itemId, effectiveAt)
-                .orElseGet(() -> repo.findTopByMenuItemIdOrderByCreatedAtDesc(itemId).orElse(null));
+        // có outlet => tra index in-memory; món không có trong index (khác outlet / chưa có giá) => DB
+        if (outletId != null) {
+            PriceRow row = priceIndex.priceAt(outletId, itemId, effectiveAt);
+            if (row != null)
+                return toDto(row);
+        }
 
-        return p == null ? null : toDto(p);
+        return getEffectivePrices(List.of(itemId), effectiveAt).get(itemId);
+    }
+
+    // ================================
+    // GET EFFECTIVE PRICES (BATCH)
+    // ================================
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, PriceResponse> getEffectivePrices(Collection<UUID> itemIds, Instant at) {
+        if (itemIds == null || itemIds.isEmpty())
+            return Map.of();
+
+        Instant effectiveAt = (at != null) ? at : Instant.now();
+
+        // DISTINCT ON (menu_item_id): dòng phủ at mới tạo nhất, không có thì dòng mới tạo nhất
+        return repo.findEffectivePricesAt(Set.copyOf(itemIds), effectiveAt).stream()
+                .collect(Collectors.toMap(MenuItemPriceEntity::getMenuItemId, this::toDto));
     }
 
     // ================================
@@ -133,4 +162,19 @@ public class MenuPriceServiceImpl implements MenuPriceService {
                 p.getCreatedAt(),
                 p.getUpdatedAt());
     }
+
+    private PriceResponse toDto(PriceRow p) {
+        return new PriceResponse(
+                p.id(),
+                p.itemId(),
+                null,
+                p.variantName(),
+                p.price(),
+                null,
+                p.validFrom(),
+                p.validTo(),
+                true,
+                p.createdAt(),
+                p.updatedAt());
+    }
 }
@@ -4,15 +4,19 @@ import com.sassfnb.adapters.persistence.entity.OrderDiscountEntity;
 import com.sassfnb.adapters.persistence.repository.OrderDiscountRepository;
 import com.sassfnb.adapters.persistence.repository.OrderRepository;
 import com.sassfnb.adapters.rest.dto.billing.DiscountDtos.*;
+import com.sassfnb.application.domain.order.OrderEvents.OrdersChanged;
 import com.sassfnb.application.exception.BadRequestException;
 import com.sassfnb.application.exception.NotFoundException;
 import com.sassfnb.application.ports.TenantResolver;
 import com.sassfnb.application.service.OrderDiscountService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
 
@@ -30,6 +34,9 @@ public class OrderDiscountServiceImpl implements OrderDiscountService {
     private final OrderRepository orderRepository;
     private final OrderDiscountRepository orderDiscountRepository;
 
+    // ✅ khách đang mở order nhận revision mới sau commit
+    private final ApplicationEventPublisher events;
+
     @Override
     @Transactional
     public DiscountResponse apply(UUID orderId, ApplyDiscountRequest request) {
@@ -80,6 +87,7 @@ public class OrderDiscountServiceImpl implements OrderDiscountService {
         e.setCreatedBy(staffId);
 
         OrderDiscountEntity saved = orderDiscountRepository.save(e);
+        events.publishEvent(new OrdersChanged(tenantId, List.of(orderId), Instant.now()));
 
         return DiscountResponse.builder()
                 .id(saved.getId())
@@ -97,5 +105,6 @@ public class OrderDiscountServiceImpl implements OrderDiscountService {
     public void remove(UUID orderId) {
         UUID tenantId = tenantResolver.currentTenantId();
         orderDiscountRepository.deleteByTenantIdAndOrderId(tenantId, orderId);
+        events.publishEvent(new OrdersChanged(tenantId, List.of(orderId), Instant.now()));
     }
 }
@@ -1,5 +1,6 @@
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.cache.TableActiveOrderCache;
 import com.sassfnb.adapters.persistence.entity.OrderEntity;
 import com.sassfnb.adapters.persistence.entity.OrderTableEntity;
 import com.sassfnb.adapters.persistence.repository.OrderRepository;
@@ -21,6 +22,7 @@ public class OrderTableServiceImpl implements OrderTableService {
     private final OrderTableRepository orderTableRepo;
     private final OrderRepository orderRepo;
     private final TenantResolver tenantResolver;
+    private final TableActiveOrderCache tableOrderCache;
 
     private UUID tenantId() {
         return tenantResolver.currentTenantId();
@@ -59,6 +61,9 @@ public class OrderTableServiceImpl implements OrderTableService {
                 .build();
 
         orderTableRepo.save(e);
+
+        // bàn có mapping mới => entry cũ (nếu có) không còn đúng
+        tableOrderCache.invalidateTable(tableId);
     }
 
     @Override
@@ -74,16 +79,11 @@ public class OrderTableServiceImpl implements OrderTableService {
             throw new SecurityException("Forbidden");
         }
 
-        Instant now = Instant.now();
-
         // detach = set unlinked_at cho tất cả mapping của order đang active
-        var mappings = orderTableRepo.findByOrderId(orderId);
-        for (var m : mappings) {
-            if (m.getUnlinkedAt() == null) {
-                m.setUnlinkedAt(now);
-                orderTableRepo.save(m);
-            }
-        }
+        orderTableRepo.unlinkActiveByOrderId(orderId, Instant.now());
+
+        // ✅ close/void đều đi qua đây => bàn rảnh, QR re-scan không reuse order cũ
+        tableOrderCache.invalidateOrder(orderId);
     }
 
     @Override
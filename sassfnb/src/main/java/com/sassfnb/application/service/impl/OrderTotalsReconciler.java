@@ -0,0 +1,44 @@
+package com.sassfnb.application.service.impl;
+
+import com.sassfnb.adapters.persistence.repository.OrderTotalsRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Định kỳ so order_totals (cộng dồn bằng trigger) với SUM thật của các order vừa đổi.
+ * Lệch => rebuild dòng totals + recalc orders (log để còn tìm nguyên nhân drift).
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderTotalsReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderTotalsReconciler.class);
+
+    private final OrderTotalsRepository totalsRepo;
+
+    // quét lùi lại một khoảng > chu kỳ chạy để không lọt order
+    @Value("${app.order-totals.reconcile-lookback-ms:3600000}")
+    private long lookbackMs;
+
+    @Scheduled(fixedDelayString = "${app.order-totals.reconcile-ms:300000}",
+            initialDelayString = "${app.order-totals.reconcile-ms:300000}")
+    @Transactional
+    public void reconcile() {
+        Instant since = Instant.now().minus(Duration.ofMillis(lookbackMs));
+        Integer fixed = totalsRepo.reconcileSince(OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+
+        if (fixed != null && fixed > 0) {
+            log.warn("[OrderTotalsReconciler] repaired {} order_totals rows drifted since {}", fixed, since);
+        }
+    }
+}
@@ -1,18 +1,24 @@
 package com.sassfnb.application.service.impl;
 
-import com.sassfnb.adapters.persistence.entity.OrderDiscountEntity;
 import com.sassfnb.adapters.persistence.entity.OrderEntity;
 import com.sassfnb.adapters.persistence.entity.OrderItemEntity;
+import com.sassfnb.adapters.persistence.entity.OrderTotalsEntity;
+import com.sassfnb.adapters.persistence.repository.OrderDiscountRepository;
 import com.sassfnb.adapters.persistence.repository.OrderItemRepository;
 import com.sassfnb.adapters.persistence.repository.OrderRepository;
+import com.sassfnb.adapters.persistence.repository.OrderTotalsRepository;
 import com.sassfnb.adapters.rest.dto.order.OrderDtos.*;
+import com.sassfnb.application.domain.order.OrderEvents.ItemsStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.KitchenOrdersChanged;
+import com.sassfnb.application.domain.order.OrderEvents.OrdersChanged;
 import com.sassfnb.application.ports.TenantResolver;
 import com.sassfnb.application.service.OrderTableService;
 import com.sassfnb.application.service.OrderWorkflowService;
+import com.sassfnb.common.paging.KeysetCursor;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,11 +35,16 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
 
     private final OrderRepository orderRepo;
     private final OrderItemRepository itemRepo;
+    private final OrderTotalsRepository totalsRepo;
+    private final OrderDiscountRepository discountRepo;
     private final TenantResolver tenantResolver;
 
     // ✅ ADD: detach mapping khi close/void nếu bạn muốn
     private final OrderTableService orderTableService;
 
+    // ✅ sau commit: khách đang mở order nhận revision mới, KDS stream nhận delta khi item vào/ra board
+    private final ApplicationEventPublisher events;
+
     @PersistenceContext
     private EntityManager em;
 
@@ -58,14 +69,49 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
     private static final String DISCOUNT_AMOUNT = "AMOUNT";
     private static final String DISCOUNT_PERCENT = "PERCENT";
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUBMIT_BATCH = 50;
+
     private UUID tenantId() {
         return tenantResolver.currentTenantId();
     }
 
+    // bếp (KDS stream) + khách đang mở order đều nhận sau commit => không cần orderChanged thêm
+    private void kitchenChanged(UUID tenantId, List<UUID> orderIds) {
+        events.publishEvent(new KitchenOrdersChanged(tenantId, orderIds, Instant.now()));
+    }
+
+    // status history (ghi batch, bất đồng bộ sau commit)
+    private void itemsChanged(UUID tenantId, List<UUID> itemIds, String toStatus, UUID changedBy, String note) {
+        if (itemIds == null || itemIds.isEmpty())
+            return;
+        events.publishEvent(new ItemsStatusChanged(tenantId, itemIds, toStatus, changedBy, note, Instant.now()));
+    }
+
+    private UUID currentUserIdOrNull() {
+        try {
+            return tenantResolver.currentUserId();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static List<UUID> newItemIds(List<OrderItemEntity> items) {
+        return items.stream()
+                .filter(i -> NEW.equalsIgnoreCase(i.getStatus()))
+                .map(OrderItemEntity::getId)
+                .toList();
+    }
+
     private boolean isFinalStatus(String s) {
         return PAID.equalsIgnoreCase(s) || CLOSED.equalsIgnoreCase(s) || VOIDED.equalsIgnoreCase(s);
     }
 
+    // khách đang mở order (SSE) nhận revision mới sau commit
+    private void orderChanged(OrderEntity o) {
+        events.publishEvent(new OrdersChanged(o.getTenantId(), List.of(o.getId()), Instant.now()));
+    }
+
     private BigDecimal safe(BigDecimal x) {
         return x == null ? BigDecimal.ZERO : x;
     }
@@ -115,9 +161,94 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
         }
 
         o = orderRepo.save(o);
+        kitchenChanged(o.getTenantId(), List.of(o.getId()));
+        itemsChanged(o.getTenantId(), newItemIds(items), FIRED, currentUserIdOrNull(), null);
         return new SubmitOrderResponse(o.getId(), o.getStatus(), o.getUpdatedAt());
     }
 
+    // =========================
+    // ✅ SUBMIT BATCH (staff): N order, 1 transaction, 1 bulk UPDATE order_items
+    // order không hợp lệ => trả lỗi riêng, không làm hỏng các order khác
+    // =========================
+    @Override
+    public SubmitBatchResponse submitBatch(SubmitBatchRequest req) {
+        List<UUID> orderIds = Optional.ofNullable(req).map(SubmitBatchRequest::orderIds).orElse(List.of())
+                .stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        if (orderIds.isEmpty()) {
+            throw new IllegalArgumentException("orderIds is required");
+        }
+        if (orderIds.size() > MAX_SUBMIT_BATCH) {
+            throw new IllegalArgumentException("Too many orders (max " + MAX_SUBMIT_BATCH + ")");
+        }
+
+        Map<UUID, OrderEntity> orderById = new HashMap<>();
+        for (OrderEntity o : orderRepo.findByTenantIdAndIdIn(tenantId(), orderIds)) {
+            orderById.put(o.getId(), o);
+        }
+
+        // 1 query: tổng item + số item NEW theo order
+        Map<UUID, long[]> countsByOrder = new HashMap<>();
+        List<Object[]> countRows = orderById.isEmpty() ? List.of() : itemRepo.countItemsByOrderIds(orderById.keySet(), NEW);
+        for (Object[] row : countRows) {
+            long total = ((Number) row[1]).longValue();
+            long newCount = row[2] == null ? 0 : ((Number) row[2]).longValue();
+            countsByOrder.put((UUID) row[0], new long[] { total, newCount });
+        }
+
+        Map<UUID, String> errors = new HashMap<>();
+        List<OrderEntity> eligible = new ArrayList<>();
+
+        for (UUID id : orderIds) {
+            OrderEntity o = orderById.get(id);
+            long[] counts = countsByOrder.getOrDefault(id, new long[] { 0, 0 });
+
+            if (o == null) {
+                errors.put(id, "Order not found");
+            } else if (isFinalStatus(o.getStatus())) {
+                errors.put(id, "Cannot submit a PAID/CLOSED/VOIDED order");
+            } else if (!DRAFT.equalsIgnoreCase(o.getStatus()) && !OPEN.equalsIgnoreCase(o.getStatus())) {
+                errors.put(id, "Only DRAFT/OPEN order can be submitted");
+            } else if (counts[0] == 0) {
+                errors.put(id, "Cannot submit empty order");
+            } else if (counts[1] == 0) {
+                errors.put(id, "No NEW items to submit");
+            } else {
+                if (DRAFT.equalsIgnoreCase(o.getStatus())) {
+                    o.setStatus(OPEN);
+                }
+                eligible.add(o);
+            }
+        }
+
+        if (!eligible.isEmpty()) {
+            orderRepo.saveAll(eligible);
+            // flush order trước rồi 1 UPDATE cho item NEW của mọi order hợp lệ
+            List<UUID> eligibleIds = eligible.stream().map(OrderEntity::getId).toList();
+            List<UUID> firedItemIds = itemRepo.findIdsByOrderIdsAndStatus(eligibleIds, NEW);
+            itemRepo.bulkUpdateStatusByOrderIdsAndStatus(eligibleIds, NEW, FIRED, Instant.now());
+            kitchenChanged(eligible.get(0).getTenantId(), eligibleIds);
+            itemsChanged(eligible.get(0).getTenantId(), firedItemIds, FIRED, currentUserIdOrNull(), null);
+        }
+
+        List<SubmitBatchResult> results = new ArrayList<>(orderIds.size());
+        for (UUID id : orderIds) {
+            String error = errors.get(id);
+            if (error != null) {
+                results.add(new SubmitBatchResult(id, false, null, null, error, null));
+                continue;
+            }
+            OrderEntity o = orderById.get(id);
+            int fired = (int) countsByOrder.get(id)[1];
+            results.add(new SubmitBatchResult(id, true, o.getStatus(), fired, null, o.getUpdatedAt()));
+        }
+
+        return new SubmitBatchResponse(eligible.size(), errors.size(), results);
+    }
+
     // =========================
     // ✅ SUBMIT (public)
     // =========================
@@ -156,6 +287,8 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
         }
 
         o = orderRepo.save(o);
+        kitchenChanged(o.getTenantId(), List.of(o.getId()));
+        itemsChanged(o.getTenantId(), newItemIds(items), FIRED, null, null);
         return new SubmitOrderResponse(o.getId(), o.getStatus(), o.getUpdatedAt());
     }
 
@@ -187,6 +320,7 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
         }
 
         o = orderRepo.save(o);
+        orderChanged(o);
         return new ReopenOrderResponse(o.getId(), o.getStatus(), o.getUpdatedAt());
     }
 
@@ -218,6 +352,7 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
         }
 
         o = orderRepo.save(o);
+        orderChanged(o);
         return new ReopenOrderResponse(o.getId(), o.getStatus(), o.getUpdatedAt());
     }
 
@@ -228,7 +363,45 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
     @Transactional(readOnly = true)
     public Page<OrderResponse> staffList(StaffOrderListRequest req, Pageable pageable) {
         Page<OrderEntity> page = searchOrders(req, pageable);
-        return page.map(this::toOrderResponse);
+        // entity vừa load => revision trên entity là mới nhất
+        return page.map(o -> toOrderResponse(o, o.getRevision()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderCursorPage staffListKeyset(StaffOrderListRequest req, String cursor, int size) {
+        if (req == null || req.outletId() == null) {
+            throw new IllegalArgumentException("outletId is required");
+        }
+
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        KeysetCursor c = KeysetCursor.decode(cursor);
+
+        String status = (req.status() == null || req.status().isBlank()) ? null : safeUpper(req.status());
+
+        // lấy dư 1 dòng => biết còn trang sau mà không cần count(*)
+        List<OrderEntity> rows = orderRepo.searchKeyset(tenantId(), req.outletId(), status, req.tableId(), req.q(),
+                c == null ? null : c.at(), c == null ? null : c.id(), limit + 1);
+
+        boolean hasMore = rows.size() > limit;
+        List<OrderEntity> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            OrderEntity last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        List<OrderResponse> items = pageRows.stream()
+                .map(o -> toOrderResponse(o, o.getRevision()))
+                .toList();
+
+        return new OrderCursorPage(items, nextCursor, hasMore);
+    }
+
+    private static String safeUpper(String s) {
+        return s == null ? "" : s.trim().toUpperCase();
     }
 
     @Override
@@ -243,32 +416,49 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
     @Override
     public OrderResponse fire(UUID orderId, FireOrderRequest req) {
         OrderEntity o = findOrderStaff(orderId);
+        fireItems(o, req);
+        return toOrderResponse(o);
+    }
+
+    @Override
+    public OrderDeltaResponse fireDelta(UUID orderId, FireOrderRequest req) {
+        OrderEntity o = findOrderStaff(orderId);
+        List<UUID> fired = fireItems(o, req);
+        return toOrderDelta(o, fired);
+    }
 
+    /**
+     * NEW -> FIRED bằng 1 UPDATE theo id-list (precondition status = NEW).
+     * Trả về id các item thực sự chuyển NEW -> FIRED (id không thuộc order / đã fire thì bỏ).
+     */
+    private List<UUID> fireItems(OrderEntity o, FireOrderRequest req) {
         if (!OPEN.equalsIgnoreCase(o.getStatus())) {
             throw new IllegalStateException("Only OPEN order can be fired");
         }
 
-        var items = itemRepo.findByOrderIdOrderByCreatedAtAsc(orderId);
-
         boolean fireAll = req != null && Boolean.TRUE.equals(req.all());
-        Set<UUID> targetIds = new HashSet<>(
-                Optional.ofNullable(req).map(FireOrderRequest::itemIds).orElse(List.of()));
 
-        Instant now = Instant.now();
+        List<UUID> newIds = itemRepo.findIdsByOrderIdAndStatus(o.getId(), NEW);
 
-        for (var it : items) {
-            boolean shouldFire = fireAll || targetIds.contains(it.getId());
-            if (!shouldFire)
-                continue;
+        List<UUID> targetIds = fireAll
+                ? newIds
+                : Optional.ofNullable(req).map(FireOrderRequest::itemIds).orElse(List.of()).stream()
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .toList();
 
-            if (NEW.equalsIgnoreCase(it.getStatus())) {
-                it.setStatus(FIRED);
-                it.setUpdatedAt(now);
-                itemRepo.save(it);
-            }
-        }
+        // chỉ item thực sự NEW -> FIRED (UPDATE + delta dùng chung list này)
+        Set<UUID> newSet = new HashSet<>(newIds);
+        List<UUID> fired = targetIds.stream().filter(newSet::contains).toList();
+        if (fired.isEmpty())
+            return List.of();
 
-        return toOrderResponse(findOrderStaff(orderId));
+        itemRepo.bulkUpdateStatusByOrderIdAndIdsAndStatus(o.getId(), fired, NEW, FIRED, Instant.now());
+        kitchenChanged(o.getTenantId(), List.of(o.getId()));
+
+        // history chỉ cho item thực sự NEW -> FIRED
+        itemsChanged(o.getTenantId(), fired, FIRED, currentUserIdOrNull(), null);
+        return fired;
     }
 
     // =========================
@@ -276,9 +466,20 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
     // =========================
     @Override
     public OrderResponse voidItem(UUID orderId, UUID itemId, VoidItemRequest req) {
-        findOrderStaff(orderId);
+        OrderEntity o = findOrderStaff(orderId);
+        voidOneItem(o, itemId, req);
+        return toOrderResponse(o);
+    }
+
+    @Override
+    public OrderDeltaResponse voidItemDelta(UUID orderId, UUID itemId, VoidItemRequest req) {
+        OrderEntity o = findOrderStaff(orderId);
+        voidOneItem(o, itemId, req);
+        return toOrderDelta(o, List.of(itemId));
+    }
 
-        OrderItemEntity it = itemRepo.findByIdAndOrderId(itemId, orderId)
+    private void voidOneItem(OrderEntity o, UUID itemId, VoidItemRequest req) {
+        OrderItemEntity it = itemRepo.findByIdAndOrderId(itemId, o.getId())
                 .orElseThrow(() -> new NoSuchElementException("Order item not found"));
 
         if (SERVED.equalsIgnoreCase(it.getStatus())) {
@@ -287,13 +488,15 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
 
         it.setStatus(VOIDED);
 
-        if (req != null && req.reason() != null && !req.reason().isBlank()) {
-            String extra = "[VOID] " + req.reason().trim();
+        String reason = (req == null || req.reason() == null || req.reason().isBlank()) ? null : req.reason().trim();
+        if (reason != null) {
+            String extra = "[VOID] " + reason;
             it.setNote(it.getNote() == null ? extra : (it.getNote() + "\n" + extra));
         }
 
         itemRepo.save(it);
-        return toOrderResponse(findOrderStaff(orderId));
+        kitchenChanged(o.getTenantId(), List.of(o.getId()));
+        itemsChanged(o.getTenantId(), List.of(it.getId()), VOIDED, currentUserIdOrNull(), reason);
     }
 
     @Override
@@ -313,26 +516,26 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
 
         orderRepo.save(o);
 
-        var items = itemRepo.findByOrderIdOrderByCreatedAtAsc(orderId);
-        for (var it : items) {
-            if (!SERVED.equalsIgnoreCase(it.getStatus())) {
-                it.setStatus(VOIDED);
-                itemRepo.save(it);
-            }
-        }
+        // 1 UPDATE cho mọi item chưa SERVED (bulk update sẽ flush order trước)
+        List<UUID> voidedIds = itemRepo.findIdsByOrderIdExcludingStatuses(orderId, List.of(SERVED, VOIDED));
+        itemRepo.bulkUpdateStatusByOrderIdExcludingStatuses(orderId, List.of(SERVED, VOIDED), VOIDED, Instant.now());
+        kitchenChanged(o.getTenantId(), List.of(orderId));
+        itemsChanged(o.getTenantId(), voidedIds, VOIDED, currentUserIdOrNull(),
+                (req == null || req.reason() == null || req.reason().isBlank()) ? null : req.reason().trim());
 
         // ✅ OPTIONAL: void xong cũng detach table để tránh quét QR ra order lỗi
         orderTableService.detachByOrder(orderId);
 
-        return toOrderResponse(findOrderStaff(orderId));
+        return toOrderResponse(o);
     }
 
     @Override
     public OrderResponse patchNote(UUID orderId, PatchOrderNoteRequest req) {
         OrderEntity o = findOrderStaff(orderId);
         o.setNote(req == null ? null : req.note());
-        orderRepo.save(o);
-        return toOrderResponse(findOrderStaff(orderId));
+        o = orderRepo.save(o);
+        orderChanged(o);
+        return toOrderResponse(o);
     }
 
     private OrderEntity findOrderStaff(UUID orderId) {
@@ -350,10 +553,24 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
     public OrderTotalsResponse totals(UUID orderId) {
         OrderEntity o = findOrderStaff(orderId);
 
-        BigDecimal subTotal = safe(itemRepo.sumTotalByOrderIdExcludeStatus(orderId, VOIDED));
-        BigDecimal itemDiscountTotal = safe(itemRepo.sumDiscountByOrderIdExcludeStatus(orderId, VOIDED));
-
-        BigDecimal orderDiscount = resolveOrderLevelDiscount(o.getId(), subTotal);
+        BigDecimal subTotal;
+        BigDecimal itemDiscountTotal;
+        BigDecimal orderDiscount;
+
+        // ✅ O(1): 1 dòng order_totals (trigger cộng dồn), không SUM order_items mỗi lần
+        OrderTotalsEntity t = totalsRepo.findById(o.getId()).orElse(null);
+        if (t != null) {
+            subTotal = safe(t.getLineTotal());
+            itemDiscountTotal = safe(t.getItemDiscount());
+            orderDiscount = resolveOrderLevelDiscount(t.getOrderDiscountType(), t.getOrderDiscountValue(), subTotal);
+        } else {
+            // chưa có dòng order_totals (order chưa có item/discount/payment, hoặc reconcile chưa chạy) => tính trực tiếp
+            subTotal = safe(itemRepo.sumTotalByOrderIdExcludeStatus(o.getId(), VOIDED));
+            itemDiscountTotal = safe(itemRepo.sumDiscountByOrderIdExcludeStatus(o.getId(), VOIDED));
+            orderDiscount = discountRepo.findByTenantIdAndOrderId(o.getTenantId(), o.getId())
+                    .map(d -> resolveOrderLevelDiscount(d.getType(), d.getValue(), subTotal))
+                    .orElse(BigDecimal.ZERO);
+        }
 
         BigDecimal discountTotal = itemDiscountTotal.add(orderDiscount);
 
@@ -370,46 +587,24 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
                 Instant.now());
     }
 
-    private BigDecimal resolveOrderLevelDiscount(UUID orderId, BigDecimal subTotal) {
+    // order_discounts unique theo order => type/value nằm sẵn trong order_totals
+    private BigDecimal resolveOrderLevelDiscount(String type, BigDecimal rawValue, BigDecimal subTotal) {
         if (subTotal == null || subTotal.compareTo(BigDecimal.ZERO) <= 0)
             return BigDecimal.ZERO;
 
-        try {
-            TypedQuery<OrderDiscountEntity> q = em.createQuery(
-                    "select d from OrderDiscountEntity d " +
-                            "where d.tenantId = :tenantId and d.orderId = :orderId " +
-                            "order by d.createdAt desc",
-                    OrderDiscountEntity.class);
-            q.setParameter("tenantId", tenantId());
-            q.setParameter("orderId", orderId);
-            q.setMaxResults(1);
-
-            List<OrderDiscountEntity> rows = q.getResultList();
-            if (rows.isEmpty())
-                return BigDecimal.ZERO;
-
-            OrderDiscountEntity d = rows.get(0);
-            if (d == null)
-                return BigDecimal.ZERO;
-
-            String type = d.getType();
-            BigDecimal value = safe(d.getValue());
-
-            BigDecimal result;
-            if (DISCOUNT_PERCENT.equalsIgnoreCase(type)) {
-                result = subTotal.multiply(value)
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-            } else if (DISCOUNT_AMOUNT.equalsIgnoreCase(type)) {
-                result = value;
-            } else {
-                return BigDecimal.ZERO;
-            }
-
-            return clamp(result, BigDecimal.ZERO, subTotal);
+        BigDecimal value = safe(rawValue);
 
-        } catch (Exception ex) {
+        BigDecimal result;
+        if (DISCOUNT_PERCENT.equalsIgnoreCase(type)) {
+            result = subTotal.multiply(value)
+                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        } else if (DISCOUNT_AMOUNT.equalsIgnoreCase(type)) {
+            result = value;
+        } else {
             return BigDecimal.ZERO;
         }
+
+        return clamp(result, BigDecimal.ZERO, subTotal);
     }
 
     // =========================
@@ -423,8 +618,8 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
             throw new IllegalStateException("Only OPEN/SUBMITTED order can be closed");
         }
 
-        var items = itemRepo.findByOrderIdOrderByCreatedAtAsc(orderId);
-        if (items.isEmpty()) {
+        int itemCount = totalsRepo.findById(orderId).map(OrderTotalsEntity::getItemCount).orElse(0);
+        if (itemCount == 0) {
             throw new IllegalStateException("Cannot close empty order");
         }
 
@@ -457,6 +652,10 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
     }
 
     private OrderResponse toOrderResponse(OrderEntity o) {
+        return toOrderResponse(o, currentRevision(o));
+    }
+
+    private OrderResponse toOrderResponse(OrderEntity o, Long revision) {
         var items = itemRepo.findByOrderIdOrderByCreatedAtAsc(o.getId());
 
         BigDecimal grandTotal = items.stream()
@@ -482,7 +681,32 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
                 grandTotal,
                 itemDtos,
                 o.getCreatedAt(),
-                o.getUpdatedAt());
+                o.getUpdatedAt(),
+                revision);
+    }
+
+    /** Delta: chỉ các item vừa đổi + grandTotal (1 aggregate query) */
+    private OrderDeltaResponse toOrderDelta(OrderEntity o, List<UUID> changedIds) {
+        List<OrderItemResponse> changed = changedIds.isEmpty()
+                ? List.of()
+                : itemRepo.findByOrderIdAndIdInOrderByCreatedAtAsc(o.getId(), changedIds).stream()
+                        .map(this::toItemResponse)
+                        .toList();
+
+        BigDecimal grandTotal = safe(itemRepo.sumTotalByOrderIdExcludeStatus(o.getId(), VOIDED));
+
+        return new OrderDeltaResponse(
+                o.getId(),
+                o.getStatus(),
+                currentRevision(o),
+                grandTotal,
+                changed,
+                Instant.now());
+    }
+
+    // revision do trigger DB bump -> đọc lại (JPQL sẽ flush pending changes trước)
+    private Long currentRevision(OrderEntity o) {
+        return orderRepo.findRevisionById(o.getId()).orElse(o.getRevision());
     }
 
     private OrderItemResponse toItemResponse(OrderItemEntity it) {
@@ -515,9 +739,10 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
         params.put("outletId", req.outletId());
 
         if (req.status() != null && !req.status().isBlank()) {
-            jpql.append(" and lower(o.status) = lower(:status)");
-            countJpql.append(" and lower(o.status) = lower(:status)");
-            params.put("status", req.status().trim());
+            // status luôn UPPERCASE (ck_orders_status) => so sánh trực tiếp, dùng được index
+            jpql.append(" and o.status = :status");
+            countJpql.append(" and o.status = :status");
+            params.put("status", safeUpper(req.status()));
         }
 
         if (req.tableId() != null) {
@@ -532,7 +757,7 @@ public class OrderWorkflowServiceImpl implements OrderWorkflowService {
             params.put("q", "%" + req.q().trim() + "%");
         }
 
-        jpql.append(" order by o.createdAt desc");
+        jpql.append(" order by o.createdAt desc, o.id desc");
 
         var query = em.createQuery(jpql.toString(), OrderEntity.class);
         var countQuery = em.createQuery(countJpql.toString(), Long.class);
@@ -1,9 +1,17 @@
 package com.sassfnb.application.service.impl;
 
-import com.sassfnb.adapters.persistence.entity.MenuOptionValueEntity;
+import com.sassfnb.adapters.cache.MenuOptionGraphCache;
+import com.sassfnb.adapters.cache.MenuOptionGraphCache.Graph;
+import com.sassfnb.adapters.cache.MenuPriceIndex;
+import com.sassfnb.adapters.cache.MenuPriceIndex.PriceRow;
+import com.sassfnb.adapters.cache.MenuPriceIndex.PricesAt;
+import com.sassfnb.adapters.cache.PublicMenuPayloadCache;
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache;
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache.Built;
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache.Snapshot;
+import com.sassfnb.adapters.persistence.entity.MenuItemEntity;
 import com.sassfnb.adapters.persistence.repository.*;
 import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.*;
-import com.sassfnb.application.service.MenuPriceService;
 import com.sassfnb.application.service.PublicMenuService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -24,15 +32,38 @@ public class PublicMenuServiceImpl implements PublicMenuService {
 
     private final MenuCategoryRepository catRepo;
     private final MenuItemRepository itemRepo;
+    private final MenuPriceIndex priceIndex;
 
-    private final MenuOptionRepository optRepo;
-    private final MenuOptionValueRepository valRepo;
+    private final MenuOptionGraphCache optionGraph;
 
-    private final MenuPriceService priceService;
+    // ✅ snapshot bất biến theo outlet => tree chỉ còn lookup map (dựng lại khi menu/giá/option đổi)
+    private final PublicMenuSnapshotCache snapshots;
+    private final PublicMenuPayloadCache payloads;
 
     @Override
     public PublicMenuTreeResponse tree(UUID orderId, UUID outletId, Instant at) {
-        // 1) Resolve outletId + tenantId ưu tiên từ order
+        UUID outId = resolveOutletId(orderId, outletId);
+        Instant effectiveAt = (at != null) ? at : Instant.now();
+
+        Snapshot snap = snapshots.get(outId, at, t -> build(outId, t));
+
+        // currency: hiện tại tạm hardcode
+        String currency = "VND";
+
+        return new PublicMenuTreeResponse(outId, currency, effectiveAt, snap.categories());
+    }
+
+    @Override
+    public PublicMenuPayload currentPayload(UUID orderId, UUID outletId) {
+        UUID outId = resolveOutletId(orderId, outletId);
+        Snapshot snap = snapshots.get(outId, null, t -> build(outId, t));
+
+        // at = lúc dựng snapshot => bytes chỉ phụ thuộc version (ETag ổn định giữa các lần quét)
+        return payloads.get(snap, s -> new PublicMenuTreeResponse(outId, "VND", s.builtAt(), s.categories()));
+    }
+
+    // 1) Resolve outletId ưu tiên từ order
+    private UUID resolveOutletId(UUID orderId, UUID outletId) {
         UUID resolvedOutletId = outletId;
 
         if (orderId != null) {
@@ -44,92 +75,87 @@ public class PublicMenuServiceImpl implements PublicMenuService {
         if (resolvedOutletId == null) {
             throw new IllegalArgumentException("Missing outletId (or orderId)");
         }
+        return resolvedOutletId;
+    }
 
-        Instant effectiveAt = (at != null) ? at : Instant.now();
-
+    /**
+     * Dựng toàn bộ tree tại thời điểm at bằng 2 query (category, item) + MenuPriceIndex + MenuOptionGraphCache
+     * thay vì 2-3 query mỗi món. Trả kèm cửa sổ thời gian mà giá effective không đổi.
+     */
+    private Built build(UUID outletId, Instant at) {
         // 2) Load categories của outlet (chỉ ACTIVE)
-        var categories = new ArrayList<>(catRepo.findByOutletIdOrderBySortOrderAscNameAsc(resolvedOutletId));
+        var categories = new ArrayList<>(catRepo.findByOutletIdOrderBySortOrderAscNameAsc(outletId));
         categories.removeIf(c -> c.getStatus() != null && !"ACTIVE".equalsIgnoreCase(c.getStatus()));
 
         // 3) Load items của outlet (chỉ available=true => ACTIVE)
-        var itemsAll = new ArrayList<>(itemRepo.findByOutletId(resolvedOutletId));
+        var itemsAll = new ArrayList<>(itemRepo.findByOutletId(outletId));
         itemsAll.removeIf(i -> !Boolean.TRUE.equals(i.getAvailable()));
 
+        // giá effective của cả outlet tại at + cửa sổ [validFrom, validUntil) mà giá không đổi
+        PricesAt prices = priceIndex.pricesAt(outletId, at);
+
+        // item -> option -> value của outlet (in-memory)
+        Graph options = optionGraph.graph(outletId);
+
         // group items theo categoryId (null => UNCATEGORIZED_ID)
-        Map<UUID, List<com.sassfnb.adapters.persistence.entity.MenuItemEntity>> itemsByCat = itemsAll.stream()
+        Map<UUID, List<MenuItemEntity>> itemsByCat = itemsAll.stream()
                 .collect(Collectors.groupingBy(i -> i.getCategoryId() == null ? UNCATEGORIZED_ID : i.getCategoryId()));
 
         // 4) Build tree
         List<CategoryNode> catNodes = new ArrayList<>();
 
         for (var c : categories) {
-            UUID catId = c.getId();
-            List<com.sassfnb.adapters.persistence.entity.MenuItemEntity> catItems = itemsByCat.getOrDefault(catId,
-                    List.of());
-
-            List<ItemNode> itemNodes = buildItemNodes(catItems, resolvedOutletId, effectiveAt);
+            List<MenuItemEntity> catItems = itemsByCat.getOrDefault(c.getId(), List.of());
 
             catNodes.add(new CategoryNode(
                     c.getId(),
                     c.getName(),
                     c.getSortOrder(),
-                    itemNodes));
+                    buildItemNodes(catItems, prices.byItem(), options)));
         }
 
         // ✅ 5) Add "Khác" nếu có items category null
-        List<com.sassfnb.adapters.persistence.entity.MenuItemEntity> uncategorizedItems = itemsByCat
-                .getOrDefault(UNCATEGORIZED_ID, List.of());
+        List<MenuItemEntity> uncategorizedItems = itemsByCat.getOrDefault(UNCATEGORIZED_ID, List.of());
 
         if (!uncategorizedItems.isEmpty()) {
-            List<ItemNode> itemNodes = buildItemNodes(uncategorizedItems, resolvedOutletId, effectiveAt);
-
             catNodes.add(new CategoryNode(
                     UNCATEGORIZED_ID,
                     "Khác",
                     999999,
-                    itemNodes));
+                    buildItemNodes(uncategorizedItems, prices.byItem(), options)));
         }
 
-        // currency: hiện tại tạm hardcode
-        String currency = "VND";
-
-        return new PublicMenuTreeResponse(resolvedOutletId, currency, effectiveAt, catNodes);
+        return new Built(prices.validFrom(), prices.validUntil(), catNodes);
     }
 
     private List<ItemNode> buildItemNodes(
-            List<com.sassfnb.adapters.persistence.entity.MenuItemEntity> items,
-            UUID outletId,
-            Instant effectiveAt) {
-        List<ItemNode> itemNodes = new ArrayList<>();
+            List<MenuItemEntity> items,
+            Map<UUID, PriceRow> pricesByItem,
+            Graph options) {
+        List<ItemNode> itemNodes = new ArrayList<>(items.size());
 
         for (var item : items) {
             // effective price
-            var p = priceService.getEffectivePrice(item.getId(), outletId, effectiveAt);
-            var effectivePrice = (p != null && p.basePrice() != null) ? p.basePrice() : item.getBasePrice();
+            PriceRow p = pricesByItem.get(item.getId());
+            var effectivePrice = (p != null && p.price() != null) ? p.price() : item.getBasePrice();
 
             // options theo item
-            var optEntities = optRepo.findByItemIdOrderByNameAsc(item.getId());
             List<OptionNode> optNodes = new ArrayList<>();
 
-            for (var o : optEntities) {
-                List<MenuOptionValueEntity> valEntities = valRepo
-                        .findByMenuOptionIdOrderBySortOrderAscNameAsc(o.getId());
-
-                List<OptionValueNode> values = valEntities.stream()
+            for (var o : options.options(item.getId())) {
+                List<OptionValueNode> values = o.values().stream()
                         .map(v -> new OptionValueNode(
-                                v.getId(),
-                                v.getName(),
-                                v.getExtraPrice(),
-                                v.getSortOrder()))
+                                v.id(),
+                                v.name(),
+                                v.extraPrice(),
+                                v.sortOrder()))
                         .toList();
 
-                boolean isMulti = "MULTI".equalsIgnoreCase(o.getSelectionType());
-
                 optNodes.add(new OptionNode(
-                        o.getId(),
-                        o.getName(),
-                        o.getRequired(),
-                        isMulti,
+                        o.id(),
+                        o.name(),
+                        o.required(),
+                        o.multiSelect(),
                         values));
             }
 
@@ -139,9 +165,9 @@ public class PublicMenuServiceImpl implements PublicMenuService {
                     item.getDescription(),
                     item.getImageUrl(),
                     effectivePrice,
-                    optNodes));
+                    List.copyOf(optNodes)));
         }
 
-        return itemNodes;
+        return List.copyOf(itemNodes);
     }
 }
@@ -1,15 +1,25 @@
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.cache.MenuOptionGraphCache;
+import com.sassfnb.adapters.cache.MenuOptionGraphCache.Graph;
+import com.sassfnb.adapters.cache.MenuOptionGraphCache.Option;
+import com.sassfnb.adapters.cache.MenuOptionGraphCache.OptionValue;
+import com.sassfnb.adapters.cache.TableActiveOrderCache;
 import com.sassfnb.adapters.persistence.entity.*;
 import com.sassfnb.adapters.persistence.repository.*;
+import com.sassfnb.adapters.rest.dto.menu.MenuDtos.PriceResponse;
 import com.sassfnb.adapters.rest.dto.publicorder.PublicOrderDtos.*;
+import com.sassfnb.application.domain.order.OrderEvents.OrdersChanged;
+import com.sassfnb.application.service.MenuPriceService;
 import com.sassfnb.application.service.PublicOrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -20,16 +30,22 @@ public class PublicOrderServiceImpl implements PublicOrderService {
     private final OrderRepository orderRepo;
     private final OrderItemRepository orderItemRepo;
     private final OrderItemOptionSelectionRepository selectionRepo;
+    private final OrderItemBatchRepository batchRepo;
 
     private final QrSessionRepository qrSessionRepo;
 
     private final MenuItemRepository menuItemRepo;
     private final MenuItemPriceRepository priceRepo;
+    private final MenuPriceService priceService;
 
-    private final MenuOptionRepository optionRepo;
-    private final MenuOptionValueRepository optionValueRepo;
+    // item -> option -> value của outlet (validate lựa chọn không cần query)
+    private final MenuOptionGraphCache optionGraph;
 
     private final OrderTableRepository orderTableRepo;
+    private final TableActiveOrderCache tableOrderCache;
+
+    // ✅ máy khác cùng bàn đang mở order => nhận revision mới sau commit
+    private final ApplicationEventPublisher events;
 
     private static final String DRAFT = "DRAFT";
     private static final String OPEN = "OPEN";
@@ -92,22 +108,76 @@ public class PublicOrderServiceImpl implements PublicOrderService {
     @Override
     @Transactional
     public OrderResponse addItems(UUID orderId, List<AddItemRequest> items) {
-        OrderEntity o = mustGetOrder(orderId);
+        OrderEntity o = mustGetOrderForWrite(orderId);
+        ensureEditable(o);
+
+        insertItems(o, items);
+        return buildOrderResponse(o);
+    }
+
+    @Override
+    @Transactional
+    public OrderDeltaResponse addItemsDelta(UUID orderId, List<AddItemRequest> items) {
+        OrderEntity o = mustGetOrderForWrite(orderId);
         ensureEditable(o);
 
+        List<UUID> added = insertItems(o, items);
+        return buildOrderDelta(o, added, List.of());
+    }
+
+    /** Validate + batch insert; trả về id các item vừa thêm (theo thứ tự request) */
+    private List<UUID> insertItems(OrderEntity o, List<AddItemRequest> items) {
         if (items == null || items.isEmpty())
-            return buildOrderResponse(o);
+            return List.of();
 
-        for (AddItemRequest it : items) {
-            if (it == null)
-                continue;
+        List<AddItemRequest> lines = items.stream().filter(Objects::nonNull).toList();
+        if (lines.isEmpty())
+            return List.of();
 
+        for (AddItemRequest it : lines) {
             if (it.menuItemId() == null || it.quantity() == null || it.quantity() <= 0) {
                 throw new IllegalArgumentException("menuItemId & quantity>0 are required");
             }
+        }
+
+        // ✅ 1) prefetch (1 query / loại) thay vì query từng dòng
+        Set<UUID> menuItemIds = lines.stream()
+                .map(AddItemRequest::menuItemId)
+                .collect(Collectors.toSet());
+
+        Map<UUID, MenuItemEntity> menuById = menuItemRepo.findByOutletIdAndIdIn(o.getOutletId(), menuItemIds)
+                .stream()
+                .collect(Collectors.toMap(MenuItemEntity::getId, x -> x));
 
-            MenuItemEntity mi = menuItemRepo.findByIdAndOutletId(it.menuItemId(), o.getOutletId())
-                    .orElseThrow(() -> new IllegalArgumentException("Menu item not found in outlet"));
+        Set<UUID> priceIds = lines.stream()
+                .map(AddItemRequest::priceId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<UUID, MenuItemPriceEntity> priceById = priceIds.isEmpty()
+                ? Map.of()
+                : priceRepo.findAllById(priceIds).stream()
+                        .collect(Collectors.toMap(MenuItemPriceEntity::getId, x -> x));
+
+        // dòng không chỉ định priceId => giá effective hiện tại (cùng giá menu đang hiển thị), 1 query cho cả batch
+        Set<UUID> unpricedItemIds = lines.stream()
+                .filter(it -> it.priceId() == null)
+                .map(AddItemRequest::menuItemId)
+                .collect(Collectors.toSet());
+
+        Instant now = Instant.now();
+        Map<UUID, PriceResponse> effectiveByItem = priceService.getEffectivePrices(unpricedItemIds, now);
+
+        Graph options = optionGraph.graph(o.getOutletId());
+
+        // ✅ 2) validate + build rows in memory
+        List<OrderItemEntity> newItems = new ArrayList<>(lines.size());
+        List<OrderItemOptionSelectionEntity> newSelections = new ArrayList<>();
+
+        for (AddItemRequest it : lines) {
+            MenuItemEntity mi = menuById.get(it.menuItemId());
+            if (mi == null)
+                throw new IllegalArgumentException("Menu item not found in outlet");
 
             if (!Boolean.TRUE.equals(mi.getAvailable()))
                 throw new IllegalStateException("Item not available");
@@ -116,17 +186,24 @@ public class PublicOrderServiceImpl implements PublicOrderService {
             UUID priceId = null;
 
             if (it.priceId() != null) {
-                MenuItemPriceEntity p = priceRepo.findByIdAndMenuItemId(it.priceId(), mi.getId())
-                        .orElseThrow(() -> new IllegalArgumentException("Invalid priceId for menu item"));
+                MenuItemPriceEntity p = priceById.get(it.priceId());
+                if (p == null || !mi.getId().equals(p.getMenuItemId()))
+                    throw new IllegalArgumentException("Invalid priceId for menu item");
                 baseUnitPrice = nvl(p.getPrice());
                 priceId = p.getId();
             } else {
-                baseUnitPrice = nvl(mi.getBasePrice());
+                PriceResponse p = effectiveByItem.get(mi.getId());
+                if (p != null && p.basePrice() != null) {
+                    baseUnitPrice = p.basePrice();
+                    priceId = p.id();
+                } else {
+                    baseUnitPrice = nvl(mi.getBasePrice());
+                }
             }
 
             SelectionValidationResult sel = validateSelectionsAndComputeExtra(
-                    o.getTenantId(),
-                    mi.getId(),
+                    options.options(mi.getId()),
+                    options,
                     it.selectedOptions());
 
             BigDecimal unitPrice = baseUnitPrice.add(nvl(sel.extraPerUnit()));
@@ -134,7 +211,11 @@ public class PublicOrderServiceImpl implements PublicOrderService {
             BigDecimal discount = BigDecimal.ZERO;
             BigDecimal total = unitPrice.multiply(qty).subtract(discount);
 
+            // createdAt tăng dần theo thứ tự dòng để giữ order khi đọc lại
+            Instant createdAt = now.plus(newItems.size(), ChronoUnit.MICROS);
+
             OrderItemEntity oi = new OrderItemEntity();
+            oi.setId(UUID.randomUUID());
             oi.setTenantId(o.getTenantId());
             oi.setOrderId(o.getId());
             oi.setMenuItemId(mi.getId());
@@ -145,25 +226,32 @@ public class PublicOrderServiceImpl implements PublicOrderService {
             oi.setTotalAmount(total);
             oi.setStatus("NEW");
             oi.setNote(it.note());
-
-            oi = orderItemRepo.save(oi);
+            oi.setCreatedAt(createdAt);
+            newItems.add(oi);
 
             for (SelectedOptionResolved r : sel.resolved()) {
                 OrderItemOptionSelectionEntity e = new OrderItemOptionSelectionEntity();
+                e.setId(UUID.randomUUID());
                 e.setTenantId(o.getTenantId());
                 e.setOrderId(o.getId());
                 e.setOrderItemId(oi.getId());
                 e.setMenuItemId(mi.getId());
-                e.setMenuOptionId(r.option().getId());
-                e.setMenuOptionValueId(r.value().getId());
-                e.setOptionName(r.option().getName());
-                e.setValueName(r.value().getName());
-                e.setExtraPrice(nvl(r.value().getExtraPrice()));
-                selectionRepo.save(e);
+                e.setMenuOptionId(r.option().id());
+                e.setMenuOptionValueId(r.value().id());
+                e.setOptionName(r.option().name());
+                e.setValueName(r.value().name());
+                e.setExtraPrice(nvl(r.value().extraPrice()));
+                e.setCreatedAt(createdAt);
+                newSelections.add(e);
             }
         }
 
-        return buildOrderResponse(o);
+        // ✅ 3) JDBC batch insert (items trước, selections sau)
+        batchRepo.insertItems(newItems);
+        batchRepo.insertSelections(newSelections);
+        orderChanged(o.getTenantId(), o.getId());
+
+        return newItems.stream().map(OrderItemEntity::getId).toList();
     }
 
     @Override
@@ -172,6 +260,21 @@ public class PublicOrderServiceImpl implements PublicOrderService {
         OrderEntity o = mustGetOrder(orderId);
         ensureEditable(o);
 
+        applyPatch(orderId, itemId, req);
+        return buildOrderResponse(o);
+    }
+
+    @Override
+    @Transactional
+    public OrderDeltaResponse patchItemDelta(UUID orderId, UUID itemId, PatchItemRequest req) {
+        OrderEntity o = mustGetOrder(orderId);
+        ensureEditable(o);
+
+        applyPatch(orderId, itemId, req);
+        return buildOrderDelta(o, List.of(itemId), List.of());
+    }
+
+    private void applyPatch(UUID orderId, UUID itemId, PatchItemRequest req) {
         OrderItemEntity item = orderItemRepo.findById(itemId)
                 .orElseThrow(() -> new IllegalArgumentException("Item not found"));
 
@@ -197,15 +300,30 @@ public class PublicOrderServiceImpl implements PublicOrderService {
             item.setNote(req.note());
 
         orderItemRepo.save(item);
-        return buildOrderResponse(o);
+        orderChanged(item.getTenantId(), orderId);
     }
 
     @Override
     @Transactional
     public OrderResponse deleteItem(UUID orderId, UUID itemId) {
-        OrderEntity o = mustGetOrder(orderId);
+        OrderEntity o = mustGetOrderForWrite(orderId);
         ensureEditable(o);
 
+        removeItem(orderId, itemId);
+        return buildOrderResponse(o);
+    }
+
+    @Override
+    @Transactional
+    public OrderDeltaResponse deleteItemDelta(UUID orderId, UUID itemId) {
+        OrderEntity o = mustGetOrderForWrite(orderId);
+        ensureEditable(o);
+
+        removeItem(orderId, itemId);
+        return buildOrderDelta(o, List.of(), List.of(itemId));
+    }
+
+    private void removeItem(UUID orderId, UUID itemId) {
         OrderItemEntity item = orderItemRepo.findById(itemId)
                 .orElseThrow(() -> new IllegalArgumentException("Item not found"));
 
@@ -218,8 +336,11 @@ public class PublicOrderServiceImpl implements PublicOrderService {
 
         selectionRepo.deleteByOrderItemId(item.getId());
         orderItemRepo.delete(item);
+        orderChanged(item.getTenantId(), orderId);
+    }
 
-        return buildOrderResponse(o);
+    private void orderChanged(UUID tenantId, UUID orderId) {
+        events.publishEvent(new OrdersChanged(tenantId, List.of(orderId), Instant.now()));
     }
 
     @Override
@@ -229,15 +350,32 @@ public class PublicOrderServiceImpl implements PublicOrderService {
         return buildOrderResponse(o);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Long getOrderRevision(UUID orderId) {
+        if (orderId == null)
+            throw new IllegalArgumentException("Order not found");
+        return orderRepo.findRevisionById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UUID getOrderOutletId(UUID orderId) {
+        if (orderId == null)
+            throw new IllegalArgumentException("Order not found");
+        return orderRepo.findOutletIdById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
+
     // =========================
     // selection validation
     // =========================
     private SelectionValidationResult validateSelectionsAndComputeExtra(
-            UUID tenantId,
-            UUID menuItemId,
+            List<Option> options,
+            Graph graph,
             List<SelectedOptionRequest> selectedOptions) {
 
-        List<MenuOptionEntity> options = optionRepo.findByTenantIdAndItemIdOrderByNameAsc(tenantId, menuItemId);
         List<SelectedOptionRequest> reqList = (selectedOptions == null) ? List.of() : selectedOptions;
 
         Map<UUID, UUID> optToValue = new LinkedHashMap<>();
@@ -255,34 +393,34 @@ public class PublicOrderServiceImpl implements PublicOrderService {
             optToValue.put(r.optionId(), r.valueId());
         }
 
-        for (MenuOptionEntity opt : options) {
-            boolean required = Boolean.TRUE.equals(opt.getRequired());
-            if (required && !optToValue.containsKey(opt.getId()))
-                throw new IllegalArgumentException("Missing required option: " + opt.getName());
+        for (Option opt : options) {
+            if (opt.required() && !optToValue.containsKey(opt.id()))
+                throw new IllegalArgumentException("Missing required option: " + opt.name());
         }
 
         BigDecimal extraPerUnit = BigDecimal.ZERO;
         List<SelectedOptionResolved> resolved = new ArrayList<>();
 
-        Map<UUID, MenuOptionEntity> optionMap = options.stream()
-                .collect(Collectors.toMap(MenuOptionEntity::getId, x -> x));
+        Map<UUID, Option> optionMap = options.stream()
+                .collect(Collectors.toMap(Option::id, x -> x));
 
         for (var entry : optToValue.entrySet()) {
             UUID optionId = entry.getKey();
             UUID valueId = entry.getValue();
 
-            MenuOptionEntity opt = optionMap.get(optionId);
+            Option opt = optionMap.get(optionId);
             if (opt == null)
                 throw new IllegalArgumentException("Invalid option for this item: optionId=" + optionId);
 
-            MenuOptionValueEntity val = optionValueRepo.findByIdAndTenantId(valueId, tenantId)
-                    .orElseThrow(() -> new IllegalArgumentException("Option value not found: valueId=" + valueId));
+            OptionValue val = graph.value(valueId);
+            if (val == null)
+                throw new IllegalArgumentException("Option value not found: valueId=" + valueId);
 
-            if (!optionId.equals(val.getMenuOptionId()))
+            if (!optionId.equals(val.optionId()))
                 throw new IllegalArgumentException(
                         "Value does not belong to option. optionId=" + optionId + " valueId=" + valueId);
 
-            BigDecimal extra = nvl(val.getExtraPrice());
+            BigDecimal extra = nvl(val.extraPrice());
             extraPerUnit = extraPerUnit.add(extra);
             resolved.add(new SelectedOptionResolved(opt, val));
         }
@@ -290,7 +428,7 @@ public class PublicOrderServiceImpl implements PublicOrderService {
         return new SelectionValidationResult(extraPerUnit, resolved);
     }
 
-    private record SelectedOptionResolved(MenuOptionEntity option, MenuOptionValueEntity value) {
+    private record SelectedOptionResolved(Option option, OptionValue value) {
     }
 
     private record SelectionValidationResult(BigDecimal extraPerUnit, List<SelectedOptionResolved> resolved) {
@@ -306,6 +444,15 @@ public class PublicOrderServiceImpl implements PublicOrderService {
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
     }
 
+    // ✅ thêm/xoá món: optimistic force-increment (không giữ lock DB suốt request), conflict => controller retry.
+    // sửa món / staff / trigger không bump version => không đụng nhau.
+    private OrderEntity mustGetOrderForWrite(UUID orderId) {
+        if (orderId == null)
+            throw new IllegalArgumentException("Order not found");
+        return orderRepo.findForWriteById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
+
     private void ensureEditable(OrderEntity o) {
         String st = safeUpper(o.getStatus());
 
@@ -323,36 +470,14 @@ public class PublicOrderServiceImpl implements PublicOrderService {
         Map<UUID, List<OrderItemOptionSelectionEntity>> selectionsByItem = selections.stream()
                 .collect(Collectors.groupingBy(OrderItemOptionSelectionEntity::getOrderItemId));
 
+        // ✅ cùng định nghĩa với delta (sumTotalByOrderIdExcludeStatus): không tính item VOIDED
         BigDecimal grandTotal = items.stream()
+                .filter(i -> !VOIDED.equalsIgnoreCase(i.getStatus()))
                 .map(i -> nvl(i.getTotalAmount()))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         List<OrderItemResponse> itemResponses = items.stream()
-                .map(i -> {
-                    List<SelectedOptionResponse> sel = selectionsByItem.getOrDefault(i.getId(), List.of())
-                            .stream()
-                            .map(s -> new SelectedOptionResponse(
-                                    s.getMenuOptionId(),
-                                    s.getMenuOptionValueId(),
-                                    s.getOptionName(),
-                                    s.getValueName(),
-                                    nvl(s.getExtraPrice())))
-                            .toList();
-
-                    return new OrderItemResponse(
-                            i.getId(),
-                            i.getMenuItemId(),
-                            i.getPriceId(),
-                            i.getQuantity(),
-                            i.getUnitPrice(),
-                            i.getDiscountAmount(),
-                            i.getTotalAmount(),
-                            i.getStatus(),
-                            i.getNote(),
-                            i.getCreatedAt(),
-                            i.getUpdatedAt(),
-                            sel);
-                })
+                .map(i -> toItemResponse(i, selectionsByItem.getOrDefault(i.getId(), List.of())))
                 .toList();
 
         return new OrderResponse(
@@ -368,7 +493,69 @@ public class PublicOrderServiceImpl implements PublicOrderService {
                 o.getCreatedAt(),
                 o.getUpdatedAt(),
                 grandTotal,
-                itemResponses);
+                itemResponses,
+                currentRevision(o));
+    }
+
+    /**
+     * Delta: chỉ load các item vừa đổi; grandTotal = 1 aggregate query
+     * (không reload toàn bộ items/selections của order).
+     */
+    private OrderDeltaResponse buildOrderDelta(OrderEntity o, List<UUID> changedIds, List<UUID> removedIds) {
+        List<OrderItemResponse> changed = List.of();
+
+        if (!changedIds.isEmpty()) {
+            List<OrderItemEntity> items = orderItemRepo.findByOrderIdAndIdInOrderByCreatedAtAsc(o.getId(), changedIds);
+
+            Map<UUID, List<OrderItemOptionSelectionEntity>> selectionsByItem = selectionRepo
+                    .findByOrderItemIdInOrderByCreatedAtAsc(changedIds).stream()
+                    .collect(Collectors.groupingBy(OrderItemOptionSelectionEntity::getOrderItemId));
+
+            changed = items.stream()
+                    .map(i -> toItemResponse(i, selectionsByItem.getOrDefault(i.getId(), List.of())))
+                    .toList();
+        }
+
+        BigDecimal grandTotal = nvl(orderItemRepo.sumTotalByOrderIdExcludeStatus(o.getId(), VOIDED));
+
+        return new OrderDeltaResponse(
+                o.getId(),
+                o.getStatus(),
+                currentRevision(o),
+                grandTotal,
+                changed,
+                removedIds,
+                Instant.now());
+    }
+
+    private OrderItemResponse toItemResponse(OrderItemEntity i, List<OrderItemOptionSelectionEntity> selections) {
+        List<SelectedOptionResponse> sel = selections.stream()
+                .map(s -> new SelectedOptionResponse(
+                        s.getMenuOptionId(),
+                        s.getMenuOptionValueId(),
+                        s.getOptionName(),
+                        s.getValueName(),
+                        nvl(s.getExtraPrice())))
+                .toList();
+
+        return new OrderItemResponse(
+                i.getId(),
+                i.getMenuItemId(),
+                i.getPriceId(),
+                i.getQuantity(),
+                i.getUnitPrice(),
+                i.getDiscountAmount(),
+                i.getTotalAmount(),
+                i.getStatus(),
+                i.getNote(),
+                i.getCreatedAt(),
+                i.getUpdatedAt(),
+                sel);
+    }
+
+    // revision do trigger bump -> đọc từ DB (JPQL => flush pending changes trước)
+    private Long currentRevision(OrderEntity o) {
+        return orderRepo.findRevisionById(o.getId()).orElse(o.getRevision());
     }
 
     // =========================
@@ -378,20 +565,24 @@ public class PublicOrderServiceImpl implements PublicOrderService {
         if (tableId == null)
             return null;
 
-        UUID orderId = orderTableRepo.findTopByTableIdAndUnlinkedAtIsNullOrderByLinkedAtDesc(tableId)
-                .map(OrderTableEntity::getOrderId)
-                .orElse(null);
+        // ✅ re-scan: cache table -> order, bỏ lookup order_tables
+        UUID cached = tableOrderCache.get(tableId);
+        UUID orderId = cached != null
+                ? cached
+                : orderTableRepo.findTopByTableIdAndUnlinkedAtIsNullOrderByLinkedAtDesc(tableId)
+                        .map(OrderTableEntity::getOrderId)
+                        .orElse(null);
 
         if (orderId == null)
             return null;
 
+        // order vẫn phải load (response cần) => status check luôn đúng kể cả khi cache lỡ invalidate
         OrderEntity o = orderRepo.findById(orderId).orElse(null);
-        if (o == null)
-            return null;
-
-        String st = safeUpper(o.getStatus());
-        if (!ACTIVE_STATUSES.contains(st))
+        if (o == null || !ACTIVE_STATUSES.contains(safeUpper(o.getStatus()))) {
+            if (cached != null)
+                tableOrderCache.evictTableLocal(tableId);
             return null;
+        }
 
         return o;
     }
@@ -400,9 +591,15 @@ public class PublicOrderServiceImpl implements PublicOrderService {
         if (order == null || order.getId() == null || tableId == null)
             return;
 
+        // cache chỉ chứa mapping đã commit => hit nghĩa là mapping active đã tồn tại
+        if (order.getId().equals(tableOrderCache.get(tableId)))
+            return;
+
         boolean exists = orderTableRepo.existsByOrderIdAndTableIdAndUnlinkedAtIsNull(order.getId(), tableId);
-        if (exists)
+        if (exists) {
+            tableOrderCache.putAfterCommit(tableId, order.getId());
             return;
+        }
 
         OrderTableEntity e = OrderTableEntity.builder()
                 .id(UUID.randomUUID())
@@ -415,6 +612,7 @@ public class PublicOrderServiceImpl implements PublicOrderService {
                 .build();
 
         orderTableRepo.save(e);
+        tableOrderCache.putAfterCommit(tableId, order.getId());
     }
 
     private static BigDecimal nvl(BigDecimal v) {
@@ -1,17 +1,20 @@
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.messaging.TicketTimeSketchUpdater;
 import com.sassfnb.adapters.persistence.repository.ReportRepository;
+import com.sassfnb.adapters.persistence.repository.TicketTimeSketchRepository;
+import com.sassfnb.adapters.persistence.repository.TicketTimeSketchRepository.BucketRow;
 import com.sassfnb.adapters.rest.dto.report.ReportDtos.*;
 import com.sassfnb.application.ports.TenantResolver;
 import com.sassfnb.application.service.ReportService;
+import com.sassfnb.common.stats.QuantileSketch;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.*;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +24,7 @@ public class ReportServiceImpl implements ReportService {
 
     private final TenantResolver tenant;
     private final ReportRepository repo;
+    private final TicketTimeSketchRepository ticketTimeRepo;
 
     @Override
     public SummaryResponse summary(UUID outletId, LocalDate fromDate, LocalDate toDate) {
@@ -161,8 +165,73 @@ public class ReportServiceImpl implements ReportService {
                 nz(row.netPay()));
     }
 
+    // ✅ NEW: chỉ đọc bucket sketch đã cộng dồn theo (outlet, ngày), không quét order_item_status_history
+    @Override
+    public TicketTimesResponse ticketTimes(UUID outletId, LocalDate fromDate, LocalDate toDate, String groupBy) {
+        UUID tenantId = tenant.currentTenantId();
+        UUID outId = resolveOutlet(outletId);
+
+        toWindow(fromDate, toDate); // validate khoảng ngày
+        String dim = groupBy == null ? TicketTimeSketchUpdater.DIM_ITEM : groupBy.trim().toUpperCase();
+        if (!Set.of(TicketTimeSketchUpdater.DIM_ITEM, TicketTimeSketchUpdater.DIM_STATION,
+                TicketTimeSketchUpdater.DIM_HOUR).contains(dim))
+            throw new IllegalArgumentException("groupBy must be ITEM, STATION or HOUR");
+
+        Map<String, QuantileSketch> fireToReady = toSketches(ticketTimeRepo.fetchBuckets(
+                tenantId, outId, fromDate, toDate, TicketTimeSketchUpdater.FIRE_TO_READY, dim));
+        Map<String, QuantileSketch> readyToServed = toSketches(ticketTimeRepo.fetchBuckets(
+                tenantId, outId, fromDate, toDate, TicketTimeSketchUpdater.READY_TO_SERVED, dim));
+
+        Set<String> keys = new TreeSet<>(fireToReady.keySet());
+        keys.addAll(readyToServed.keySet());
+
+        Map<UUID, String> itemNames = TicketTimeSketchUpdater.DIM_ITEM.equals(dim)
+                ? ticketTimeRepo.fetchMenuItemNames(keys.stream().map(UUID::fromString).toList())
+                : Map.of();
+
+        List<TicketTimeRow> rows = keys.stream()
+                .map(k -> new TicketTimeRow(
+                        k,
+                        label(dim, k, itemNames),
+                        stats(fireToReady.get(k)),
+                        stats(readyToServed.get(k))))
+                .sorted(TicketTimeSketchUpdater.DIM_HOUR.equals(dim)
+                        ? Comparator.<TicketTimeRow>comparingInt(r -> Integer.parseInt(r.key()))
+                        : Comparator.comparing(TicketTimeRow::label, Comparator.nullsLast(String::compareTo)))
+                .toList();
+
+        return new TicketTimesResponse(outId, fromDate, toDate, dim, rows);
+    }
+
     // ===== helpers =====
 
+    private static Map<String, QuantileSketch> toSketches(List<BucketRow> buckets) {
+        Map<String, QuantileSketch> out = new HashMap<>();
+        for (BucketRow b : buckets) {
+            out.computeIfAbsent(b.dimKey(), k -> new QuantileSketch()).add(b.bucket(), b.count());
+        }
+        return out;
+    }
+
+    private static TicketTimeStats stats(QuantileSketch sketch) {
+        if (sketch == null)
+            return new TicketTimeStats(0, null, null, null);
+        return new TicketTimeStats(sketch.count(), toSec(sketch.quantile(0.5)), toSec(sketch.quantile(0.9)),
+                toSec(sketch.quantile(0.99)));
+    }
+
+    private static Double toSec(Double ms) {
+        return ms == null ? null : Math.round(ms / 100.0) / 10.0;
+    }
+
+    private static String label(String dim, String key, Map<UUID, String> itemNames) {
+        return switch (dim) {
+            case TicketTimeSketchUpdater.DIM_ITEM -> itemNames.getOrDefault(UUID.fromString(key), key);
+            case TicketTimeSketchUpdater.DIM_HOUR -> String.format("%02d:00", Integer.parseInt(key));
+            default -> key;
+        };
+    }
+
     private UUID resolveOutlet(UUID outletId) {
         return outletId != null ? outletId : tenant.currentOutletId();
     }
@@ -8,10 +8,12 @@ import com.sassfnb.adapters.persistence.repository.OrderRepository;
 import com.sassfnb.adapters.persistence.repository.PaymentRepository;
 import com.sassfnb.adapters.persistence.repository.SettingsRepository;
 import com.sassfnb.adapters.rest.dto.billing.SepayWebhookDtos.*;
+import com.sassfnb.application.domain.order.OrderEvents.PaymentConfirmed;
 import com.sassfnb.application.exception.BadRequestException;
 import com.sassfnb.application.exception.NotFoundException;
 import com.sassfnb.application.service.SepayWebhookService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +38,7 @@ public class SepayWebhookServiceImpl implements SepayWebhookService {
     private final OrderRepository orderRepository;
     private final SettingsRepository settingsRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
 
     @Override
     @Transactional
@@ -126,6 +129,10 @@ public class SepayWebhookServiceImpl implements SepayWebhookService {
 
         paymentRepository.save(p);
 
+        // push SSE cho khách đang mở order (gửi sau commit)
+        events.publishEvent(new PaymentConfirmed(
+                tenantId, outletId, order.getId(), amount, paymentCode, p.getConfirmedAt()));
+
         // NOTE: DB trigger của bạn sẽ tự recalc totals & có thể set order PAID
 
         return SepayWebhookResponse.builder()
@@ -1,6 +1,7 @@
 // src/main/java/com/sassfnb/application/service/impl/TableServiceImpl.java
 package com.sassfnb.application.service.impl;
 
+import com.sassfnb.adapters.cache.KdsNameCache;
 import com.sassfnb.adapters.persistence.entity.TableEntity;
 import com.sassfnb.adapters.persistence.entity.TableQrEntity;
 import com.sassfnb.adapters.persistence.repository.QrSessionRepository;
@@ -30,6 +31,9 @@ public class TableServiceImpl implements TableService {
     private final QrSessionRepository sessionRepo;
     private final AppUrlsProperties urls;
 
+    // ✅ KDS: từ điển tên bàn theo outlet (evict khi thêm bàn / đổi group)
+    private final KdsNameCache nameCache;
+
     // =========================================================
     // Mapping Entity -> DTO
     // =========================================================
@@ -104,6 +108,7 @@ public class TableServiceImpl implements TableService {
                 .build();
 
         e = tableRepo.save(e);
+        nameCache.invalidateTables(e.getOutletId());
         return map(e);
     }
 
@@ -127,8 +132,10 @@ public class TableServiceImpl implements TableService {
             e.setName(req.name());
         if (req.capacity() != null)
             e.setCapacity(req.capacity());
-        if (req.groupCode() != null)
+        if (req.groupCode() != null && !req.groupCode().equals(e.getGroupCode())) {
             e.setGroupCode(req.groupCode());
+            nameCache.invalidateTables(e.getOutletId());
+        }
         if (req.status() != null)
             e.setStatus(req.status());
 
@@ -0,0 +1,29 @@
+package com.sassfnb.common.cache;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Giữ Map in-process không vượt maxEntries (dùng cho cache/store tự quản lý, không có LRU).
+ * Vượt ngưỡng => bỏ entry hết hạn trước; vẫn đầy thì bỏ bớt entry được phép bỏ (vd đã xong).
+ * Entry đang chạy (chưa removable) được giữ lại => map có thể vượt ngưỡng tạm thời.
+ */
+public final class BoundedEviction {
+
+    private BoundedEviction() {
+    }
+
+    public static <K, V> void evictIfFull(Map<K, V> map, int maxEntries,
+            Predicate<? super V> expired, Predicate<? super V> removable) {
+        if (map.size() <= maxEntries)
+            return;
+
+        map.values().removeIf(expired);
+
+        var it = map.values().iterator();
+        while (map.size() > maxEntries && it.hasNext()) {
+            if (removable.test(it.next()))
+                it.remove();
+        }
+    }
+}
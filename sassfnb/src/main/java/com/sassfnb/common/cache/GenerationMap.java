@@ -0,0 +1,74 @@
+package com.sassfnb.common.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Map cache in-process có chặn "load cũ ghi đè evict": mỗi evict/clear tăng generation,
+ * bản load bắt đầu trước đó (đọc DB cũ) không được giữ lại trong map.
+ * Dùng cho cache load lười theo key (outlet...) + evict qua CacheInvalidationBus.
+ */
+public final class GenerationMap<K, V> {
+
+    private final Map<K, V> map = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    /** Giá trị đang cache, hoặc load rồi cache (bản load dính evict vẫn trả về cho caller, chỉ không cache) */
+    public V getOrLoad(K key, Supplier<? extends V> loader) {
+        V cached = map.get(key);
+        if (cached != null)
+            return cached;
+
+        long gen = generation.get();
+        V loaded = loader.get();
+        if (loaded == null)
+            return null;
+
+        V prev = map.putIfAbsent(key, loaded);
+        if (prev != null)
+            return prev;
+        discardIfStale(key, loaded, gen);
+        return loaded;
+    }
+
+    /** Generation hiện tại: đọc TRƯỚC khi load, truyền lại cho put */
+    public long generation() {
+        return generation.get();
+    }
+
+    /** Put (thay bản cũ) nếu chưa có evict nào từ lúc đọc gen; false => không cache */
+    public boolean put(K key, V value, long gen) {
+        if (generation.get() != gen)
+            return false;
+        map.put(key, value);
+        return discardIfStale(key, value, gen);
+    }
+
+    public void evict(K key) {
+        generation.incrementAndGet();
+        map.remove(key);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    // evict chen giữa lúc check và lúc put => gỡ lại đúng bản vừa put
+    private boolean discardIfStale(K key, V value, long gen) {
+        if (generation.get() == gen)
+            return true;
+        map.remove(key, value);
+        return false;
+    }
+}
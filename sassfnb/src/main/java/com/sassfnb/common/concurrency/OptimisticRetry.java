@@ -0,0 +1,47 @@
+package com.sassfnb.common.concurrency;
+
+import com.sassfnb.application.exception.ConflictException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Chạy lại action khi gặp optimistic lock conflict (@Version).
+ * Action phải tự mở transaction mới mỗi lần (gọi service @Transactional từ ngoài transaction).
+ */
+public final class OptimisticRetry {
+
+    // đủ cho vài máy cùng bàn / staff ghi cùng lúc 1 order
+    public static final int DEFAULT_ATTEMPTS = 3;
+
+    private OptimisticRetry() {
+    }
+
+    public static <T> T run(Supplier<T> action) {
+        return run(DEFAULT_ATTEMPTS, action);
+    }
+
+    public static <T> T run(int maxAttempts, Supplier<T> action) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return action.get();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new ConflictException("Order was modified concurrently, please retry");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    // jitter nhỏ để các máy cùng bàn không đụng nhau lần nữa
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L * attempt + 6));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while retrying");
+        }
+    }
+}
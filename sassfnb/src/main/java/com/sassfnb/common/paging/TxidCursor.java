@@ -0,0 +1,33 @@
+package com.sassfnb.common.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor change-feed (txid, id) dạng base64url "txid|uuid" - client coi như chuỗi opaque.
+ * txid là txid Postgres của transaction ghi dòng => thứ tự theo commit, không phụ thuộc đồng hồ.
+ */
+public record TxidCursor(long txid, UUID id) {
+
+    public static final UUID MIN_ID = new UUID(0L, 0L);
+
+    public String encode() {
+        String raw = txid + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** null/blank => null (chưa có cursor) */
+    public static TxidCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return null;
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new TxidCursor(Long.parseLong(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
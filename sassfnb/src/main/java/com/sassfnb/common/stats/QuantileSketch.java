@@ -0,0 +1,73 @@
+package com.sassfnb.common.stats;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sketch phân vị dạng bucket log (kiểu DDSketch): giá trị x > 1 rơi vào bucket ceil(log_γ(x)),
+ * γ = (1+α)/(1-α) => phân vị trả về sai số tương đối <= α, bất kể phân bố.
+ * - Chỉ cần lưu (bucket -> count) => cộng dồn / merge bằng phép cộng count (lưu DB dạng upsert cnt + n).
+ * - 1 giờ tính bằng ms chỉ cần ~400 bucket.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long total;
+
+    /** bucket 0 = mọi giá trị <= 1 (kể cả âm do lệch đồng hồ) */
+    public static int bucketOf(double value) {
+        if (value <= 1)
+            return 0;
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    /** giá trị đại diện của bucket (trung điểm theo sai số tương đối) */
+    public static double valueOf(int bucket) {
+        if (bucket <= 0)
+            return 0;
+        return 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+    }
+
+    public void add(double value) {
+        add(bucketOf(value), 1);
+    }
+
+    public void add(int bucket, long count) {
+        if (count <= 0)
+            return;
+        counts.merge(bucket, count, Long::sum);
+        total += count;
+    }
+
+    public void merge(QuantileSketch other) {
+        for (Map.Entry<Integer, Long> e : other.counts.entrySet()) {
+            add(e.getKey(), e.getValue());
+        }
+    }
+
+    public long count() {
+        return total;
+    }
+
+    /** q trong [0, 1]; sketch rỗng => null */
+    public Double quantile(double q) {
+        if (total == 0)
+            return null;
+        if (q < 0 || q > 1)
+            throw new IllegalArgumentException("q must be in [0, 1]");
+
+        long rank = (long) Math.floor(q * (total - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> e : counts.entrySet()) {
+            seen += e.getValue();
+            if (seen > rank)
+                return valueOf(e.getKey());
+        }
+        return valueOf(counts.lastKey());
+    }
+}
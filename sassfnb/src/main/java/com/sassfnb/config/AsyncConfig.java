@@ -1,5 +1,10 @@
 package com.sassfnb.config;
 
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
 public class AsyncConfig {
 
 }
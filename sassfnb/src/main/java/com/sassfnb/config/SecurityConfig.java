@@ -1,6 +1,7 @@
 package com.sassfnb.config;
 
 import com.sassfnb.config.jwt.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -142,6 +143,10 @@ public class SecurityConfig {
                                                 // Preflight
                                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                                                // SSE: async dispatch của request đã được authorize lúc mở stream
+                                                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR)
+                                                .permitAll()
+
                                                 // Public
                                                 .requestMatchers(PUBLIC).permitAll()
 
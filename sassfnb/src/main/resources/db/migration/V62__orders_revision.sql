@@ -0,0 +1,95 @@
+-- V62__orders_revision.sql
+-- Mục tiêu:
+-- 1) orders.revision: số tăng dần mỗi khi order (hoặc items/discounts/payments của nó) thay đổi
+-- 2) client giữ revision để nhận delta thay vì tải lại cả order
+
+ALTER TABLE IF EXISTS public.orders
+  ADD COLUMN IF NOT EXISTS revision bigint NOT NULL DEFAULT 0;
+
+-- 1) bump revision mỗi lần totals được recalc
+--    (trigger của order_items / order_discounts / payments đều đi qua hàm này)
+CREATE OR REPLACE FUNCTION public.fn_recalc_order_totals(p_order_id uuid)
+RETURNS void
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_subtotal numeric(19,2);
+  v_disc     numeric(19,2);
+  v_total    numeric(19,2);
+  v_paid     numeric(19,2);
+  v_balance  numeric(19,2);
+BEGIN
+  IF p_order_id IS NULL THEN
+    RETURN;
+  END IF;
+
+  SELECT COALESCE(SUM(oi.total_amount), 0)
+    INTO v_subtotal
+  FROM public.order_items oi
+  WHERE oi.order_id = p_order_id;
+
+  SELECT COALESCE(SUM(od.value), 0)
+    INTO v_disc
+  FROM public.order_discounts od
+  WHERE od.order_id = p_order_id;
+
+  SELECT COALESCE(SUM(p.amount), 0)
+    INTO v_paid
+  FROM public.payments p
+  WHERE p.order_id = p_order_id
+    AND COALESCE(p.status, '') IN ('CONFIRMED','PAID','SUCCESS');
+
+  v_total := GREATEST(v_subtotal - v_disc, 0);
+  v_balance := GREATEST(v_total - v_paid, 0);
+
+  UPDATE public.orders
+  SET
+    subtotal_amount = v_subtotal,
+    discount_amount = v_disc,
+    total_amount    = v_total,
+    paid_amount     = v_paid,
+    balance_amount  = v_balance,
+
+    status = CASE
+      WHEN v_balance <= 0
+           AND COALESCE(status, '') NOT IN ('CANCELLED') THEN 'PAID'
+      ELSE status
+    END,
+
+    closed_at = CASE
+      WHEN v_balance <= 0
+           AND COALESCE(status, '') NOT IN ('CANCELLED')
+           THEN COALESCE(closed_at, now())
+      ELSE closed_at
+    END,
+
+    revision        = revision + 1,
+    updated_at      = now()
+  WHERE id = p_order_id;
+END $$;
+
+-- 2) bump revision khi app đổi trực tiếp các field order mà client hiển thị
+--    (status/note/people/table...). Bỏ qua nếu UPDATE đã tự bump (từ hàm trên).
+CREATE OR REPLACE FUNCTION public.fn_orders_bump_revision()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF NEW.revision = OLD.revision AND (
+       NEW.status     IS DISTINCT FROM OLD.status
+    OR NEW.note       IS DISTINCT FROM OLD.note
+    OR NEW.people     IS DISTINCT FROM OLD.people
+    OR NEW.table_id   IS DISTINCT FROM OLD.table_id
+    OR NEW.closed_at  IS DISTINCT FROM OLD.closed_at
+  ) THEN
+    NEW.revision := OLD.revision + 1;
+  END IF;
+  RETURN NEW;
+END $$;
+
+DROP TRIGGER IF EXISTS trg_orders_bump_revision ON public.orders;
+CREATE TRIGGER trg_orders_bump_revision
+BEFORE UPDATE
+ON public.orders
+FOR EACH ROW
+EXECUTE FUNCTION public.fn_orders_bump_revision();
@@ -0,0 +1,4 @@
+-- Optimistic locking cho orders (JPA @Version).
+-- Tách khỏi cột revision (trigger V62): trigger bump revision không làm lệch version.
+ALTER TABLE orders
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,18 @@
+-- Staff order search: keyset (created_at desc, id desc) theo tenant/outlet[/status]
+CREATE INDEX IF NOT EXISTS idx_orders_tenant_outlet_status_created
+    ON orders (tenant_id, outlet_id, status, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_orders_tenant_outlet_created
+    ON orders (tenant_id, outlet_id, created_at DESC, id DESC);
+
+-- Optional: trigram cho lower(note) like '%q%' (bỏ qua nếu DB không có pg_trgm / không đủ quyền)
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    CREATE INDEX IF NOT EXISTS idx_orders_note_trgm
+        ON orders USING gin (lower(note) gin_trgm_ops);
+EXCEPTION
+    WHEN insufficient_privilege OR undefined_file OR feature_not_supported THEN
+        RAISE NOTICE 'pg_trgm not available, skip idx_orders_note_trgm';
+END
+$$;
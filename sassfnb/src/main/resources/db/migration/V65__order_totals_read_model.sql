@@ -0,0 +1,345 @@
+-- V65__order_totals_read_model.sql
+-- Mục tiêu:
+-- 1) order_totals: 1 dòng / order, cộng dồn delta từ order_items / order_discounts / payments
+--    (không SUM lại cả order mỗi lần 1 dòng thay đổi)
+-- 2) fn_recalc_order_totals đọc từ order_totals thay vì SUM 3 bảng (giữ nguyên semantics V52/V62)
+-- 3) fn_order_totals_rebuild / fn_order_totals_reconcile: tính lại từ đầu + sửa drift (app chạy định kỳ)
+
+CREATE TABLE IF NOT EXISTS public.order_totals (
+  order_id              uuid PRIMARY KEY REFERENCES public.orders(id) ON DELETE CASCADE,
+  tenant_id             uuid NOT NULL,
+
+  -- order_items
+  item_count            integer       NOT NULL DEFAULT 0, -- mọi item (kể cả VOIDED)
+  active_item_count     integer       NOT NULL DEFAULT 0, -- item != VOIDED
+  line_total_all        numeric(19,2) NOT NULL DEFAULT 0, -- SUM(total_amount) mọi item (trigger V52)
+  line_total            numeric(19,2) NOT NULL DEFAULT 0, -- SUM(total_amount) item != VOIDED
+  gross_amount          numeric(19,2) NOT NULL DEFAULT 0, -- SUM(unit_price * quantity) item != VOIDED
+  item_discount         numeric(19,2) NOT NULL DEFAULT 0, -- SUM(discount_amount) item != VOIDED
+
+  -- order_discounts (unique theo order_id)
+  order_discount_type   varchar(20),
+  order_discount_value  numeric(19,2) NOT NULL DEFAULT 0,
+
+  -- payments
+  paid_confirmed        numeric(19,2) NOT NULL DEFAULT 0, -- status = CONFIRMED (billing)
+  paid_settled          numeric(19,2) NOT NULL DEFAULT 0, -- status in CONFIRMED/PAID/SUCCESS (trigger V52)
+
+  updated_at            timestamptz   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_totals_tenant ON public.order_totals(tenant_id);
+
+-- 1) áp 1 dòng (jsonb của OLD/NEW) vào order_totals với dấu +1 / -1
+CREATE OR REPLACE FUNCTION public.fn_order_totals_apply(p_table text, p_row jsonb, p_sign integer)
+RETURNS void
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_order_id   uuid := (p_row->>'order_id')::uuid;
+  v_tenant_id  uuid := (p_row->>'tenant_id')::uuid;
+  v_status     text := upper(COALESCE(p_row->>'status', ''));
+  v_amount     numeric(19,2);
+
+  d_count       integer       := 0;
+  d_active      integer       := 0;
+  d_line_all    numeric(19,2) := 0;
+  d_line        numeric(19,2) := 0;
+  d_gross       numeric(19,2) := 0;
+  d_item_disc   numeric(19,2) := 0;
+  d_disc_value  numeric(19,2) := 0;
+  d_paid_conf   numeric(19,2) := 0;
+  d_paid_settl  numeric(19,2) := 0;
+  v_disc_type   varchar(20)   := NULL;
+BEGIN
+  IF v_order_id IS NULL THEN
+    RETURN;
+  END IF;
+
+  IF p_table = 'order_items' THEN
+    d_count := 1;
+    d_line_all := COALESCE((p_row->>'total_amount')::numeric, 0);
+    IF v_status <> 'VOIDED' THEN
+      d_active := 1;
+      d_line := d_line_all;
+      d_gross := COALESCE((p_row->>'unit_price')::numeric, 0) * COALESCE((p_row->>'quantity')::numeric, 0);
+      d_item_disc := COALESCE((p_row->>'discount_amount')::numeric, 0);
+    END IF;
+
+  ELSIF p_table = 'order_discounts' THEN
+    d_disc_value := COALESCE((p_row->>'value')::numeric, 0);
+    IF p_sign > 0 THEN
+      v_disc_type := p_row->>'type';
+    END IF;
+
+  ELSIF p_table = 'payments' THEN
+    v_amount := COALESCE((p_row->>'amount')::numeric, 0);
+    IF v_status = 'CONFIRMED' THEN
+      d_paid_conf := v_amount;
+    END IF;
+    -- paid_settled (orders.paid_amount) giữ đúng so khớp phân biệt hoa/thường như V52/V62;
+    -- paid_confirmed (billing) dùng UPPER như BillingCalcRepository
+    IF COALESCE(p_row->>'status', '') IN ('CONFIRMED','PAID','SUCCESS') THEN
+      d_paid_settl := v_amount;
+    END IF;
+
+  ELSE
+    RETURN;
+  END IF;
+
+  -- order đã bị xoá (cascade) => không tạo lại dòng totals
+  IF NOT EXISTS (SELECT 1 FROM public.orders o WHERE o.id = v_order_id) THEN
+    RETURN;
+  END IF;
+
+  INSERT INTO public.order_totals AS t (
+    order_id, tenant_id,
+    item_count, active_item_count, line_total_all, line_total, gross_amount, item_discount,
+    order_discount_type, order_discount_value,
+    paid_confirmed, paid_settled,
+    updated_at
+  )
+  VALUES (
+    v_order_id, v_tenant_id,
+    p_sign * d_count, p_sign * d_active, p_sign * d_line_all, p_sign * d_line, p_sign * d_gross, p_sign * d_item_disc,
+    v_disc_type, p_sign * d_disc_value,
+    p_sign * d_paid_conf, p_sign * d_paid_settl,
+    now()
+  )
+  ON CONFLICT (order_id) DO UPDATE
+  SET
+    item_count           = t.item_count + EXCLUDED.item_count,
+    active_item_count    = t.active_item_count + EXCLUDED.active_item_count,
+    line_total_all       = t.line_total_all + EXCLUDED.line_total_all,
+    line_total           = t.line_total + EXCLUDED.line_total,
+    gross_amount         = t.gross_amount + EXCLUDED.gross_amount,
+    item_discount        = t.item_discount + EXCLUDED.item_discount,
+    order_discount_type  = CASE
+                             WHEN p_table <> 'order_discounts' THEN t.order_discount_type
+                             ELSE EXCLUDED.order_discount_type
+                           END,
+    order_discount_value = t.order_discount_value + EXCLUDED.order_discount_value,
+    paid_confirmed       = t.paid_confirmed + EXCLUDED.paid_confirmed,
+    paid_settled         = t.paid_settled + EXCLUDED.paid_settled,
+    updated_at           = now();
+END $$;
+
+-- 2) tính lại 1 order từ đầu (reconcile / backfill)
+CREATE OR REPLACE FUNCTION public.fn_order_totals_rebuild(p_order_id uuid)
+RETURNS void
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF p_order_id IS NULL THEN
+    RETURN;
+  END IF;
+
+  INSERT INTO public.order_totals AS t (
+    order_id, tenant_id,
+    item_count, active_item_count, line_total_all, line_total, gross_amount, item_discount,
+    order_discount_type, order_discount_value,
+    paid_confirmed, paid_settled,
+    updated_at
+  )
+  SELECT
+    o.id, o.tenant_id,
+    COALESCE(i.item_count, 0), COALESCE(i.active_item_count, 0),
+    COALESCE(i.line_total_all, 0), COALESCE(i.line_total, 0),
+    COALESCE(i.gross_amount, 0), COALESCE(i.item_discount, 0),
+    d.type, COALESCE(d.value, 0),
+    COALESCE(p.paid_confirmed, 0), COALESCE(p.paid_settled, 0),
+    now()
+  FROM public.orders o
+  LEFT JOIN LATERAL (
+    SELECT
+      count(*)                                                             AS item_count,
+      count(*) FILTER (WHERE upper(oi.status) <> 'VOIDED')                 AS active_item_count,
+      SUM(oi.total_amount)                                                 AS line_total_all,
+      SUM(oi.total_amount) FILTER (WHERE upper(oi.status) <> 'VOIDED')     AS line_total,
+      SUM(oi.unit_price * oi.quantity) FILTER (WHERE upper(oi.status) <> 'VOIDED') AS gross_amount,
+      SUM(COALESCE(oi.discount_amount, 0)) FILTER (WHERE upper(oi.status) <> 'VOIDED') AS item_discount
+    FROM public.order_items oi
+    WHERE oi.order_id = o.id
+  ) i ON true
+  LEFT JOIN LATERAL (
+    SELECT od.type, od.value
+    FROM public.order_discounts od
+    WHERE od.order_id = o.id
+    ORDER BY od.created_at DESC
+    LIMIT 1
+  ) d ON true
+  LEFT JOIN LATERAL (
+    SELECT
+      SUM(pm.amount) FILTER (WHERE upper(pm.status) = 'CONFIRMED')                        AS paid_confirmed,
+      SUM(pm.amount) FILTER (WHERE COALESCE(pm.status, '') IN ('CONFIRMED','PAID','SUCCESS')) AS paid_settled
+    FROM public.payments pm
+    WHERE pm.order_id = o.id
+  ) p ON true
+  WHERE o.id = p_order_id
+  ON CONFLICT (order_id) DO UPDATE
+  SET
+    item_count           = EXCLUDED.item_count,
+    active_item_count    = EXCLUDED.active_item_count,
+    line_total_all       = EXCLUDED.line_total_all,
+    line_total           = EXCLUDED.line_total,
+    gross_amount         = EXCLUDED.gross_amount,
+    item_discount        = EXCLUDED.item_discount,
+    order_discount_type  = EXCLUDED.order_discount_type,
+    order_discount_value = EXCLUDED.order_discount_value,
+    paid_confirmed       = EXCLUDED.paid_confirmed,
+    paid_settled         = EXCLUDED.paid_settled,
+    updated_at           = now();
+END $$;
+
+-- 3) reconcile: so MỌI cột order_totals với SUM thật (cùng công thức fn_order_totals_rebuild)
+--    cho order đổi từ p_since, sửa dòng lệch; trả về số order đã sửa
+CREATE OR REPLACE FUNCTION public.fn_order_totals_reconcile(p_since timestamptz)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_order_id uuid;
+  v_fixed    integer := 0;
+BEGIN
+  FOR v_order_id IN
+    SELECT o.id
+    FROM public.orders o
+    LEFT JOIN public.order_totals t ON t.order_id = o.id
+    LEFT JOIN LATERAL (
+      SELECT
+        count(*)                                                                                      AS item_count,
+        count(*) FILTER (WHERE upper(oi.status) <> 'VOIDED')                                          AS active_item_count,
+        COALESCE(SUM(oi.total_amount), 0)                                                             AS line_total_all,
+        COALESCE(SUM(oi.total_amount) FILTER (WHERE upper(oi.status) <> 'VOIDED'), 0)                 AS line_total,
+        COALESCE(SUM(oi.unit_price * oi.quantity) FILTER (WHERE upper(oi.status) <> 'VOIDED'), 0)     AS gross_amount,
+        COALESCE(SUM(COALESCE(oi.discount_amount, 0)) FILTER (WHERE upper(oi.status) <> 'VOIDED'), 0) AS item_discount
+      FROM public.order_items oi
+      WHERE oi.order_id = o.id
+    ) i ON true
+    LEFT JOIN LATERAL (
+      SELECT od.type, od.value
+      FROM public.order_discounts od
+      WHERE od.order_id = o.id
+      ORDER BY od.created_at DESC
+      LIMIT 1
+    ) d ON true
+    LEFT JOIN LATERAL (
+      SELECT
+        COALESCE(SUM(pm.amount) FILTER (WHERE upper(pm.status) = 'CONFIRMED'), 0)                     AS paid_confirmed,
+        COALESCE(SUM(pm.amount) FILTER (WHERE COALESCE(pm.status, '') IN ('CONFIRMED','PAID','SUCCESS')), 0) AS paid_settled
+      FROM public.payments pm
+      WHERE pm.order_id = o.id
+    ) p ON true
+    WHERE o.updated_at >= p_since
+      AND (
+           (t.order_id IS NULL AND (i.item_count > 0 OR d.type IS NOT NULL
+                                    OR p.paid_confirmed <> 0 OR p.paid_settled <> 0))
+        OR (t.order_id IS NOT NULL AND (
+               t.item_count           <> i.item_count
+            OR t.active_item_count    <> i.active_item_count
+            OR t.line_total_all       <> i.line_total_all
+            OR t.line_total           <> i.line_total
+            OR t.gross_amount         <> i.gross_amount
+            OR t.item_discount        <> i.item_discount
+            OR t.order_discount_type  IS DISTINCT FROM d.type
+            OR t.order_discount_value <> COALESCE(d.value, 0)
+            OR t.paid_confirmed       <> p.paid_confirmed
+            OR t.paid_settled         <> p.paid_settled))
+      )
+  LOOP
+    PERFORM public.fn_order_totals_rebuild(v_order_id);
+    PERFORM public.fn_recalc_order_totals(v_order_id);
+    v_fixed := v_fixed + 1;
+  END LOOP;
+
+  RETURN v_fixed;
+END $$;
+
+-- 4) fn_recalc_order_totals: O(1) đọc order_totals (logic PAID/closed_at/revision giữ như V62)
+CREATE OR REPLACE FUNCTION public.fn_recalc_order_totals(p_order_id uuid)
+RETURNS void
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_subtotal numeric(19,2);
+  v_disc     numeric(19,2);
+  v_total    numeric(19,2);
+  v_paid     numeric(19,2);
+  v_balance  numeric(19,2);
+BEGIN
+  IF p_order_id IS NULL THEN
+    RETURN;
+  END IF;
+
+  SELECT t.line_total_all, t.order_discount_value, t.paid_settled
+    INTO v_subtotal, v_disc, v_paid
+  FROM public.order_totals t
+  WHERE t.order_id = p_order_id;
+
+  v_subtotal := COALESCE(v_subtotal, 0);
+  v_disc := COALESCE(v_disc, 0);
+  v_paid := COALESCE(v_paid, 0);
+
+  v_total := GREATEST(v_subtotal - v_disc, 0);
+  v_balance := GREATEST(v_total - v_paid, 0);
+
+  UPDATE public.orders
+  SET
+    subtotal_amount = v_subtotal,
+    discount_amount = v_disc,
+    total_amount    = v_total,
+    paid_amount     = v_paid,
+    balance_amount  = v_balance,
+
+    status = CASE
+      WHEN v_balance <= 0
+           AND COALESCE(status, '') NOT IN ('CANCELLED') THEN 'PAID'
+      ELSE status
+    END,
+
+    closed_at = CASE
+      WHEN v_balance <= 0
+           AND COALESCE(status, '') NOT IN ('CANCELLED')
+           THEN COALESCE(closed_at, now())
+      ELSE closed_at
+    END,
+
+    revision        = revision + 1,
+    updated_at      = now()
+  WHERE id = p_order_id;
+END $$;
+
+-- 5) AFTER row trigger (order_items / order_discounts / payments): áp delta rồi cập nhật orders
+CREATE OR REPLACE FUNCTION public.fn_trg_refresh_order_totals()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM public.fn_order_totals_apply(TG_TABLE_NAME, to_jsonb(OLD), -1);
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM public.fn_order_totals_apply(TG_TABLE_NAME, to_jsonb(NEW), 1);
+  END IF;
+
+  IF TG_OP = 'UPDATE' AND OLD.order_id IS DISTINCT FROM NEW.order_id THEN
+    PERFORM public.fn_recalc_order_totals(OLD.order_id);
+  END IF;
+  PERFORM public.fn_recalc_order_totals(COALESCE(NEW.order_id, OLD.order_id));
+  RETURN NULL;
+END $$;
+
+-- 6) backfill
+INSERT INTO public.order_totals (order_id, tenant_id)
+SELECT o.id, o.tenant_id
+FROM public.orders o
+ON CONFLICT (order_id) DO NOTHING;
+
+DO $$
+DECLARE
+  v_order_id uuid;
+BEGIN
+  FOR v_order_id IN SELECT order_id FROM public.order_totals LOOP
+    PERFORM public.fn_order_totals_rebuild(v_order_id);
+  END LOOP;
+END $$;
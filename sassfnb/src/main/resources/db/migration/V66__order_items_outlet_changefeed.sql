@@ -0,0 +1,82 @@
+-- V66__order_items_outlet_changefeed.sql
+-- Mục tiêu:
+-- 1) order_items.outlet_id (denormalized từ orders) => KDS query không cần join orders
+-- 2) change-feed KDS theo (outlet_id, change_txid, id): client chỉ lấy dòng đổi sau cursor.
+--    change_txid = txid của transaction ghi dòng (trigger) => thứ tự theo commit, không theo đồng hồ:
+--    feed chỉ đọc txid < xmin của snapshot hiện tại, các transaction đó đã kết thúc hết nên
+--    không còn dòng nào "commit muộn" chen vào sau cursor.
+
+ALTER TABLE IF EXISTS public.order_items
+  ADD COLUMN IF NOT EXISTS outlet_id uuid;
+
+-- dòng cũ = 0: client bắt đầu từ /boards + cursor hiện tại nên không cần replay lịch sử
+ALTER TABLE IF EXISTS public.order_items
+  ADD COLUMN IF NOT EXISTS change_txid bigint NOT NULL DEFAULT 0;
+
+UPDATE public.order_items oi
+SET outlet_id = o.outlet_id
+FROM public.orders o
+WHERE o.id = oi.order_id
+  AND oi.outlet_id IS NULL;
+
+UPDATE public.order_items
+SET updated_at = created_at
+WHERE updated_at IS NULL;
+
+-- app không set outlet_id (entity insertable=false) => trigger lấy từ order
+CREATE OR REPLACE FUNCTION public.fn_order_items_fill_outlet()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF NEW.outlet_id IS NULL THEN
+    SELECT o.outlet_id INTO NEW.outlet_id
+    FROM public.orders o
+    WHERE o.id = NEW.order_id;
+  END IF;
+
+  IF NEW.updated_at IS NULL THEN
+    NEW.updated_at := COALESCE(NEW.created_at, now());
+  END IF;
+
+  RETURN NEW;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_order_items_fill_outlet ON public.order_items;
+CREATE TRIGGER trg_order_items_fill_outlet
+BEFORE INSERT ON public.order_items
+FOR EACH ROW
+EXECUTE FUNCTION public.fn_order_items_fill_outlet();
+
+-- mọi insert/update (kể cả bulk UPDATE) ghi txid hiện tại
+CREATE OR REPLACE FUNCTION public.fn_order_items_change_txid()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  NEW.change_txid := pg_current_xact_id()::text::bigint;
+  RETURN NEW;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_order_items_change_txid ON public.order_items;
+CREATE TRIGGER trg_order_items_change_txid
+BEFORE INSERT OR UPDATE ON public.order_items
+FOR EACH ROW
+EXECUTE FUNCTION public.fn_order_items_change_txid();
+
+ALTER TABLE public.order_items
+  ALTER COLUMN outlet_id SET NOT NULL,
+  ALTER COLUMN updated_at SET NOT NULL;
+
+ALTER TABLE public.order_items
+  ADD CONSTRAINT fk_order_items_outlet FOREIGN KEY (outlet_id) REFERENCES public.outlets(id);
+
+-- change-feed: (change_txid, id) > cursor theo outlet
+CREATE INDEX IF NOT EXISTS idx_oit_outlet_change_txid
+    ON public.order_items (outlet_id, change_txid, id);
+
+-- board: status + created_at theo outlet (thay join orders + upper(status))
+CREATE INDEX IF NOT EXISTS idx_oit_outlet_status_created
+    ON public.order_items (outlet_id, status, created_at);
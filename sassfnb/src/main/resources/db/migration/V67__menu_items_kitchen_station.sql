@@ -0,0 +1,10 @@
+-- V67__menu_items_kitchen_station.sql
+-- Món -> trạm bếp (GRILL/BAR/COLD...) để mỗi màn hình KDS chỉ nhận board của trạm mình.
+-- NULL => trạm mặc định (MAIN).
+
+ALTER TABLE IF EXISTS public.menu_items
+  ADD COLUMN IF NOT EXISTS kitchen_station varchar(30);
+
+-- load mapping theo outlet (id, kitchen_station) không cần đọc cả dòng
+CREATE INDEX IF NOT EXISTS idx_mitem_outlet_station
+    ON public.menu_items (outlet_id, kitchen_station);
@@ -0,0 +1,18 @@
+-- V68__order_item_status_history_indexes.sql
+-- order_item_status_history (V1) bắt đầu được ghi (batch, async) => index cho đo ticket time
+
+-- timeline của 1 item (FIRED -> READY -> SERVED)
+CREATE INDEX IF NOT EXISTS idx_oish_item_changed
+    ON public.order_item_status_history (order_item_id, changed_at);
+
+-- report theo tenant + khoảng thời gian
+CREATE INDEX IF NOT EXISTS idx_oish_tenant_status_changed
+    ON public.order_item_status_history (tenant_id, status, changed_at);
+
+-- item xoá được (khách bỏ món NEW, xoá order nháp) => history đi theo item thay vì chặn DELETE
+ALTER TABLE public.order_item_status_history
+  DROP CONSTRAINT IF EXISTS order_item_status_history_order_item_id_fkey;
+
+ALTER TABLE public.order_item_status_history
+  ADD CONSTRAINT order_item_status_history_order_item_id_fkey
+  FOREIGN KEY (order_item_id) REFERENCES public.order_items(id) ON DELETE CASCADE;
@@ -0,0 +1,19 @@
+-- V69__kitchen_ticket_time_sketches.sql
+-- Mục tiêu:
+-- 1) Thời gian ra món (FIRED->READY, READY->SERVED) lưu dạng sketch phân vị theo (outlet, ngày kinh doanh)
+--    => report p50/p90/p99 chỉ đọc vài trăm bucket, không quét order_item_status_history
+-- 2) Mỗi dòng = 1 bucket log của 1 chiều (ITEM/STATION/HOUR); app upsert cnt = cnt + n sau mỗi batch history
+
+CREATE TABLE IF NOT EXISTS public.kitchen_ticket_time_sketches (
+  tenant_id     uuid        NOT NULL,
+  outlet_id     uuid        NOT NULL,
+  business_date date        NOT NULL,
+  metric        varchar(20) NOT NULL, -- FIRE_TO_READY | READY_TO_SERVED
+  dim_type      varchar(10) NOT NULL, -- ITEM | STATION | HOUR
+  dim_key       varchar(64) NOT NULL, -- menu_item_id | station | giờ 0..23
+  bucket        int         NOT NULL,
+  cnt           bigint      NOT NULL DEFAULT 0,
+  CONSTRAINT pk_kitchen_ticket_time_sketches
+    PRIMARY KEY (tenant_id, outlet_id, metric, dim_type, business_date, dim_key, bucket),
+  CONSTRAINT fk_ktts_outlet FOREIGN KEY (outlet_id) REFERENCES public.outlets(id)
+);
@@ -0,0 +1,142 @@
+package com.sassfnb.adapters.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sassfnb.application.config.CacheProperties;
+import com.sassfnb.application.exception.ConflictException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private record AddItem(String menuItemId, int quantity) {
+    }
+
+    private static IdempotencyStore store(long ttlMs, int maxEntries) {
+        CacheProperties props = new CacheProperties();
+        props.setIdempotencyTtlMs(ttlMs);
+        props.setIdempotencyMaxEntries(maxEntries);
+        return new IdempotencyStore(props, new ObjectMapper());
+    }
+
+    @Test
+    void sameKeySameBodyReplaysFirstResult() {
+        IdempotencyStore store = store(60_000, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        String first = store.execute("k", List.of(new AddItem("a", 2)), () -> "r" + runs.incrementAndGet());
+        String again = store.execute("k", List.of(new AddItem("a", 2)), () -> "r" + runs.incrementAndGet());
+
+        assertThat(first).isEqualTo("r1");
+        assertThat(again).isEqualTo("r1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void sameKeyDifferentBodyIsRejected() {
+        IdempotencyStore store = store(60_000, 100);
+        store.execute("k", new AddItem("a", 2), () -> "ok");
+
+        assertThatThrownBy(() -> store.execute("k", new AddItem("a", 3), () -> "other"))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void fingerprintIgnoresMapKeyOrder() {
+        IdempotencyStore store = store(60_000, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        store.execute("k", Map.of("quantity", 2, "note", "ít đá"), runs::incrementAndGet);
+        store.execute("k", Map.of("note", "ít đá", "quantity", 2), runs::incrementAndGet);
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void nullBodyIsReplayedForDeletes() {
+        IdempotencyStore store = store(60_000, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        store.execute("del", null, runs::incrementAndGet);
+        store.execute("del", null, runs::incrementAndGet);
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failedActionReleasesKeyForRetry() {
+        IdempotencyStore store = store(60_000, 100);
+
+        assertThatThrownBy(() -> store.execute("k", "body", () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.size()).isZero();
+        assertThat(store.execute("k", "body", () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void expiredKeyRunsActionAgain() throws InterruptedException {
+        IdempotencyStore store = store(20, 100);
+        AtomicInteger runs = new AtomicInteger();
+
+        store.execute("k", "body", runs::incrementAndGet);
+        Thread.sleep(50);
+        // hết TTL => key dùng lại được, kể cả với body khác
+        store.execute("k", "other body", runs::incrementAndGet);
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void storeStaysBoundedByMaxEntries() {
+        IdempotencyStore store = store(60_000, 3);
+
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            store.execute("k" + i, n, () -> n);
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForInFlightResult() throws Exception {
+        IdempotencyStore store = store(60_000, 100);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> store.execute("k", "body", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> dup = CompletableFuture.supplyAsync(
+                () -> store.execute("k", "body", () -> "dup-" + runs.incrementAndGet()));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(dup.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(runs).hasValue(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
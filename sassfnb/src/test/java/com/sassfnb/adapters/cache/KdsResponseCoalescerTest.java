@@ -0,0 +1,116 @@
+package com.sassfnb.adapters.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sassfnb.application.config.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KdsResponseCoalescerTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID outletA = UUID.randomUUID();
+    private final UUID outletB = UUID.randomUUID();
+    private final List<String> statuses = List.of("FIRED", "READY");
+
+    private static KdsResponseCoalescer coalescer(long ttlMs) {
+        CacheProperties props = new CacheProperties();
+        props.setKdsResponseTtlMs(ttlMs);
+        props.setKdsResponseMaxEntries(100);
+        return new KdsResponseCoalescer(props, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    private String board(KdsResponseCoalescer c, UUID outletId, AtomicInteger runs) {
+        byte[] json = c.get(KdsResponseCoalescer.KIND_BOARDS, tenantId, outletId, null, null, statuses,
+                () -> List.of("r" + runs.incrementAndGet()));
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void sameRequestWithinTtlIsServedFromCache() {
+        KdsResponseCoalescer c = coalescer(60_000);
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThat(board(c, outletA, runs)).isEqualTo("[\"r1\"]");
+        assertThat(board(c, outletA, runs)).isEqualTo("[\"r1\"]");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneComputation() throws Exception {
+        KdsResponseCoalescer c = coalescer(60_000);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<byte[]> first = CompletableFuture.supplyAsync(() -> c.get(KdsResponseCoalescer.KIND_BOARDS,
+                tenantId, outletA, null, null, statuses, () -> {
+                    started.countDown();
+                    await(release);
+                    return List.of("r" + runs.incrementAndGet());
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> board(c, outletA, runs));
+        release.countDown();
+
+        assertThat(new String(first.get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8)).isEqualTo("[\"r1\"]");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("[\"r1\"]");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void invalidateOutletRecomputesOnlyThatOutlet() {
+        KdsResponseCoalescer c = coalescer(60_000);
+        AtomicInteger runsA = new AtomicInteger();
+        AtomicInteger runsB = new AtomicInteger();
+        board(c, outletA, runsA);
+        board(c, outletB, runsB);
+
+        c.invalidateOutlet(tenantId, outletA);
+
+        assertThat(board(c, outletA, runsA)).isEqualTo("[\"r2\"]");
+        assertThat(board(c, outletB, runsB)).isEqualTo("[\"r1\"]");
+    }
+
+    @Test
+    void invalidateTenantRecomputesEveryOutlet() {
+        KdsResponseCoalescer c = coalescer(60_000);
+        AtomicInteger runsA = new AtomicInteger();
+        AtomicInteger runsB = new AtomicInteger();
+        board(c, outletA, runsA);
+        board(c, outletB, runsB);
+
+        c.invalidateTenant(tenantId);
+
+        assertThat(board(c, outletA, runsA)).isEqualTo("[\"r2\"]");
+        assertThat(board(c, outletB, runsB)).isEqualTo("[\"r2\"]");
+    }
+
+    @Test
+    void expiredEntryIsRecomputed() throws Exception {
+        KdsResponseCoalescer c = coalescer(1);
+        AtomicInteger runs = new AtomicInteger();
+        board(c, outletA, runs);
+        Thread.sleep(5);
+
+        assertThat(board(c, outletA, runs)).isEqualTo("[\"r2\"]");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
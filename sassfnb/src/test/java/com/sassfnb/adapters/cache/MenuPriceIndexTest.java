@@ -0,0 +1,147 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.cache.MenuPriceIndex.PricesAt;
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import com.sassfnb.adapters.persistence.entity.MenuItemPriceEntity;
+import com.sassfnb.adapters.persistence.repository.MenuItemPriceRepository;
+import com.sassfnb.adapters.persistence.repository.MenuItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MenuPriceIndexTest {
+
+    private static final UUID OUTLET = UUID.randomUUID();
+    private static final UUID ITEM = UUID.randomUUID();
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+    // happy hour 17:00 -> 19:00 (validTo tính cả mốc đó)
+    private static final Instant HH_FROM = Instant.parse("2025-06-01T17:00:00Z");
+    private static final Instant HH_TO = Instant.parse("2025-06-01T19:00:00Z");
+
+    private MenuItemPriceRepository priceRepo;
+    private PublicMenuSnapshotCache menuSnapshots;
+    private CacheInvalidationBus bus;
+    private MenuPriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        priceRepo = mock(MenuItemPriceRepository.class);
+        menuSnapshots = mock(PublicMenuSnapshotCache.class);
+        bus = mock(CacheInvalidationBus.class);
+        index = new MenuPriceIndex(priceRepo, mock(MenuItemRepository.class), menuSnapshots, bus);
+    }
+
+    @Test
+    void segmentBoundariesAreInclusiveOfValidFromAndValidTo() {
+        MenuItemPriceEntity base = price(ITEM, "50000", null, null, T0);
+        MenuItemPriceEntity happy = price(ITEM, "35000", HH_FROM, HH_TO, T0.plusSeconds(60));
+        when(priceRepo.findByOutletId(OUTLET)).thenReturn(List.of(base, happy));
+
+        assertThat(priceAt(HH_FROM.minusNanos(1))).isEqualTo(base.getId());
+        assertThat(priceAt(HH_FROM)).isEqualTo(happy.getId());
+        assertThat(priceAt(HH_TO)).isEqualTo(happy.getId());
+        assertThat(priceAt(HH_TO.plusNanos(1))).isEqualTo(base.getId());
+    }
+
+    @Test
+    void pricesAtReportsTheSegmentTheResultIsValidFor() {
+        MenuItemPriceEntity base = price(ITEM, "50000", null, null, T0);
+        MenuItemPriceEntity happy = price(ITEM, "35000", HH_FROM, HH_TO, T0.plusSeconds(60));
+        when(priceRepo.findByOutletId(OUTLET)).thenReturn(List.of(base, happy));
+
+        PricesAt before = index.pricesAt(OUTLET, HH_FROM.minusSeconds(1));
+        assertThat(before.byItem().get(ITEM).id()).isEqualTo(base.getId());
+        assertThat(before.validFrom()).isNull();
+        assertThat(before.validUntil()).isEqualTo(HH_FROM);
+
+        PricesAt during = index.pricesAt(OUTLET, HH_FROM);
+        assertThat(during.byItem().get(ITEM).id()).isEqualTo(happy.getId());
+        assertThat(during.validFrom()).isEqualTo(HH_FROM);
+        assertThat(during.validUntil()).isEqualTo(HH_TO.plusNanos(1));
+
+        PricesAt after = index.pricesAt(OUTLET, HH_TO.plusNanos(1));
+        assertThat(after.byItem().get(ITEM).id()).isEqualTo(base.getId());
+        assertThat(after.validFrom()).isEqualTo(HH_TO.plusNanos(1));
+        assertThat(after.validUntil()).isNull();
+    }
+
+    @Test
+    void newestCoveringRowWinsWhenWindowsOverlap() {
+        Instant mid = HH_FROM.plusSeconds(1800);
+        MenuItemPriceEntity wide = price(ITEM, "40000", HH_FROM, HH_TO, T0.plusSeconds(60));
+        MenuItemPriceEntity narrow = price(ITEM, "30000", mid, HH_TO, T0.plusSeconds(120));
+        when(priceRepo.findByOutletId(OUTLET)).thenReturn(List.of(wide, narrow));
+
+        assertThat(priceAt(HH_FROM)).isEqualTo(wide.getId());
+        assertThat(priceAt(mid.minusNanos(1))).isEqualTo(wide.getId());
+        assertThat(priceAt(mid)).isEqualTo(narrow.getId());
+        assertThat(priceAt(HH_TO)).isEqualTo(narrow.getId());
+    }
+
+    @Test
+    void noCoveringRowFallsBackToNewestRow() {
+        MenuItemPriceEntity older = price(ITEM, "40000", HH_FROM, HH_TO, T0);
+        MenuItemPriceEntity newer = price(ITEM, "45000", HH_FROM, HH_TO, T0.plusSeconds(60));
+        when(priceRepo.findByOutletId(OUTLET)).thenReturn(List.of(older, newer));
+
+        assertThat(priceAt(HH_FROM.minusSeconds(1))).isEqualTo(newer.getId());
+        assertThat(priceAt(HH_TO.plusSeconds(1))).isEqualTo(newer.getId());
+    }
+
+    @Test
+    void itemWithoutPriceRowsIsAbsent() {
+        when(priceRepo.findByOutletId(OUTLET)).thenReturn(List.of(price(ITEM, "50000", null, null, T0)));
+
+        assertThat(index.priceAt(OUTLET, UUID.randomUUID(), T0)).isNull();
+        assertThat(index.pricesAt(OUTLET, T0).byItem()).containsOnlyKeys(ITEM);
+    }
+
+    @Test
+    void outletIsLoadedOnceUntilEvicted() {
+        when(priceRepo.findByOutletId(OUTLET)).thenReturn(List.of(price(ITEM, "50000", null, null, T0)));
+
+        index.priceAt(OUTLET, ITEM, T0);
+        index.pricesAt(OUTLET, HH_FROM);
+        verify(priceRepo, times(1)).findByOutletId(OUTLET);
+
+        evictor().accept(OUTLET);
+        verify(menuSnapshots).evictOutlet(OUTLET);
+
+        index.priceAt(OUTLET, ITEM, T0);
+        verify(priceRepo, times(2)).findByOutletId(OUTLET);
+    }
+
+    private UUID priceAt(Instant at) {
+        return index.priceAt(OUTLET, ITEM, at).id();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<UUID> evictor() {
+        ArgumentCaptor<Consumer<UUID>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus).register(eq(MenuPriceIndex.CACHE_BY_OUTLET), captor.capture(), any());
+        return captor.getValue();
+    }
+
+    private static MenuItemPriceEntity price(UUID itemId, String amount, Instant from, Instant to, Instant createdAt) {
+        MenuItemPriceEntity p = new MenuItemPriceEntity();
+        p.setId(UUID.randomUUID());
+        p.setMenuItemId(itemId);
+        p.setPrice(new BigDecimal(amount));
+        p.setValidFrom(from);
+        p.setValidTo(to);
+        p.setCreatedAt(createdAt);
+        return p;
+    }
+}
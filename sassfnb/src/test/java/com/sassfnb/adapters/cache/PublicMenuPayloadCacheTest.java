@@ -0,0 +1,89 @@
+package com.sassfnb.adapters.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache.Snapshot;
+import com.sassfnb.adapters.rest.dto.publicmenu.PublicMenuDtos.PublicMenuPayload;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicMenuPayloadCacheTest {
+
+    private final UUID outletId = UUID.randomUUID();
+    private final PublicMenuPayloadCache cache = new PublicMenuPayloadCache(new ObjectMapper());
+    private final AtomicInteger encoded = new AtomicInteger();
+
+    private Snapshot snapshot(long version) {
+        return new Snapshot(outletId, version, Instant.now(), null, null, List.of());
+    }
+
+    private PublicMenuPayload payload(Snapshot snap, String name) {
+        return cache.get(snap, s -> {
+            encoded.incrementAndGet();
+            return Map.of("name", name);
+        });
+    }
+
+    @Test
+    void sameVersionIsSerializedOnce() {
+        Snapshot v1 = snapshot(1);
+
+        PublicMenuPayload first = payload(v1, "pho");
+        PublicMenuPayload again = payload(v1, "pho");
+
+        assertThat(again).isSameAs(first);
+        assertThat(encoded).hasValue(1);
+    }
+
+    @Test
+    void gzipBodyInflatesToTheJsonBody() throws IOException {
+        PublicMenuPayload p = payload(snapshot(1), "pho");
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(p.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(p.json());
+        }
+        assertThat(new String(p.json())).isEqualTo("{\"name\":\"pho\"}");
+    }
+
+    @Test
+    void etagDependsOnContentNotVersionOrNode() {
+        PublicMenuPayload a = payload(snapshot(1), "pho");
+        PublicMenuPayload sameContent = new PublicMenuPayloadCache(new ObjectMapper())
+                .get(snapshot(99), s -> Map.of("name", "pho"));
+        PublicMenuPayload changed = payload(snapshot(2), "bun");
+
+        assertThat(a.etag()).startsWith("\"").endsWith("\"");
+        assertThat(sameContent.etag()).isEqualTo(a.etag());
+        assertThat(changed.etag()).isNotEqualTo(a.etag());
+    }
+
+    @Test
+    void olderVersionNeverReplacesNewer() {
+        payload(snapshot(2), "bun");
+        payload(snapshot(1), "pho"); // request chậm còn giữ snapshot cũ
+        PublicMenuPayload current = payload(snapshot(2), "bun");
+
+        assertThat(new String(current.json())).contains("bun");
+        assertThat(encoded).hasValue(2);
+    }
+
+    @Test
+    void evictDropsThePayload() {
+        Snapshot v1 = snapshot(1);
+        payload(v1, "pho");
+
+        cache.evictOutlet(outletId);
+        payload(v1, "pho");
+
+        assertThat(encoded).hasValue(2);
+    }
+}
@@ -0,0 +1,108 @@
+package com.sassfnb.adapters.cache;
+
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache.Built;
+import com.sassfnb.adapters.cache.PublicMenuSnapshotCache.Snapshot;
+import com.sassfnb.adapters.messaging.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PublicMenuSnapshotCacheTest {
+
+    private final UUID outletId = UUID.randomUUID();
+    private final List<Instant> builtAt = new ArrayList<>();
+
+    private PublicMenuSnapshotCache cache;
+    private Consumer<UUID> evictor;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+        cache = new PublicMenuSnapshotCache(bus, mock(PublicMenuPayloadCache.class));
+
+        ArgumentCaptor<Consumer<UUID>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus).register(eq(PublicMenuSnapshotCache.CACHE_BY_OUTLET), captor.capture(), any());
+        evictor = captor.getValue();
+    }
+
+    /** menu không có giá theo lịch => snapshot đúng vô thời hạn */
+    private Built unbounded(Instant at) {
+        builtAt.add(at);
+        return new Built(null, null, List.of());
+    }
+
+    @Test
+    void currentRequestsShareOneSnapshot() {
+        Snapshot first = cache.get(outletId, null, this::unbounded);
+        Snapshot again = cache.get(outletId, Instant.now().plusSeconds(5), this::unbounded);
+
+        assertThat(again).isSameAs(first);
+        assertThat(builtAt).hasSize(1);
+    }
+
+    @Test
+    void snapshotIsRebuiltWhenItsPriceWindowEnds() {
+        Instant now = Instant.now();
+        Function<Instant, Built> endsSoon = at -> {
+            builtAt.add(at);
+            return new Built(null, at.plusMillis(1), List.of());
+        };
+        Snapshot first = cache.get(outletId, null, endsSoon);
+
+        Snapshot later = cache.get(outletId, now.plusSeconds(1), endsSoon);
+
+        assertThat(later.version()).isGreaterThan(first.version());
+        assertThat(later.covers(now.plusSeconds(1))).isTrue();
+    }
+
+    @Test
+    void previewFarFromNowIsBuiltButNotCached() {
+        Instant tomorrow = Instant.now().plus(Duration.ofDays(1));
+
+        cache.get(outletId, tomorrow, this::unbounded);
+        cache.get(outletId, null, this::unbounded);
+        cache.get(outletId, null, this::unbounded);
+
+        assertThat(builtAt).hasSize(2);
+        assertThat(builtAt.get(0)).isEqualTo(tomorrow);
+    }
+
+    @Test
+    void evictForcesRebuild() {
+        Snapshot first = cache.get(outletId, null, this::unbounded);
+
+        evictor.accept(outletId);
+        Snapshot rebuilt = cache.get(outletId, null, this::unbounded);
+
+        assertThat(rebuilt.version()).isGreaterThan(first.version());
+        assertThat(builtAt).hasSize(2);
+    }
+
+    @Test
+    void buildRacingAnEvictIsReturnedButNotCached() {
+        Snapshot stale = cache.get(outletId, null, at -> {
+            evictor.accept(outletId); // menu đổi trong lúc đang đọc DB
+            return unbounded(at);
+        });
+
+        Snapshot next = cache.get(outletId, null, this::unbounded);
+
+        assertThat(next).isNotSameAs(stale);
+        assertThat(builtAt).hasSize(2);
+    }
+}
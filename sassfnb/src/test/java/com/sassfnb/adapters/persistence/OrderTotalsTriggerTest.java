@@ -0,0 +1,200 @@
+package com.sassfnb.adapters.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * order_totals (V65, cộng dồn delta trong trigger) phải khớp với SUM tính lại từ đầu,
+ * và orders.* do fn_recalc_order_totals ghi phải giữ semantics V52/V62 (SUM 3 bảng).
+ * Chạy trên datasource của app (Flyway đã migrate, giống SassfnbApplicationTests);
+ * mỗi test nằm trong transaction của test và bị rollback.
+ */
+@SpringBootTest
+@Transactional
+class OrderTotalsTriggerTest {
+
+    // cùng công thức fn_order_totals_rebuild
+    private static final String EXPECTED = """
+            SELECT o.id AS order_id,
+                   COALESCE(i.item_count, 0)        AS item_count,
+                   COALESCE(i.active_item_count, 0) AS active_item_count,
+                   COALESCE(i.line_total_all, 0)    AS line_total_all,
+                   COALESCE(i.line_total, 0)        AS line_total,
+                   COALESCE(i.gross_amount, 0)      AS gross_amount,
+                   COALESCE(i.item_discount, 0)     AS item_discount,
+                   d.type                           AS order_discount_type,
+                   COALESCE(d.value, 0)             AS order_discount_value,
+                   COALESCE(p.paid_confirmed, 0)    AS paid_confirmed,
+                   COALESCE(p.paid_settled, 0)      AS paid_settled
+            FROM public.orders o
+            LEFT JOIN LATERAL (
+              SELECT count(*) AS item_count,
+                     count(*) FILTER (WHERE upper(oi.status) <> 'VOIDED') AS active_item_count,
+                     SUM(oi.total_amount) AS line_total_all,
+                     SUM(oi.total_amount) FILTER (WHERE upper(oi.status) <> 'VOIDED') AS line_total,
+                     SUM(oi.unit_price * oi.quantity) FILTER (WHERE upper(oi.status) <> 'VOIDED') AS gross_amount,
+                     SUM(COALESCE(oi.discount_amount, 0)) FILTER (WHERE upper(oi.status) <> 'VOIDED') AS item_discount
+              FROM public.order_items oi WHERE oi.order_id = o.id
+            ) i ON true
+            LEFT JOIN LATERAL (
+              SELECT od.type, od.value FROM public.order_discounts od
+              WHERE od.order_id = o.id ORDER BY od.created_at DESC LIMIT 1
+            ) d ON true
+            LEFT JOIN LATERAL (
+              SELECT SUM(pm.amount) FILTER (WHERE upper(pm.status) = 'CONFIRMED') AS paid_confirmed,
+                     SUM(pm.amount) FILTER (WHERE COALESCE(pm.status, '') IN ('CONFIRMED','PAID','SUCCESS')) AS paid_settled
+              FROM public.payments pm WHERE pm.order_id = o.id
+            ) p ON true
+            """;
+
+    private static final String DRIFT = """
+            SELECT e.order_id
+            FROM (%s) e
+            LEFT JOIN public.order_totals t ON t.order_id = e.order_id
+            WHERE e.order_id = ANY (?)
+              AND (t.order_id IS NULL
+                OR t.item_count           <> e.item_count
+                OR t.active_item_count    <> e.active_item_count
+                OR t.line_total_all       <> e.line_total_all
+                OR t.line_total           <> e.line_total
+                OR t.gross_amount         <> e.gross_amount
+                OR t.item_discount        <> e.item_discount
+                OR t.order_discount_type  IS DISTINCT FROM e.order_discount_type
+                OR t.order_discount_value <> e.order_discount_value
+                OR t.paid_confirmed       <> e.paid_confirmed
+                OR t.paid_settled         <> e.paid_settled)
+            """.formatted(EXPECTED);
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Test
+    void readModelMatchesFullRecalculationForRecentOrders() {
+        List<UUID> ids = uuids("SELECT id FROM public.orders ORDER BY updated_at DESC NULLS LAST LIMIT 500");
+        assumeTrue(!ids.isEmpty(), "no orders in database");
+
+        assertThat(drifted(ids)).isEmpty();
+    }
+
+    @Test
+    void itemMutationsKeepReadModelAndOrderTotalsInSync() {
+        List<UUID> items = uuids("""
+                SELECT oi.id FROM public.order_items oi
+                WHERE upper(oi.status) <> 'VOIDED' AND oi.quantity > 0
+                ORDER BY oi.created_at DESC LIMIT 1
+                """);
+        assumeTrue(!items.isEmpty(), "no active order item in database");
+        UUID itemId = items.get(0);
+        UUID orderId = jdbc.queryForObject("SELECT order_id FROM public.order_items WHERE id = ?", UUID.class, itemId);
+
+        // đổi số lượng
+        jdbc.update("""
+                UPDATE public.order_items
+                SET quantity = quantity + 1, total_amount = total_amount + unit_price
+                WHERE id = ?
+                """, itemId);
+        assertInSync(orderId);
+
+        // void
+        jdbc.update("UPDATE public.order_items SET status = 'VOIDED' WHERE id = ?", itemId);
+        assertInSync(orderId);
+
+        // xoá hẳn
+        jdbc.update("DELETE FROM public.order_items WHERE id = ?", itemId);
+        assertInSync(orderId);
+    }
+
+    @Test
+    void discountAndPaymentMutationsKeepReadModelInSync() {
+        List<UUID> withDiscount = uuids("SELECT order_id FROM public.order_discounts LIMIT 1");
+        if (!withDiscount.isEmpty()) {
+            UUID orderId = withDiscount.get(0);
+            jdbc.update("UPDATE public.order_discounts SET value = value + 1 WHERE order_id = ?", orderId);
+            assertInSync(orderId);
+        }
+
+        List<UUID> withPayment = uuids("SELECT order_id FROM public.payments WHERE order_id IS NOT NULL LIMIT 1");
+        if (!withPayment.isEmpty()) {
+            UUID orderId = withPayment.get(0);
+            jdbc.update("UPDATE public.payments SET status = 'CANCELLED' WHERE order_id = ?", orderId);
+            assertInSync(orderId);
+        }
+
+        assumeTrue(!withDiscount.isEmpty() || !withPayment.isEmpty(), "no discount/payment rows in database");
+    }
+
+    @Test
+    void reconcileRepairsDriftInEveryColumn() {
+        List<UUID> ids = uuids("""
+                SELECT t.order_id FROM public.order_totals t
+                JOIN public.orders o ON o.id = t.order_id
+                WHERE o.updated_at IS NOT NULL LIMIT 1
+                """);
+        assumeTrue(!ids.isEmpty(), "no order_totals rows in database");
+        UUID orderId = ids.get(0);
+
+        // làm lệch mọi cột => reconcile phải sửa lại hết
+        jdbc.update("""
+                UPDATE public.order_totals
+                SET item_count = item_count + 1, active_item_count = active_item_count + 1,
+                    line_total_all = line_total_all + 1, line_total = line_total + 1,
+                    gross_amount = gross_amount + 1, item_discount = item_discount + 1,
+                    order_discount_type = 'DRIFT', order_discount_value = order_discount_value + 1,
+                    paid_confirmed = paid_confirmed + 1, paid_settled = paid_settled + 1
+                WHERE order_id = ?
+                """, orderId);
+        assertThat(drifted(List.of(orderId))).containsExactly(orderId);
+
+        Integer fixed = jdbc.queryForObject(
+                "SELECT public.fn_order_totals_reconcile('-infinity'::timestamptz)", Integer.class);
+
+        assertThat(fixed).isGreaterThanOrEqualTo(1);
+        assertInSync(orderId);
+    }
+
+    /** order_totals khớp SUM thật + orders.* đúng semantics fn_recalc_order_totals V62 */
+    private void assertInSync(UUID orderId) {
+        assertThat(drifted(List.of(orderId))).isEmpty();
+
+        Map<String, Object> row = jdbc.queryForMap("""
+                SELECT o.subtotal_amount, o.discount_amount, o.total_amount, o.paid_amount, o.balance_amount,
+                       e.line_total_all, e.order_discount_value, e.paid_settled
+                FROM public.orders o
+                JOIN (%s) e ON e.order_id = o.id
+                WHERE o.id = ?
+                """.formatted(EXPECTED), orderId);
+
+        BigDecimal subtotal = (BigDecimal) row.get("line_total_all");
+        BigDecimal disc = (BigDecimal) row.get("order_discount_value");
+        BigDecimal paid = (BigDecimal) row.get("paid_settled");
+        BigDecimal total = subtotal.subtract(disc).max(BigDecimal.ZERO);
+        BigDecimal balance = total.subtract(paid).max(BigDecimal.ZERO);
+
+        assertThat((BigDecimal) row.get("subtotal_amount")).isEqualByComparingTo(subtotal);
+        assertThat((BigDecimal) row.get("discount_amount")).isEqualByComparingTo(disc);
+        assertThat((BigDecimal) row.get("total_amount")).isEqualByComparingTo(total);
+        assertThat((BigDecimal) row.get("paid_amount")).isEqualByComparingTo(paid);
+        assertThat((BigDecimal) row.get("balance_amount")).isEqualByComparingTo(balance);
+    }
+
+    private List<UUID> drifted(List<UUID> orderIds) {
+        return jdbc.query(DRIFT,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", orderIds.toArray())),
+                (rs, n) -> rs.getObject(1, UUID.class));
+    }
+
+    private List<UUID> uuids(String sql) {
+        return jdbc.query(sql, (rs, n) -> rs.getObject(1, UUID.class));
+    }
+}
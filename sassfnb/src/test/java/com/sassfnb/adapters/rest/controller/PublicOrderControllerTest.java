@@ -0,0 +1,75 @@
+package com.sassfnb.adapters.rest.controller;
+
+import com.sassfnb.adapters.cache.IdempotencyStore;
+import com.sassfnb.adapters.messaging.OrderStreamHub;
+import com.sassfnb.adapters.rest.dto.publicorder.PublicOrderDtos.OrderResponse;
+import com.sassfnb.application.service.PublicOrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class PublicOrderControllerTest {
+
+    private final PublicOrderService service = mock(PublicOrderService.class);
+    private final UUID orderId = UUID.randomUUID();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.standaloneSetup(new PublicOrderController(service, mock(OrderStreamHub.class),
+                mock(IdempotencyStore.class))).build();
+    }
+
+    private OrderResponse order(long revision) {
+        return new OrderResponse(orderId, null, null, null, null, "OPEN", null, null,
+                null, null, null, BigDecimal.ZERO, List.of(), revision);
+    }
+
+    @Test
+    void getSendsRevisionEtag() throws Exception {
+        when(service.getOrder(orderId)).thenReturn(order(7L));
+
+        mvc.perform(get("/api/v1/public/orders/{id}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r7\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.revision").value(7));
+
+        verify(service, never()).getOrderRevision(any());
+    }
+
+    @Test
+    void matchingIfNoneMatchReturns304WithoutLoadingOrder() throws Exception {
+        when(service.getOrderRevision(orderId)).thenReturn(7L);
+
+        mvc.perform(get("/api/v1/public/orders/{id}", orderId)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"r6\", \"r7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r7\""))
+                .andExpect(content().string(""));
+
+        verify(service, never()).getOrder(any());
+    }
+
+    @Test
+    void staleIfNoneMatchReturnsFullOrder() throws Exception {
+        when(service.getOrderRevision(orderId)).thenReturn(8L);
+        when(service.getOrder(orderId)).thenReturn(order(8L));
+
+        mvc.perform(get("/api/v1/public/orders/{id}", orderId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"r7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r8\""))
+                .andExpect(jsonPath("$.revision").value(8));
+    }
+}
@@ -0,0 +1,104 @@
+package com.sassfnb.application.service.impl;
+
+import com.sassfnb.adapters.persistence.repository.OrderItemBatchRepository;
+import com.sassfnb.adapters.persistence.repository.OrderItemBatchRepository.StatusTransitionRow;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.BulkKdsItemOutcome;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.BulkKdsItemStatusRequest;
+import com.sassfnb.adapters.rest.dto.kds.KdsDtos.BulkKdsItemStatusResponse;
+import com.sassfnb.application.domain.order.OrderEvents.ItemsStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.KitchenOrdersChanged;
+import com.sassfnb.application.ports.TenantResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KdsServiceImplTest {
+
+    @Mock
+    OrderItemBatchRepository itemBatchRepo;
+    @Mock
+    ApplicationEventPublisher events;
+    @Mock
+    TenantResolver tenantResolver;
+
+    @InjectMocks
+    KdsServiceImpl service;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID orderId = UUID.randomUUID();
+
+    @Test
+    void bulkReadyUpdatesValidRowsInOneStatementAndReportsEachOutcome() {
+        UUID fired = UUID.randomUUID();
+        UUID ready = UUID.randomUUID();
+        UUID served = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        List<UUID> ids = List.of(fired, ready, served, missing);
+
+        when(itemBatchRepo.transitionStatus(eq(tenantId), eq(orderId), eq(ids),
+                eq(Set.of("FIRED", "IN_PROGRESS")), eq("READY"), any()))
+                .thenReturn(List.of(
+                        new StatusTransitionRow(fired, orderId, "FIRED", true),
+                        new StatusTransitionRow(ready, orderId, "READY", false),
+                        new StatusTransitionRow(served, orderId, "SERVED", false)));
+
+        BulkKdsItemStatusResponse res = service.bulkItemStatus(tenantId,
+                new BulkKdsItemStatusRequest(orderId, ids, " ready "));
+
+        assertThat(res.status()).isEqualTo("READY");
+        assertThat(res.updatedCount()).isEqualTo(1);
+        assertThat(res.items()).extracting(BulkKdsItemOutcome::itemId).containsExactly(fired, ready, served, missing);
+        assertThat(res.items()).extracting(BulkKdsItemOutcome::result)
+                .containsExactly("UPDATED", "UNCHANGED", "INVALID_TRANSITION", "NOT_FOUND");
+        assertThat(res.items().get(0).newStatus()).isEqualTo("READY");
+
+        verify(itemBatchRepo, times(1)).transitionStatus(any(), any(), anyCollection(), anyCollection(), any(), any());
+        // 1 event history cho cả batch + 1 event KDS theo order
+        verify(events).publishEvent(ArgumentMatchers.<Object>argThat(
+                e -> e instanceof ItemsStatusChanged c && c.itemIds().equals(List.of(fired))));
+        verify(events).publishEvent(ArgumentMatchers.<Object>argThat(
+                e -> e instanceof KitchenOrdersChanged c && c.orderIds().equals(List.of(orderId))));
+        verifyNoMoreInteractions(events);
+    }
+
+    @Test
+    void nothingUpdatedPublishesNoEvents() {
+        UUID served = UUID.randomUUID();
+        when(itemBatchRepo.transitionStatus(eq(tenantId), eq(orderId), eq(List.of()),
+                eq(Set.of("READY")), eq("SERVED"), any()))
+                .thenReturn(List.of(new StatusTransitionRow(served, orderId, "SERVED", false)));
+
+        BulkKdsItemStatusResponse res = service.bulkItemStatus(tenantId,
+                new BulkKdsItemStatusRequest(orderId, null, "SERVED"));
+
+        assertThat(res.updatedCount()).isZero();
+        assertThat(res.items()).extracting(BulkKdsItemOutcome::result).containsExactly("UNCHANGED");
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void unsupportedTargetStatusIsRejectedBeforeTouchingRows() {
+        assertThatThrownBy(() -> service.bulkItemStatus(tenantId,
+                new BulkKdsItemStatusRequest(orderId, null, "FIRED")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.bulkItemStatus(tenantId,
+                new BulkKdsItemStatusRequest(null, List.of(), "READY")))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(itemBatchRepo, events);
+    }
+}
@@ -0,0 +1,154 @@
+package com.sassfnb.application.service.impl;
+
+import com.sassfnb.adapters.persistence.entity.OrderEntity;
+import com.sassfnb.adapters.persistence.entity.OrderItemEntity;
+import com.sassfnb.adapters.persistence.repository.OrderItemRepository;
+import com.sassfnb.adapters.persistence.repository.OrderRepository;
+import com.sassfnb.adapters.rest.dto.order.OrderDtos.*;
+import com.sassfnb.application.domain.order.OrderEvents.ItemsStatusChanged;
+import com.sassfnb.application.domain.order.OrderEvents.KitchenOrdersChanged;
+import com.sassfnb.application.ports.TenantResolver;
+import com.sassfnb.application.service.OrderTableService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderWorkflowServiceImplTest {
+
+    @Mock
+    OrderRepository orderRepo;
+    @Mock
+    OrderItemRepository itemRepo;
+    @Mock
+    TenantResolver tenantResolver;
+    @Mock
+    OrderTableService orderTableService;
+    @Mock
+    ApplicationEventPublisher events;
+
+    @InjectMocks
+    OrderWorkflowServiceImpl service;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID orderId = UUID.randomUUID();
+    private OrderEntity order;
+
+    @BeforeEach
+    void setUp() {
+        order = new OrderEntity();
+        order.setId(orderId);
+        order.setTenantId(tenantId);
+        order.setStatus("OPEN");
+        order.setRevision(1L);
+
+        lenient().when(orderRepo.findById(orderId)).thenReturn(Optional.of(order));
+        lenient().when(tenantResolver.currentTenantId()).thenReturn(tenantId);
+    }
+
+    private OrderItemEntity item(UUID id, String status) {
+        OrderItemEntity i = new OrderItemEntity();
+        i.setId(id);
+        i.setOrderId(orderId);
+        i.setStatus(status);
+        i.setTotalAmount(new BigDecimal("10000"));
+        return i;
+    }
+
+    @Test
+    void fireUpdatesOnlyRequestedNewItemsInOneStatement() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID alreadyFired = UUID.randomUUID();
+        when(itemRepo.findIdsByOrderIdAndStatus(orderId, "NEW")).thenReturn(List.of(a, b));
+        when(itemRepo.findByOrderIdAndIdInOrderByCreatedAtAsc(orderId, List.of(a)))
+                .thenReturn(List.of(item(a, "FIRED")));
+
+        OrderDeltaResponse delta = service.fireDelta(orderId,
+                new FireOrderRequest(false, List.of(a, alreadyFired, a)));
+
+        verify(itemRepo).bulkUpdateStatusByOrderIdAndIdsAndStatus(
+                eq(orderId), eq(List.of(a)), eq("NEW"), eq("FIRED"), any());
+        verify(itemRepo, never()).save(any());
+        assertThat(delta.changedItems()).extracting(OrderItemResponse::id).containsExactly(a);
+        verify(events).publishEvent(any(KitchenOrdersChanged.class));
+        // history chỉ ghi item thực sự NEW -> FIRED
+        verify(events).publishEvent(ArgumentMatchers.<Object>argThat(
+                e -> e instanceof ItemsStatusChanged c && c.itemIds().equals(List.of(a))));
+    }
+
+    @Test
+    void fireWithNothingNewDoesNotTouchItems() {
+        when(itemRepo.findIdsByOrderIdAndStatus(orderId, "NEW")).thenReturn(List.of());
+
+        OrderDeltaResponse delta = service.fireDelta(orderId, new FireOrderRequest(true, null));
+
+        assertThat(delta.changedItems()).isEmpty();
+        verify(itemRepo, never()).bulkUpdateStatusByOrderIdAndIdsAndStatus(any(), anyCollection(), any(), any(), any());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void voidOrderVoidsRemainingItemsWithOneUpdate() {
+        service.voidOrder(orderId, new VoidOrderRequest("khách huỷ"));
+
+        assertThat(order.getStatus()).isEqualTo("VOIDED");
+        verify(itemRepo).bulkUpdateStatusByOrderIdExcludingStatuses(
+                eq(orderId), eq(List.of("SERVED", "VOIDED")), eq("VOIDED"), any());
+        verify(itemRepo, never()).save(any());
+        verify(orderTableService).detachByOrder(orderId);
+    }
+
+    @Test
+    void submitBatchFiresEligibleOrdersInOneUpdateAndReportsOthers() {
+        OrderEntity draft = new OrderEntity();
+        draft.setId(UUID.randomUUID());
+        draft.setTenantId(tenantId);
+        draft.setStatus("DRAFT");
+        OrderEntity paid = new OrderEntity();
+        paid.setId(UUID.randomUUID());
+        paid.setTenantId(tenantId);
+        paid.setStatus("PAID");
+        UUID missing = UUID.randomUUID();
+        UUID nothingNew = orderId;
+
+        List<UUID> ids = List.of(draft.getId(), paid.getId(), missing, nothingNew);
+        when(orderRepo.findByTenantIdAndIdIn(tenantId, ids)).thenReturn(List.of(draft, paid, order));
+        when(itemRepo.countItemsByOrderIds(anyCollection(), eq("NEW"))).thenReturn(List.of(
+                new Object[] { draft.getId(), 3L, 2L },
+                new Object[] { paid.getId(), 1L, 0L },
+                new Object[] { nothingNew, 2L, 0L }));
+
+        UUID firedItem = UUID.randomUUID();
+        when(itemRepo.findIdsByOrderIdsAndStatus(List.of(draft.getId()), "NEW")).thenReturn(List.of(firedItem));
+
+        SubmitBatchResponse res = service.submitBatch(new SubmitBatchRequest(ids));
+
+        assertThat(res.submitted()).isEqualTo(1);
+        assertThat(res.failed()).isEqualTo(3);
+        assertThat(res.results()).extracting(SubmitBatchResult::orderId).containsExactlyElementsOf(ids);
+        assertThat(res.results()).extracting(SubmitBatchResult::ok).containsExactly(true, false, false, false);
+        assertThat(res.results().get(0).firedCount()).isEqualTo(2);
+        assertThat(draft.getStatus()).isEqualTo("OPEN");
+
+        verify(itemRepo).bulkUpdateStatusByOrderIdsAndStatus(eq(List.of(draft.getId())), eq("NEW"), eq("FIRED"), any());
+        verify(itemRepo, never()).bulkUpdateStatusByOrderIdAndIdsAndStatus(any(), anyCollection(), any(), any(), any());
+        verify(events).publishEvent(any(KitchenOrdersChanged.class));
+        verify(events).publishEvent(ArgumentMatchers.<Object>argThat(
+                e -> e instanceof ItemsStatusChanged c && c.itemIds().equals(List.of(firedItem))));
+    }
+}
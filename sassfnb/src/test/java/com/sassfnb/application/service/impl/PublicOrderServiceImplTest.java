@@ -0,0 +1,131 @@
+package com.sassfnb.application.service.impl;
+
+import com.sassfnb.adapters.persistence.entity.OrderEntity;
+import com.sassfnb.adapters.persistence.entity.OrderItemEntity;
+import com.sassfnb.adapters.persistence.repository.*;
+import com.sassfnb.adapters.rest.dto.publicorder.PublicOrderDtos.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PublicOrderServiceImplTest {
+
+    @Mock
+    OrderRepository orderRepo;
+    @Mock
+    OrderItemRepository orderItemRepo;
+    @Mock
+    OrderItemOptionSelectionRepository selectionRepo;
+    @Mock
+    OrderItemBatchRepository batchRepo;
+    @Mock
+    QrSessionRepository qrSessionRepo;
+    @Mock
+    MenuItemRepository menuItemRepo;
+    @Mock
+    MenuItemPriceRepository priceRepo;
+    @Mock
+    MenuOptionRepository optionRepo;
+    @Mock
+    MenuOptionValueRepository optionValueRepo;
+    @Mock
+    OrderTableRepository orderTableRepo;
+    @Mock
+    ApplicationEventPublisher events;
+
+    @InjectMocks
+    PublicOrderServiceImpl service;
+
+    private final UUID orderId = UUID.randomUUID();
+
+    private OrderEntity order() {
+        OrderEntity o = new OrderEntity();
+        o.setId(orderId);
+        o.setStatus("OPEN");
+        o.setRevision(4L);
+        return o;
+    }
+
+    private OrderItemEntity item(String status, String total) {
+        OrderItemEntity i = new OrderItemEntity();
+        i.setId(UUID.randomUUID());
+        i.setOrderId(orderId);
+        i.setStatus(status);
+        i.setQuantity(1);
+        i.setUnitPrice(new BigDecimal(total));
+        i.setDiscountAmount(BigDecimal.ZERO);
+        i.setTotalAmount(new BigDecimal(total));
+        return i;
+    }
+
+    @Test
+    void patchItemDeltaReturnsOnlyPatchedItemAndAggregateTotal() {
+        OrderItemEntity it = item("NEW", "30000");
+        when(orderRepo.findById(orderId)).thenReturn(Optional.of(order()));
+        when(orderItemRepo.findById(it.getId())).thenReturn(Optional.of(it));
+        when(orderItemRepo.findByOrderIdAndIdInOrderByCreatedAtAsc(orderId, List.of(it.getId())))
+                .thenReturn(List.of(it));
+        when(selectionRepo.findByOrderItemIdInOrderByCreatedAtAsc(List.of(it.getId()))).thenReturn(List.of());
+        when(orderItemRepo.sumTotalByOrderIdExcludeStatus(orderId, "VOIDED")).thenReturn(new BigDecimal("90000"));
+        when(orderRepo.findRevisionById(orderId)).thenReturn(Optional.of(5L));
+
+        OrderDeltaResponse delta = service.patchItemDelta(orderId, it.getId(), new PatchItemRequest(3, null));
+
+        assertThat(delta.changedItems()).extracting(OrderItemResponse::id).containsExactly(it.getId());
+        assertThat(delta.changedItems().get(0).totalAmount()).isEqualByComparingTo("90000");
+        assertThat(delta.removedItemIds()).isEmpty();
+        assertThat(delta.grandTotal()).isEqualByComparingTo("90000");
+        assertThat(delta.revision()).isEqualTo(5L);
+
+        // delta không load lại toàn bộ order
+        verify(orderItemRepo, never()).findByOrderIdOrderByCreatedAtAsc(any());
+        verify(selectionRepo, never()).findByOrderIdOrderByCreatedAtAsc(any());
+        verify(events).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void deleteItemDeltaReportsRemovedIdWithoutChangedItems() {
+        OrderItemEntity it = item("NEW", "20000");
+        when(orderRepo.findForWriteById(orderId)).thenReturn(Optional.of(order()));
+        when(orderItemRepo.findById(it.getId())).thenReturn(Optional.of(it));
+        when(orderItemRepo.sumTotalByOrderIdExcludeStatus(orderId, "VOIDED")).thenReturn(BigDecimal.ZERO);
+        when(orderRepo.findRevisionById(orderId)).thenReturn(Optional.empty());
+
+        OrderDeltaResponse delta = service.deleteItemDelta(orderId, it.getId());
+
+        assertThat(delta.changedItems()).isEmpty();
+        assertThat(delta.removedItemIds()).containsExactly(it.getId());
+        assertThat(delta.revision()).isEqualTo(4L);
+        verify(orderItemRepo).delete(it);
+        verify(orderItemRepo, never()).findByOrderIdAndIdInOrderByCreatedAtAsc(any(), anyList());
+    }
+
+    @Test
+    void fullResponseGrandTotalExcludesVoidedLikeDelta() {
+        OrderItemEntity live = item("FIRED", "50000");
+        OrderItemEntity voided = item("VOIDED", "70000");
+        when(orderRepo.findById(orderId)).thenReturn(Optional.of(order()));
+        when(orderItemRepo.findByOrderIdOrderByCreatedAtAsc(orderId)).thenReturn(List.of(live, voided));
+        when(selectionRepo.findByOrderIdOrderByCreatedAtAsc(orderId)).thenReturn(List.of());
+        when(orderRepo.findRevisionById(orderId)).thenReturn(Optional.of(4L));
+
+        OrderResponse full = service.getOrder(orderId);
+
+        assertThat(full.items()).hasSize(2);
+        assertThat(full.grandTotal()).isEqualByComparingTo("50000");
+    }
+}
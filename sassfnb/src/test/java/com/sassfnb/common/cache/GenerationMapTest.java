@@ -0,0 +1,50 @@
+package com.sassfnb.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationMapTest {
+
+    private final GenerationMap<String, String> map = new GenerationMap<>();
+
+    @Test
+    void loadsOnceThenServesCachedValue() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(map.getOrLoad("a", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(map.getOrLoad("a", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadRacingAnEvictIsReturnedButNotCached() {
+        String loaded = map.getOrLoad("a", () -> {
+            map.evict("a"); // evict sau khi load đã đọc DB cũ
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(map.get("a")).isNull();
+        assertThat(map.getOrLoad("a", () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void putWithGenerationFromBeforeClearIsRejected() {
+        long gen = map.generation();
+        map.clear();
+
+        assertThat(map.put("a", "stale", gen)).isFalse();
+        assertThat(map.get("a")).isNull();
+        assertThat(map.put("a", "fresh", map.generation())).isTrue();
+        assertThat(map.get("a")).isEqualTo("fresh");
+    }
+
+    @Test
+    void nullLoadIsNotCached() {
+        assertThat(map.getOrLoad("a", () -> null)).isNull();
+        assertThat(map.size()).isZero();
+    }
+}
@@ -0,0 +1,49 @@
+package com.sassfnb.common.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        KeysetCursor c = new KeysetCursor(Instant.parse("2025-03-01T10:15:30.123456Z"), UUID.randomUUID());
+
+        assertThat(KeysetCursor.decode(c.encode())).isEqualTo(c);
+    }
+
+    @Test
+    void encodedCursorIsUrlSafeWithoutPadding() {
+        KeysetCursor c = new KeysetCursor(Instant.parse("2025-03-01T10:15:30Z"), UUID.randomUUID());
+
+        assertThat(c.encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void surroundingWhitespaceIsIgnored() {
+        KeysetCursor c = new KeysetCursor(Instant.EPOCH, new UUID(0, 1));
+
+        assertThat(KeysetCursor.decode("  " + c.encode() + "\n")).isEqualTo(c);
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("")).isNull();
+        assertThat(KeysetCursor.decode("   ")).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> KeysetCursor.decode("bm8tc2VwYXJhdG9y")) // "no-separator"
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.sassfnb.common.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TxidCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        TxidCursor c = new TxidCursor(8_589_934_593L, UUID.randomUUID()); // txid qua epoch thứ 2
+
+        assertThat(TxidCursor.decode(c.encode())).isEqualTo(c);
+        assertThat(c.encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void startCursorUsesMinId() {
+        TxidCursor c = TxidCursor.decode(new TxidCursor(42L, TxidCursor.MIN_ID).encode());
+
+        assertThat(c.txid()).isEqualTo(42L);
+        assertThat(c.id()).isEqualTo(new UUID(0L, 0L));
+    }
+
+    @Test
+    void blankCursorMeansNoCursor() {
+        assertThat(TxidCursor.decode(null)).isNull();
+        assertThat(TxidCursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void timestampCursorFromOldFeedIsRejected() {
+        String old = new KeysetCursor(Instant.EPOCH, UUID.randomUUID()).encode();
+
+        assertThatThrownBy(() -> TxidCursor.decode(old))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
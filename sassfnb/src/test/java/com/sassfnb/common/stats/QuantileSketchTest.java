@@ -0,0 +1,103 @@
+package com.sassfnb.common.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+
+    private static final double ACC = QuantileSketch.RELATIVE_ACCURACY + 1e-9;
+
+    @Test
+    void valuesAtOrBelowOneFallIntoBucketZero() {
+        assertThat(QuantileSketch.bucketOf(1)).isZero();
+        assertThat(QuantileSketch.bucketOf(0.5)).isZero();
+        assertThat(QuantileSketch.bucketOf(-250)).isZero();
+        assertThat(QuantileSketch.valueOf(0)).isZero();
+    }
+
+    @Test
+    void bucketValueStaysWithinRelativeAccuracy() {
+        for (double x = 1.5; x < 3_600_000; x *= 1.37) {
+            double v = QuantileSketch.valueOf(QuantileSketch.bucketOf(x));
+            assertThat(Math.abs(v - x) / x).as("x=%s", x).isLessThanOrEqualTo(ACC);
+        }
+    }
+
+    @Test
+    void bucketsAreMonotonic() {
+        int prev = QuantileSketch.bucketOf(2);
+        for (double x = 3; x < 100_000; x *= 1.1) {
+            int b = QuantileSketch.bucketOf(x);
+            assertThat(b).isGreaterThanOrEqualTo(prev);
+            prev = b;
+        }
+    }
+
+    @Test
+    void emptySketchHasNoQuantile() {
+        QuantileSketch s = new QuantileSketch();
+        assertThat(s.count()).isZero();
+        assertThat(s.quantile(0.5)).isNull();
+    }
+
+    @Test
+    void quantileOutsideUnitRangeIsRejected() {
+        QuantileSketch s = new QuantileSketch();
+        s.add(10);
+        assertThatThrownBy(() -> s.quantile(1.1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> s.quantile(-0.1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void quantileUsesRankFloorOfQTimesNMinusOne() {
+        // 10, 20, ..., 1000 => rank(p50) = floor(0.5 * 99) = 49 => giá trị thứ 50 = 500
+        QuantileSketch s = new QuantileSketch();
+        for (int i = 1; i <= 100; i++)
+            s.add(i * 10.0);
+
+        assertThat(s.count()).isEqualTo(100);
+        assertThat(s.quantile(0)).isCloseTo(10, within(10 * ACC));
+        assertThat(s.quantile(0.5)).isCloseTo(500, within(500 * ACC));
+        assertThat(s.quantile(0.9)).isCloseTo(900, within(900 * ACC));
+        assertThat(s.quantile(1)).isCloseTo(1000, within(1000 * ACC));
+    }
+
+    @Test
+    void addIgnoresNonPositiveCounts() {
+        QuantileSketch s = new QuantileSketch();
+        s.add(QuantileSketch.bucketOf(100), 0);
+        s.add(QuantileSketch.bucketOf(100), -3);
+        assertThat(s.count()).isZero();
+    }
+
+    @Test
+    void mergeEqualsSketchOfAllValues() {
+        QuantileSketch a = new QuantileSketch();
+        QuantileSketch b = new QuantileSketch();
+        QuantileSketch all = new QuantileSketch();
+        for (int i = 1; i <= 500; i++) {
+            double x = i * 37.0;
+            (i % 3 == 0 ? a : b).add(x);
+            all.add(x);
+        }
+
+        a.merge(b);
+
+        assertThat(a.count()).isEqualTo(all.count());
+        for (double q : new double[] { 0, 0.25, 0.5, 0.9, 0.99, 1 }) {
+            assertThat(a.quantile(q)).as("q=%s", q).isEqualTo(all.quantile(q));
+        }
+    }
+
+    @Test
+    void mergeWithEmptyKeepsSketch() {
+        QuantileSketch a = new QuantileSketch();
+        a.add(42);
+        a.merge(new QuantileSketch());
+        assertThat(a.count()).isEqualTo(1);
+        assertThat(a.quantile(0.5)).isCloseTo(42, within(42 * ACC));
+    }
+}